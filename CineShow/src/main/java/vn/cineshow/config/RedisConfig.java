@@ -8,6 +8,7 @@ import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
 import io.lettuce.core.TimeoutOptions;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,10 +17,16 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import jakarta.annotation.PostConstruct;
+import vn.cineshow.service.impl.HolidayCalendarServiceImpl;
+import vn.cineshow.service.impl.RedisSeatFrameRelay;
+import vn.cineshow.service.impl.TicketPriceServiceImpl;
 import java.time.Duration;
 
 @Configuration
@@ -124,6 +131,33 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Plain string template for structures that are read field-by-field (hash indexes, counters)
+     * where JSON-typed values from {@link #redisTemplate} would get in the way.
+     */
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory factory) {
+        return new StringRedisTemplate(factory);
+    }
+
+    /**
+     * Pub/sub subscriptions of this node: ticket price and holiday changes always, seat frames published by
+     * any node when {@code booking.websocket.fanout=redis}.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory,
+                                                                       TicketPriceServiceImpl ticketPriceService,
+                                                                       HolidayCalendarServiceImpl holidayCalendarService,
+                                                                       ObjectProvider<RedisSeatFrameRelay> seatFrameRelay) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(ticketPriceService, new ChannelTopic(TicketPriceServiceImpl.CHANNEL));
+        container.addMessageListener(holidayCalendarService, new ChannelTopic(HolidayCalendarServiceImpl.CHANNEL));
+        seatFrameRelay.ifAvailable(relay ->
+                container.addMessageListener(relay, new ChannelTopic(RedisSeatFrameRelay.CHANNEL)));
+        return container;
+    }
+
     @PostConstruct
     public void testRedisConnection() {
         try {
@@ -34,6 +34,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
+        // broker chi phuc vu client cua node nay; seat frame giua cac node di qua SeatFrameRelay (booking.websocket.fanout)
         registry.enableSimpleBroker("/topic", "/queue"); // noi client subscribe
         registry.setApplicationDestinationPrefixes("/app"); // noi client gửi message
     }
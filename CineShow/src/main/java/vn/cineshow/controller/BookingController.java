@@ -7,7 +7,11 @@ import java.util.List;
 
 import lombok.*;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -27,8 +31,9 @@ import vn.cineshow.dto.redis.OrderSessionDTO;
 
 import vn.cineshow.dto.request.booking.ConcessionListRequest;
 import vn.cineshow.dto.response.ResponseData;
-import vn.cineshow.dto.response.booking.BookingSeatsResponse;
 import vn.cineshow.dto.response.booking.SeatHold;
+import vn.cineshow.dto.response.booking.SeatMapSnapshot;
+import vn.cineshow.dto.response.booking.SeatReplayResponse;
 import vn.cineshow.dto.response.booking.ShowTimeResponse;
 import vn.cineshow.dto.response.booking.TicketDetailResponse;
 import vn.cineshow.dto.response.payment.PaymentMethodDTO;
@@ -78,14 +83,38 @@ public class BookingController {
     }
 
     @Operation(summary = "Get seats for booking by showtimeId",
-            description = "Send a request via this API to get list seat for booking by showtimeId")
+            description = "Send a request via this API to get list seat for booking by showtimeId. " +
+                    "The response carries an ETag; send it back in If-None-Match to get 304 while the seat map is unchanged.")
     @GetMapping("/show-times/{showTimeId}/seats")
-    public ResponseData<?> getSeatsForBooking(@PathVariable Long showTimeId) {
+    public ResponseEntity<byte[]> getSeatsForBooking(@PathVariable Long showTimeId,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        log.info("Request get seats for booking by showtimeId: {}", showTimeId);
-        List<BookingSeatsResponse> seatResponses = bookingService.getSeatsByShowTimeId(showTimeId);
-        log.info("Response get seats for booking by showtimeId: {}", seatResponses);
-        return new ResponseData<>(HttpStatus.OK.value(), "Get showtime and room by movie and start time successfully", seatResponses);
+        log.debug("Request get seats for booking by showtimeId: {}", showTimeId);
+        SeatMapSnapshot snapshot = bookingService.getSeatMapSnapshot(showTimeId);
+
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals(snapshot.getEtag()) || tag.equals("W/" + snapshot.getEtag()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build();
+        }
+
+        // no-cache: caches and CDN edges may store the body but must revalidate with the ETag
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
+    }
+
+    @Operation(summary = "Get seat events after a sequence number",
+            description = "Used by frontend to resync after a WebSocket reconnect. Returns the seat frames of " +
+                    "/topic/seat/{showTimeId} with seq greater than afterSeq, or the full seat map (snapshot = true) " +
+                    "when they are no longer buffered.")
+    @GetMapping("/show-times/{showTimeId}/seats/events")
+    public ResponseData<?> getSeatEventsAfter(@PathVariable Long showTimeId,
+                                              @RequestParam(defaultValue = "0") long afterSeq) {
+        SeatReplayResponse replay = bookingService.getSeatEventsAfter(showTimeId, afterSeq);
+        return new ResponseData<>(HttpStatus.OK.value(), "Get seat events successfully", replay);
     }
 
     @Operation(
@@ -2,14 +2,20 @@ package vn.cineshow.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import vn.cineshow.dto.response.BDashbroad.BusinessDashboardResponse;
 import vn.cineshow.dto.response.ResponseData;
 import vn.cineshow.service.BusinessDashboardService;
+import vn.cineshow.service.SalesRollupService;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/business")
@@ -17,6 +23,7 @@ import vn.cineshow.service.BusinessDashboardService;
 @Slf4j(topic = "BUSINESS-DASHBOARD-CONTROLLER")
 public class BusinessDashbroadController {
     private final BusinessDashboardService businessDashboardService;
+    private final SalesRollupService salesRollupService;
 
     @GetMapping("/dashboard")
     @PreAuthorize("hasAuthority('BUSINESS')")
@@ -25,4 +32,16 @@ public class BusinessDashbroadController {
         return new ResponseData<>(HttpStatus.OK.value(), "Lấy dữ liệu dashboard thành công", dashboard);
     }
 
+    // Tính lại bảng tổng hợp doanh thu theo ngày từ đơn hàng gốc (chạy 1 lần sau khi triển khai, hoặc khi lệch số liệu)
+    @PostMapping("/dashboard/rollups/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseData<Integer> rebuildRollups(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to) {
+        log.info("Rebuild sales rollups from {} to {}", from, to);
+        int orders = salesRollupService.rebuild(from, to);
+        return new ResponseData<>(HttpStatus.OK.value(),
+                "Đã tính lại dữ liệu tổng hợp doanh thu từ " + orders + " đơn hàng", orders);
+    }
+
 }
@@ -13,6 +13,7 @@ import vn.cineshow.model.Holiday;
 import vn.cineshow.service.HolidayService;
 
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +64,21 @@ public class HolidayController {
         );
     }
 
+    /**
+     * Ngày lễ trong N ngày tới (tối đa 366), dùng khi xếp lịch / định giá hàng loạt
+     * Example:
+     * GET /holidays/upcoming?days=30
+     */
+    @GetMapping("/upcoming")
+    @PreAuthorize("hasAuthority('BUSINESS')")
+    public ResponseData<List<LocalDate>> getUpcomingHolidays(@RequestParam(defaultValue = "30") int days) {
+        return new ResponseData<>(
+                HttpStatus.OK.value(),
+                "Get upcoming holidays successfully",
+                holidayService.getUpcomingHolidays(days)
+        );
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('BUSINESS')")
     public ResponseData<Void> deleteHoliday(@PathVariable Long id) {
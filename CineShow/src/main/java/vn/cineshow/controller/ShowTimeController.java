@@ -12,10 +12,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import vn.cineshow.dto.request.showtime.BulkCreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.CreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.UpdateShowTimeRequest;
 import vn.cineshow.dto.response.IdNameDTO;
 import vn.cineshow.dto.response.ResponseData;
+import vn.cineshow.dto.response.showtime.BulkCreateShowTimeResponse;
 import vn.cineshow.dto.response.showtime.ShowTimeListDTO;
 import vn.cineshow.dto.response.showtime.ShowTimeResponse;
 import vn.cineshow.service.ShowTimeService;
@@ -133,6 +135,16 @@ public class ShowTimeController {
         return new ResponseData<>(HttpStatus.OK.value(), "Create sucess", res);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Create many showtimes at once",
+            description = "Validate a whole schedule (rooms x days x movies) against existing showtimes and the batch itself, " +
+                    "create the valid rows in one transaction and return a per-row result")
+    @PreAuthorize("hasAuthority('OPERATION')")
+    public ResponseData<BulkCreateShowTimeResponse> createBulk(@Valid @RequestBody BulkCreateShowTimeRequest req) {
+        BulkCreateShowTimeResponse res = showTimeService.createShowTimes(req);
+        return new ResponseData<>(HttpStatus.OK.value(), "Bulk create completed", res);
+    }
+
 
     @GetMapping("/showtimeBy/{id}")
     @PreAuthorize("hasAuthority('OPERATION')")
@@ -7,8 +7,10 @@ import org.springframework.web.bind.annotation.*;
 import vn.cineshow.dto.request.ticketPrice.TicketPriceRequest;
 import vn.cineshow.dto.response.ResponseData;
 import vn.cineshow.dto.response.ticketPrice.TicketPriceResponse;
+import vn.cineshow.dto.response.ticketPrice.TicketRepricingStatus;
 import vn.cineshow.model.TicketPrice;
 import vn.cineshow.service.TicketPriceService;
+import vn.cineshow.service.TicketRepricingService;
 
 import java.util.List;
 
@@ -18,6 +20,7 @@ import java.util.List;
 public class TicketPriceController {
 
     private final TicketPriceService ticketPriceService;
+    private final TicketRepricingService ticketRepricingService;
 
     @PostMapping
     @PreAuthorize("hasAuthority('BUSINESS')")
@@ -55,4 +58,29 @@ public class TicketPriceController {
                 price
         );
     }
+
+    /**
+     * Gắn lại giá cho vé AVAILABLE của các suất chiếu sắp tới (chạy nền, tự chạy khi đổi giá / ngày lễ)
+     * POST /ticket-prices/reprice
+     */
+    @PostMapping("/reprice")
+    @PreAuthorize("hasAuthority('BUSINESS')")
+    public ResponseData<TicketRepricingStatus> reprice() {
+        return new ResponseData<>(
+                HttpStatus.OK.value(),
+                "Ticket repricing started",
+                ticketRepricingService.requestReprice("manual")
+        );
+    }
+
+    // GET /ticket-prices/reprice : tiến độ lần chạy gần nhất
+    @GetMapping("/reprice")
+    @PreAuthorize("hasAuthority('BUSINESS')")
+    public ResponseData<TicketRepricingStatus> getRepricingStatus() {
+        return new ResponseData<>(
+                HttpStatus.OK.value(),
+                "Get ticket repricing status successfully",
+                ticketRepricingService.getStatus()
+        );
+    }
 }
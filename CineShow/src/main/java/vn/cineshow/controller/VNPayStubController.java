@@ -0,0 +1,59 @@
+package vn.cineshow.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.config.VNPayProperties;
+import vn.cineshow.service.PaymentServiceImpl;
+import vn.cineshow.service.impl.VNPaySigner;
+
+/**
+ * Local stand-in for the VNPay gateway: sends a correctly signed IPN for an order, so the
+ * payment pipeline can be exercised without the sandbox. Only registered when
+ * {@code vnpay.stub-enabled=true}; never enable it in production.
+ */
+@RestController
+@RequestMapping("/payment/stub")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "vnpay.stub-enabled", havingValue = "true")
+@Tag(name = "VNPay Stub Controller", description = "Simulate VNPay IPN callbacks locally")
+@Slf4j
+public class VNPayStubController {
+
+    private final PaymentServiceImpl paymentService;
+    private final VNPayProperties vnpayProperties;
+    private final VNPaySigner vnPaySigner;
+
+    // POST /payment/stub/ipn?txnRef=PHT0123456789ABCD&amount=150000&success=true
+    @PostMapping("/ipn")
+    public ResponseEntity<Map<String, String>> sendIpn(@RequestParam String txnRef,
+                                                       @RequestParam long amount,
+                                                       @RequestParam(defaultValue = "true") boolean success,
+                                                       @RequestParam(required = false) String transactionNo) {
+        String code = success ? "00" : "24";
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_TmnCode", vnpayProperties.getTmnCode());
+        params.put("vnp_TxnRef", txnRef);
+        params.put("vnp_Amount", String.valueOf(amount * 100));
+        params.put("vnp_ResponseCode", code);
+        params.put("vnp_TransactionStatus", success ? "00" : "02");
+        params.put("vnp_TransactionNo", transactionNo != null ? transactionNo
+                : String.valueOf(System.currentTimeMillis() % 100_000_000));
+        params.put("vnp_BankCode", "NCB");
+        params.put("vnp_OrderInfo", "Thanh toan don hang: " + txnRef);
+        params.put("vnp_SecureHash", vnPaySigner.sign(vnPaySigner.buildHashData(params)));
+
+        log.info("[VNPAY STUB] Sending IPN for order={}, success={}", txnRef, success);
+        return ResponseEntity.ok(paymentService.handleIPN(params));
+    }
+}
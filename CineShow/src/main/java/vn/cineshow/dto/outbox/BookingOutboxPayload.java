@@ -0,0 +1,25 @@
+package vn.cineshow.dto.outbox;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Payload of a post-booking outbox event; each event type only fills the fields it needs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingOutboxPayload implements Serializable {
+
+    Long showtimeId;
+    Long userId;
+    List<Long> ticketIds;
+    String orderCode;
+    Double totalPrice;
+    String email;
+}
@@ -0,0 +1,19 @@
+package vn.cineshow.dto.request.showtime;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkCreateShowTimeRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid CreateShowTimeRequest> showtimes;
+}
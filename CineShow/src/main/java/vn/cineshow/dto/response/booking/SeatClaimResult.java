@@ -0,0 +1,20 @@
+package vn.cineshow.dto.response.booking;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class SeatClaimResult {
+    private boolean claimed;
+    // requested tickets already held by someone else or booked (only when not claimed)
+    private List<Long> conflictTicketIds;
+    // every ticket the user holds after the claim (only when claimed)
+    private List<Long> heldTicketIds;
+    private long ttlSeconds;
+}
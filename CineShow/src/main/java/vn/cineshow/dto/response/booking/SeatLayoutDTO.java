@@ -0,0 +1,17 @@
+package vn.cineshow.dto.response.booking;
+
+/**
+ * Immutable seat geometry of one ticket, cached per showtime by SeatLayoutService.
+ */
+public record SeatLayoutDTO(Long ticketId, int rowIdx, int columnIdx, String seatType) {
+
+    public SeatTicketDTO toSeatTicket(String status) {
+        return SeatTicketDTO.builder()
+                .ticketId(ticketId)
+                .rowIdx(rowIdx)
+                .columnIdx(columnIdx)
+                .seatType(seatType)
+                .status(status)
+                .build();
+    }
+}
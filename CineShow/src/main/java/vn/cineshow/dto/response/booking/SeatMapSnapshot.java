@@ -0,0 +1,16 @@
+package vn.cineshow.dto.response.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Serialized seat map of a showtime, reused while the seat map version is unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatMapSnapshot {
+    private long version;
+    private String etag;
+    private byte[] body;
+    private long builtAt;
+}
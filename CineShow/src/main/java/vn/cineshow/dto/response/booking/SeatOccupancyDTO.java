@@ -0,0 +1,20 @@
+package vn.cineshow.dto.response.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Seat counters of one showtime. {@code available} counts AVAILABLE tickets in the DB,
+ * seats currently held in Redis are included there and reported again in {@code held}.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class SeatOccupancyDTO {
+    private long total;
+    private long available;
+    private long held;
+    private long booked;
+    private long blocked;
+}
@@ -0,0 +1,18 @@
+package vn.cineshow.dto.response.booking;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One buffered seat frame; {@code seats} is the JSON array exactly as it was broadcast.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatReplayFrame {
+    private long seq;
+
+    @JsonRawValue
+    private String seats;
+}
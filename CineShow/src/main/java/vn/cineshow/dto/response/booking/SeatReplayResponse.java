@@ -0,0 +1,24 @@
+package vn.cineshow.dto.response.booking;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Resync answer for a reconnecting client: either the frames after the requested seq,
+ * or a full seat map when the buffer no longer covers the gap ({@code snapshot = true}).
+ * Frames broadcast after {@code latestSeq} are still to be applied on top.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatReplayResponse {
+    private Long showTimeId;
+    private long latestSeq;
+    private boolean snapshot;
+    private List<SeatReplayFrame> frames;
+    private List<BookingSeatsResponse> seats;
+}
@@ -1,5 +1,6 @@
 package vn.cineshow.dto.response.booking;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter
@@ -14,4 +15,7 @@ public class SeatTicketDTO {
     private int columnIdx;
     private String seatType;
     private String status;
+    // user behind a HELD/RELEASED/FAILED change, only set on broadcast frames
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long userId;
 }
@@ -0,0 +1,14 @@
+package vn.cineshow.dto.response.showtime;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class BulkCreateShowTimeResponse {
+    private int requested;
+    private int created;
+    private List<ShowTimeBulkRowResult> rows;
+}
@@ -0,0 +1,22 @@
+package vn.cineshow.dto.response.showtime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * Outcome of one row of a bulk schedule: the created showtime id, or why the row was rejected.
+ * A conflict points either to an existing showtime or to an earlier row of the same batch.
+ */
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShowTimeBulkRowResult {
+    private int row;
+    private boolean created;
+    private Long showTimeId;
+    private Integer errorCode;
+    private String message;
+    private Long conflictShowTimeId;
+    private Integer conflictRow;
+}
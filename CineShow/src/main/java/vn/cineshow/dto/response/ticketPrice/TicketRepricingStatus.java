@@ -0,0 +1,33 @@
+package vn.cineshow.dto.response.ticketPrice;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Progress of the latest ticket repricing run. Immutable; every step publishes a new copy.
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+public class TicketRepricingStatus {
+
+    public enum State {
+        IDLE, RUNNING, DONE, FAILED
+    }
+
+    private final State state;
+    private final String reason;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final int totalShowtimes;
+    private final int processedShowtimes;
+    private final long updatedTickets;
+    private final String error;
+
+    public static TicketRepricingStatus idle() {
+        return TicketRepricingStatus.builder().state(State.IDLE).build();
+    }
+}
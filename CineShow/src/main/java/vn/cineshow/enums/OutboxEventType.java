@@ -0,0 +1,8 @@
+package vn.cineshow.enums;
+
+public enum OutboxEventType {
+    SEATS_BOOKED,       // đánh dấu ghế đã bán trong Redis + broadcast WebSocket
+    HOLD_RELEASED,      // xoá OrderSession + SeatHold của người mua
+    BOOKING_CONFIRMED,  // gửi email xác nhận đặt vé
+    SALES_CHANGED       // cập nhật bảng tổng hợp doanh thu theo ngày
+}
@@ -0,0 +1,9 @@
+package vn.cineshow.enums;
+
+public enum OutboxStatus {
+    PENDING,     // đã ghi cùng transaction, chờ relay gửi
+    PROCESSING,  // relay đang gửi
+    SENT,        // đã gửi tới consumer
+    FAILED,      // lỗi, chờ thử lại
+    DEAD         // hết số lần thử, cần xử lý tay
+}
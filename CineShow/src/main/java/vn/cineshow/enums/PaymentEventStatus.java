@@ -0,0 +1,9 @@
+package vn.cineshow.enums;
+
+public enum PaymentEventStatus {
+    RECEIVED,    // đã ghi nhận, chờ xử lý
+    PROCESSING,  // worker đang xử lý
+    PROCESSED,   // đã áp dụng xong
+    FAILED,      // lỗi, chờ thử lại
+    DEAD         // hết số lần thử, cần xử lý tay
+}
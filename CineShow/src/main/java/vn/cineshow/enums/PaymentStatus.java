@@ -4,4 +4,5 @@ public enum PaymentStatus {
     PENDING,
     COMPLETED,
     FAILED,
+    REFUND_REQUIRED, // khách đã trả tiền nhưng không giao được vé (ghế đã bán cho đơn khác), cần hoàn tiền
 }
@@ -207,6 +207,12 @@ public enum ErrorCode {
     // ORDER_NOT_COMPLETED(3109, "Đơn hàng phải hoàn thành thanh toán trước khi check-in"),
     ORDER_NOT_COMPLETED(3109, "Đơn hàng phải hoàn thành thanh toán trước khi check-in"),
     
+    // TICKET_STATE_CONFLICT(3110, "Some tickets were already sold or are no longer available"),
+    TICKET_STATE_CONFLICT(3110, "Một số vé đã được bán hoặc không còn khả dụng"),
+    
+    // ORDER_SESSION_MISMATCH(3111, "Checkout tickets do not match the order session"),
+    ORDER_SESSION_MISMATCH(3111, "Vé thanh toán không khớp với phiên đặt vé"),
+    
     //Password
     // PASSWORD_TOO_WEAK(1020, "Mật khẩu quá yếu"),
     PASSWORD_TOO_WEAK(1020, "Mật khẩu quá yếu"),
@@ -0,0 +1,61 @@
+package vn.cineshow.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import vn.cineshow.enums.TicketStatus;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Ticket of a showtime that ended long ago, moved out of {@code tickets} by TicketArchiveScheduler
+ * with its original id. Read-only: only order history and reports look at it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "tickets_archive", indexes = {
+        @Index(name = "idx_tickets_archive_order", columnList = "order_id"),
+        @Index(name = "idx_tickets_archive_showtime", columnList = "showtime_id")
+})
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ArchivedTicket implements Serializable {
+
+    @Id
+    Long id;
+
+    // seat and showtime proxies of a page of archived tickets are loaded in batches (@BatchSize on Seat, ShowTime)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seat_id", nullable = false)
+    Seat seat;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ticket_price_id", nullable = false)
+    TicketPrice ticketPrice;
+
+    @Column(columnDefinition = "DECIMAL(10,2)")
+    Double priceSnapshot;
+
+    @Enumerated(EnumType.STRING)
+    TicketStatus status;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "showtime_id", nullable = false)
+    ShowTime showTime;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    Order order;
+
+    @Column(name = "created_at")
+    LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    LocalDateTime updatedAt;
+
+    @Column(name = "archived_at")
+    LocalDateTime archivedAt;
+}
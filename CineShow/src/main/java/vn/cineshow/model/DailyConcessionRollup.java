@@ -0,0 +1,36 @@
+package vn.cineshow.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Concessions sold in completed orders of one day, maintained by SalesRollupService.
+ */
+@Entity
+@Table(name = "daily_concession_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_concession_rollups", columnNames = {"sale_date", "concession_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DailyConcessionRollup extends AbstractEntity implements Serializable {
+
+    @Column(name = "sale_date", nullable = false)
+    LocalDate saleDate;
+
+    @Column(name = "concession_id", nullable = false)
+    Long concessionId;
+
+    @Column(nullable = false)
+    long quantity;
+
+    @Column(nullable = false, columnDefinition = "DECIMAL(14,2)")
+    double revenue;
+}
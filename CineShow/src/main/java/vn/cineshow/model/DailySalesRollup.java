@@ -0,0 +1,48 @@
+package vn.cineshow.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Completed sales of one day for one movie and room type, maintained by SalesRollupService.
+ * The day is the order's creation date.
+ */
+@Entity
+@Table(name = "daily_sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_sales_rollups", columnNames = {"sale_date", "movie_id", "room_type_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DailySalesRollup extends AbstractEntity implements Serializable {
+
+    @Column(name = "sale_date", nullable = false)
+    LocalDate saleDate;
+
+    // 0: đơn không có vé
+    @Column(name = "movie_id", nullable = false)
+    Long movieId;
+
+    @Column(name = "room_type_id", nullable = false)
+    Long roomTypeId;
+
+    @Column(nullable = false)
+    long ordersCount;
+
+    // tổng tiền đơn (đã trừ giảm giá, gồm cả bắp nước)
+    @Column(nullable = false, columnDefinition = "DECIMAL(14,2)")
+    double revenue;
+
+    @Column(nullable = false)
+    long ticketsSold;
+
+    @Column(nullable = false, columnDefinition = "DECIMAL(14,2)")
+    double ticketRevenue;
+}
@@ -9,11 +9,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,7 +28,9 @@ import lombok.experimental.FieldDefaults;
 import vn.cineshow.enums.OrderStatus;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_created", columnList = "order_status, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -45,6 +51,7 @@ public class Order extends AbstractEntity implements Serializable {
     @Enumerated(EnumType.STRING)
     OrderStatus orderStatus; //PENDING, COMPLETED, CANCELED
 
+    // cấp bởi OrderCodeGenerator khi tạo đơn (cũng là vnp_TxnRef)
     @Column(nullable = false, unique = true)
     String code;
 
@@ -57,16 +64,17 @@ public class Order extends AbstractEntity implements Serializable {
     @OneToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY, mappedBy = "order")
     private List<Ticket> tickets;
 
+    // vé của suất chiếu cũ đã chuyển sang tickets_archive (chỉ đọc); nạp theo lô cho cả trang đơn hàng
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "order")
+    @BatchSize(size = 50)
+    private List<ArchivedTicket> archivedTickets;
+
     @Builder.Default
     @Column(nullable = false, columnDefinition = "boolean DEFAULT false")
     Boolean isCheckIn = false;
 
     @PrePersist
     public void prePersist() {
-        if (code == null) {
-            long timestampPart = System.currentTimeMillis() % 1_000_000_000L;
-            code = String.format("PHT%09d", timestampPart);
-        }
         if (isCheckIn == null) {
             isCheckIn = false;
         }
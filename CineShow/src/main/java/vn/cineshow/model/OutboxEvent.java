@@ -0,0 +1,67 @@
+package vn.cineshow.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.enums.OutboxStatus;
+
+/**
+ * A side effect (Redis, WebSocket, email) written in the same transaction as the change that
+ * caused it and delivered by the outbox relay after commit.
+ */
+@Entity
+@Table(
+        name = "outbox_events",
+        indexes = {
+                @Index(name = "idx_outbox_events_status_next", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_outbox_events_claim_token", columnList = "claim_token")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OutboxEvent extends AbstractEntity implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    OutboxEventType type;
+
+    // đối tượng gây ra sự kiện, vd: mã đơn hàng
+    @Column(name = "aggregate_id", nullable = false, length = 100)
+    String aggregateId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    OutboxStatus status;
+
+    @Builder.Default
+    @Column(nullable = false)
+    Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    LocalDateTime nextAttemptAt;
+
+    // relay nào đang giữ lô sự kiện này
+    @Column(name = "claim_token", length = 36)
+    String claimToken;
+
+    @Column(length = 500)
+    String lastError;
+
+    LocalDateTime sentAt;
+}
@@ -41,4 +41,8 @@ public class Payment extends AbstractEntity implements Serializable {
     @Enumerated(EnumType.STRING)
     PaymentStatus paymentStatus;
 
+    // id các vé lúc checkout, cách nhau bởi dấu phẩy; IPN đối chiếu với danh sách này (không dùng order.tickets vì có thể bị đổi)
+    @Column(columnDefinition = "VARCHAR(1000)")
+    String ticketIds;
+
 }
@@ -0,0 +1,68 @@
+package vn.cineshow.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import vn.cineshow.enums.PaymentEventStatus;
+
+/**
+ * A payment gateway callback (IPN) recorded before its effects are applied.
+ * (txnRef, transactionNo) is unique, so a redelivered callback is stored only once.
+ */
+@Entity
+@Table(
+        name = "payment_events",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {"txn_ref", "transaction_no"})
+        },
+        indexes = {
+                @Index(name = "idx_payment_events_status_next", columnList = "status, next_attempt_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PaymentEvent extends AbstractEntity implements Serializable {
+
+    @Column(name = "txn_ref", nullable = false, columnDefinition = "VARCHAR(100)")
+    String txnRef;
+
+    @Column(name = "transaction_no", nullable = false, columnDefinition = "VARCHAR(100)")
+    String transactionNo;
+
+    // tham số gốc của callback (JSON)
+    @Column(nullable = false, columnDefinition = "TEXT")
+    String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    PaymentEventStatus status;
+
+    // callback báo thanh toán thành công (vnp_ResponseCode và vnp_TransactionStatus đều là 00)
+    @Builder.Default
+    @Column(nullable = false, columnDefinition = "boolean DEFAULT false")
+    Boolean paid = false;
+
+    @Builder.Default
+    @Column(nullable = false)
+    Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    String lastError;
+
+    LocalDateTime processedAt;
+}
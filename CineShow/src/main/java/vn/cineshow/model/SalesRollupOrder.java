@@ -0,0 +1,49 @@
+package vn.cineshow.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * What one order contributes to the daily rollups, and whether it is currently counted.
+ * Makes rollup updates idempotent, and keeps the ticket figures of an order whose tickets
+ * are released when it is canceled after completion.
+ */
+@Entity
+@Table(name = "sales_rollup_orders", indexes = {
+        @Index(name = "idx_sales_rollup_orders_date", columnList = "sale_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SalesRollupOrder implements Serializable {
+
+    @Id
+    @Column(name = "order_id")
+    Long orderId;
+
+    @Column(name = "sale_date", nullable = false)
+    LocalDate saleDate;
+
+    @Column(name = "movie_id", nullable = false)
+    Long movieId;
+
+    @Column(name = "room_type_id", nullable = false)
+    Long roomTypeId;
+
+    long tickets;
+
+    @Column(columnDefinition = "DECIMAL(14,2)")
+    double ticketRevenue;
+
+    @Column(columnDefinition = "DECIMAL(14,2)")
+    double revenue;
+
+    boolean counted;
+}
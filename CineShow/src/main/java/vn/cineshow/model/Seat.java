@@ -2,6 +2,7 @@ package vn.cineshow.model;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import vn.cineshow.enums.SeatStatus;
@@ -21,6 +22,7 @@ import java.io.Serializable;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@BatchSize(size = 50)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Seat extends AbstractEntity implements Serializable {
     @Column(name = "seat_row")
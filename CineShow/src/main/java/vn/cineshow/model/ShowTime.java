@@ -1,6 +1,7 @@
 package vn.cineshow.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -9,12 +10,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
-@Table(name = "showtimes")
+@Table(name = "showtimes", indexes = {
+        @Index(name = "idx_showtimes_end_time", columnList = "end_time"),
+        @Index(name = "idx_showtimes_start_time", columnList = "start_time")
+})
 @Setter
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@BatchSize(size = 50)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ShowTime extends AbstractEntity implements Serializable {
 
@@ -0,0 +1,48 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import vn.cineshow.enums.TicketStatus;
+import vn.cineshow.model.ArchivedTicket;
+
+@Repository
+public interface ArchivedTicketRepository extends JpaRepository<ArchivedTicket, Long> {
+
+    /**
+     * Copy every ticket of the given showtimes into the archive, keeping their ids.
+     * Runs in the caller's transaction, together with the matching delete from {@code tickets}.
+     *
+     * @return number of tickets copied
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO tickets_archive (id, seat_id, ticket_price_id, price_snapshot, status, showtime_id, order_id,
+                                     created_at, updated_at, archived_at)
+        SELECT t.id, t.seat_id, t.ticket_price_id, t.price_snapshot, t.status, t.showtime_id, t.order_id,
+               t.created_at, t.updated_at, :now
+        FROM tickets t
+        WHERE t.showtime_id IN (:showTimeIds)
+        """, nativeQuery = true)
+    int copyFromTickets(@Param("showTimeIds") Collection<Long> showTimeIds, @Param("now") LocalDateTime now);
+
+    Long countByShowTime_IdAndStatus(Long showTimeId, TicketStatus status);
+
+    // same as TicketRepository.sumByOrderIds, for orders of archived showtimes
+    @Query("""
+        SELECT t.order.id, st.movie.id, r.roomType.id, COUNT(t), COALESCE(SUM(t.priceSnapshot), 0)
+        FROM ArchivedTicket t
+        JOIN t.showTime st
+        JOIN st.room r
+        WHERE t.order.id IN :orderIds
+        GROUP BY t.order.id, st.movie.id, r.roomType.id
+        """)
+    List<Object[]> sumByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
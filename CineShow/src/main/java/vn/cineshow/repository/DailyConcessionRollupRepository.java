@@ -0,0 +1,52 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import vn.cineshow.dto.response.BDashbroad.TopProductDTO;
+import vn.cineshow.model.DailyConcessionRollup;
+
+@Repository
+public interface DailyConcessionRollupRepository extends JpaRepository<DailyConcessionRollup, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyConcessionRollup> findBySaleDateIn(Collection<LocalDate> saleDates);
+
+    @Modifying
+    @Query("DELETE FROM DailyConcessionRollup r WHERE r.saleDate = :day")
+    int deleteBySaleDate(@Param("day") LocalDate day);
+
+    @Query("""
+        SELECT COALESCE(SUM(r.quantity), 0)
+        FROM DailyConcessionRollup r
+        WHERE r.saleDate >= :from AND r.saleDate < :to
+        """)
+    Long sumQuantityBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("""
+        SELECT new vn.cineshow.dto.response.BDashbroad.TopProductDTO(
+            c.name,
+            SUM(r.revenue),
+            SUM(r.quantity),
+            c.urlImage
+        )
+        FROM DailyConcessionRollup r
+        JOIN Concession c ON c.id = r.concessionId
+        WHERE r.saleDate >= :from AND r.saleDate < :to
+        GROUP BY c.id, c.name, c.urlImage
+        ORDER BY SUM(r.quantity) DESC
+        """)
+    List<TopProductDTO> findTopProductsBetween(@Param("from") LocalDate from,
+                                               @Param("to") LocalDate to,
+                                               Pageable pageable);
+}
@@ -0,0 +1,48 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import vn.cineshow.model.DailySalesRollup;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailySalesRollup> findBySaleDateIn(Collection<LocalDate> saleDates);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.saleDate = :day")
+    int deleteBySaleDate(@Param("day") LocalDate day);
+
+    /**
+     * Totals of the days in [from, to): [revenue, orders, tickets]
+     */
+    @Query("""
+        SELECT COALESCE(SUM(r.revenue), 0), COALESCE(SUM(r.ordersCount), 0), COALESCE(SUM(r.ticketsSold), 0)
+        FROM DailySalesRollup r
+        WHERE r.saleDate >= :from AND r.saleDate < :to
+        """)
+    List<Object[]> sumBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Totals per month of the days in [from, to): [month, revenue, orders]
+     */
+    @Query("""
+        SELECT MONTH(r.saleDate), COALESCE(SUM(r.revenue), 0), COALESCE(SUM(r.ordersCount), 0)
+        FROM DailySalesRollup r
+        WHERE r.saleDate >= :from AND r.saleDate < :to
+        GROUP BY MONTH(r.saleDate)
+        ORDER BY MONTH(r.saleDate)
+        """)
+    List<Object[]> sumByMonthBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -11,6 +11,7 @@ import vn.cineshow.enums.MovieStatus;
 import vn.cineshow.model.Movie;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -35,4 +36,68 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     List<IdNameDTO> findAllIdNameByStatuses(@Param("statuses") List<MovieStatus> statuses);
 
     boolean existsByNameAndReleaseDateAndIdNot(String name, LocalDate releaseDate, Long id);
+
+    // ================== OPERATION DASHBOARD ==================
+    // Phim của năm [yearStart, nextYearStart); phim chưa có ngày phát hành tính vào mọi năm
+
+    /**
+     * Movie counts per status: [status, count]
+     */
+    @Query("""
+        SELECT m.status, COUNT(m) FROM Movie m
+        WHERE m.isDeleted = false
+          AND (m.releaseDate IS NULL OR (m.releaseDate >= :yearStart AND m.releaseDate < :nextYearStart))
+        GROUP BY m.status
+        """)
+    List<Object[]> countByStatusReleasedBetween(@Param("yearStart") LocalDate yearStart,
+                                                @Param("nextYearStart") LocalDate nextYearStart);
+
+    /**
+     * Movies of a status with their number of showtimes (not deleted): [id, name, posterUrl, showtimeCount]
+     */
+    @Query("""
+        SELECT m.id, m.name, m.posterUrl, COUNT(st.id)
+        FROM Movie m
+        LEFT JOIN ShowTime st ON st.movie = m AND st.isDeleted = false
+        WHERE m.isDeleted = false
+          AND m.status = :status
+          AND (m.releaseDate IS NULL OR (m.releaseDate >= :yearStart AND m.releaseDate < :nextYearStart))
+        GROUP BY m.id, m.name, m.posterUrl
+        ORDER BY m.id
+        """)
+    List<Object[]> findWithShowtimeCountByStatus(@Param("status") MovieStatus status,
+                                                 @Param("yearStart") LocalDate yearStart,
+                                                 @Param("nextYearStart") LocalDate nextYearStart,
+                                                 Pageable pageable);
+
+    /**
+     * Movies of a status whose last showtime starts in (now, horizon]: showtimes ahead, none after the horizon.
+     */
+    @Query("""
+        SELECT COUNT(m) FROM Movie m
+        WHERE m.isDeleted = false
+          AND m.status = :status
+          AND (m.releaseDate IS NULL OR (m.releaseDate >= :yearStart AND m.releaseDate < :nextYearStart))
+          AND EXISTS (SELECT 1 FROM ShowTime st
+                      WHERE st.movie = m AND st.isDeleted = false
+                        AND st.startTime > :now AND st.startTime <= :horizon)
+          AND NOT EXISTS (SELECT 1 FROM ShowTime st
+                          WHERE st.movie = m AND st.isDeleted = false AND st.startTime > :horizon)
+        """)
+    long countEndingBefore(@Param("status") MovieStatus status,
+                           @Param("yearStart") LocalDate yearStart,
+                           @Param("nextYearStart") LocalDate nextYearStart,
+                           @Param("now") LocalDateTime now,
+                           @Param("horizon") LocalDateTime horizon);
+
+    @Query("""
+        SELECT COUNT(m) FROM Movie m
+        WHERE m.isDeleted = false
+          AND m.status = :status
+          AND (m.releaseDate IS NULL OR (m.releaseDate >= :yearStart AND m.releaseDate < :nextYearStart))
+          AND NOT EXISTS (SELECT 1 FROM ShowTime st WHERE st.movie = m AND st.isDeleted = false)
+        """)
+    long countWithoutShowtime(@Param("status") MovieStatus status,
+                              @Param("yearStart") LocalDate yearStart,
+                              @Param("nextYearStart") LocalDate nextYearStart);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.cineshow.model.OrderConcession;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,4 +24,10 @@ public interface OrderConcessionRepository extends JpaRepository<OrderConcession
            "JOIN oc.concession c " +
            "WHERE oc.order.id = :orderId")
     List<Object[]> findConcessionDetailsByOrderId(@Param("orderId") Long orderId);
+
+    // Dòng bắp nước của các đơn cho bảng tổng hợp: [orderId, concessionId, quantity, unitPrice]
+    @Query("SELECT oc.order.id, oc.concession.id, oc.quantity, oc.unitPrice " +
+           "FROM OrderConcession oc " +
+           "WHERE oc.order.id IN :orderIds")
+    List<Object[]> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
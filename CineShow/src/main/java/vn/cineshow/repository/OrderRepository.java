@@ -4,14 +4,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import vn.cineshow.dto.response.BDashbroad.MonthlyStatsDTO;
-import vn.cineshow.dto.response.BDashbroad.TopProductDTO;
 import vn.cineshow.enums.OrderStatus;
 import vn.cineshow.model.Order;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,10 +56,76 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                        LocalDateTime end,
                                        Pageable pageable);
 
-    @Query("SELECT o FROM Order o " +
-            "WHERE o.orderStatus = vn.cineshow.enums.OrderStatus.PENDING " +
-            "AND o.updatedAt < :threshold")
-    List<Order> findPendingBefore(@Param("threshold") LocalDateTime threshold);
+    /**
+     * PENDING orders with id above {@code afterId} created before the threshold, not paid, whose gateway
+     * callback is not waiting to be applied and that have no successful callback parked as DEAD (paid,
+     * left for manual handling). Same exclusions as {@link #cancelPending}.
+     */
+    @Query("""
+            SELECT o.id FROM Order o
+            WHERE o.orderStatus = vn.cineshow.enums.OrderStatus.PENDING
+              AND o.createdAt < :threshold
+              AND o.id > :afterId
+              AND NOT EXISTS (
+                  SELECT 1 FROM Payment p
+                  WHERE p.order = o
+                    AND p.paymentStatus = vn.cineshow.enums.PaymentStatus.COMPLETED)
+              AND NOT EXISTS (
+                  SELECT 1 FROM PaymentEvent e
+                  WHERE e.txnRef = o.code
+                    AND (e.status IN (vn.cineshow.enums.PaymentEventStatus.RECEIVED,
+                                      vn.cineshow.enums.PaymentEventStatus.PROCESSING,
+                                      vn.cineshow.enums.PaymentEventStatus.FAILED)
+                         OR (e.status = vn.cineshow.enums.PaymentEventStatus.DEAD AND e.paid = true)))
+            ORDER BY o.id
+            """)
+    List<Long> findExpiredPendingIds(@Param("threshold") LocalDateTime threshold,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    /**
+     * Cancel the given orders if still PENDING, not paid meanwhile and with no callback waiting or
+     * parked as DEAD after a successful payment (re-checked here: one may have arrived since the select).
+     *
+     * @return number of orders canceled
+     */
+    @Modifying
+    @Query("""
+            UPDATE Order o
+               SET o.orderStatus = vn.cineshow.enums.OrderStatus.CANCELED, o.updatedAt = :now
+             WHERE o.id IN :ids
+               AND o.orderStatus = vn.cineshow.enums.OrderStatus.PENDING
+               AND NOT EXISTS (
+                   SELECT 1 FROM Payment p
+                   WHERE p.order = o
+                     AND p.paymentStatus = vn.cineshow.enums.PaymentStatus.COMPLETED)
+               AND NOT EXISTS (
+                   SELECT 1 FROM PaymentEvent e
+                   WHERE e.txnRef = o.code
+                     AND (e.status IN (vn.cineshow.enums.PaymentEventStatus.RECEIVED,
+                                       vn.cineshow.enums.PaymentEventStatus.PROCESSING,
+                                       vn.cineshow.enums.PaymentEventStatus.FAILED)
+                          OR (e.status = vn.cineshow.enums.PaymentEventStatus.DEAD AND e.paid = true)))
+            """)
+    int cancelPending(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * What the sales rollups need of the given orders: [id, createdAt, totalPrice, orderStatus]
+     */
+    @Query("SELECT o.id, o.createdAt, o.totalPrice, o.orderStatus FROM Order o WHERE o.code IN :codes")
+    List<Object[]> findSalesStateByCodes(@Param("codes") Collection<String> codes);
+
+    /**
+     * Orders in a status created in [from, to), for a rollup rebuild: [id, createdAt, totalPrice, orderStatus]
+     */
+    @Query("""
+            SELECT o.id, o.createdAt, o.totalPrice, o.orderStatus FROM Order o
+            WHERE o.orderStatus = :status
+              AND o.createdAt >= :from AND o.createdAt < :to
+            """)
+    List<Object[]> findSalesStateCreatedBetween(@Param("status") OrderStatus status,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
 
     @EntityGraph(attributePaths = {
             "user",
@@ -128,78 +194,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Double sumRevenueByCreatedAtBetween(@Param("start") LocalDateTime start,
                                         @Param("end") LocalDateTime end);
 
-    // Thống kê orders theo ngày (native)
-    @Query(value = "SELECT CAST(o.created_at AS DATE) as date, " +
-            "COUNT(o.id) as orderCount, " +
-            "COALESCE(SUM(CASE WHEN o.order_status = 'COMPLETED' THEN o.total_price ELSE 0.0 END), 0.0) as revenue " +
-            "FROM orders o " +
-            "WHERE o.created_at >= :start AND o.created_at < :end " +
-            "GROUP BY CAST(o.created_at AS DATE) " +
-            "ORDER BY date ASC",
-            nativeQuery = true)
-    List<Object[]> getOrderStatsByDateRange(@Param("start") LocalDateTime start,
-                                            @Param("end") LocalDateTime end);
-
-    // ================== DASHBOARD / STATS (V2 – BDashbroad) ==================
-
-    @Query("""
-        SELECT SUM(o.totalPrice) FROM Order o
-        WHERE YEAR(o.updatedAt) = :year AND MONTH(o.updatedAt) = :month
-          AND o.orderStatus = 'COMPLETED'
-        """)
-    Long sumRevenueByMonth(@Param("year") int year, @Param("month") int month);
-
-    @Query("""
-        SELECT COUNT(o) FROM Order o
-        WHERE YEAR(o.updatedAt) = :year AND MONTH(o.updatedAt) = :month
-          AND o.orderStatus = 'COMPLETED'
-        """)
-    Long countByMonth(@Param("year") int year, @Param("month") int month);
-
-    @Query("""
-        SELECT new vn.cineshow.dto.response.BDashbroad.MonthlyStatsDTO(
-            MONTH(o.updatedAt),
-            COALESCE(SUM(o.totalPrice), 0)
-        )
-        FROM Order o
-        WHERE YEAR(o.updatedAt) = YEAR(CURRENT_DATE)
-          AND o.orderStatus = 'COMPLETED'
-        GROUP BY MONTH(o.updatedAt)
-        ORDER BY MONTH(o.updatedAt)
-        """)
-    List<MonthlyStatsDTO> getRevenueOfCurrentYear();
-
-    @Query("""
-        SELECT new vn.cineshow.dto.response.BDashbroad.MonthlyStatsDTO(
-            MONTH(o.updatedAt),
-            COUNT(o)
-        )
-        FROM Order o
-        WHERE YEAR(o.updatedAt) = YEAR(CURRENT_DATE)
-          AND o.orderStatus = 'COMPLETED'
-        GROUP BY MONTH(o.updatedAt)
-        ORDER BY MONTH(o.updatedAt)
-        """)
-    List<MonthlyStatsDTO> getOrdersOfCurrentYear();
-
-    @Query("""
-        SELECT new vn.cineshow.dto.response.BDashbroad.TopProductDTO(
-            c.name,
-            SUM(oc.unitPrice * oc.quantity),
-            SUM(oc.quantity),
-            c.urlImage
-        )
-        FROM Order o
-        JOIN OrderConcession oc ON o.id = oc.order.id
-        JOIN Concession c ON oc.concession.id = c.id
-        WHERE o.orderStatus = vn.cineshow.enums.OrderStatus.COMPLETED
-          AND YEAR(o.updatedAt) = YEAR(CURRENT_DATE)
-          AND MONTH(o.updatedAt) = MONTH(CURRENT_DATE)
-        GROUP BY c.id, c.name, c.urlImage
-        ORDER BY SUM(oc.quantity) DESC
-        """)
-    List<TopProductDTO> findTopProductsOfCurrentMonth(Pageable pageable);
-
     @Query("""
         SELECT o FROM Order o
         LEFT JOIN FETCH o.user
@@ -213,43 +207,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                             @Param("endOfDay") LocalDateTime endOfDay,
                                             Pageable pageable);
 
-    @Query("""
-        SELECT SUM(o.totalPrice)
-        FROM Order o
-        WHERE o.orderStatus = 'COMPLETED'
-          AND o.createdAt BETWEEN :start AND :end
-        """)
-    Double getRevenueByDate(@Param("start") LocalDateTime start,
-                            @Param("end") LocalDateTime end);
-
-    @Query("""
-        SELECT COUNT(t)
-        FROM Ticket t
-        WHERE t.order.orderStatus = 'COMPLETED'
-          AND t.createdAt BETWEEN :start AND :end
-        """)
-    Long getTicketsByDate(@Param("start") LocalDateTime start,
-                          @Param("end") LocalDateTime end);
-
-    @Query("""
-        SELECT COUNT(o)
-        FROM Order o
-        WHERE o.orderStatus = 'COMPLETED'
-          AND o.createdAt BETWEEN :start AND :end
-        """)
-    Long getCompletedOrdersByDate(@Param("start") LocalDateTime start,
-                                  @Param("end") LocalDateTime end);
-
-    @Query("""
-        SELECT COALESCE(SUM(oc.quantity), 0)
-        FROM OrderConcession oc
-        WHERE oc.order.orderStatus = 'COMPLETED'
-          AND oc.order.createdAt BETWEEN :start AND :end
-        """)
-    Long getConcessionSoldByDate(@Param("start") LocalDateTime start,
-                                 @Param("end") LocalDateTime end);
-
-
     @Query("""
         SELECT DISTINCT o FROM Order o
         LEFT JOIN FETCH o.tickets t
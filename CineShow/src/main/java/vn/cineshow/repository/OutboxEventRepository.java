@@ -0,0 +1,75 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import vn.cineshow.enums.OutboxStatus;
+import vn.cineshow.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("""
+            SELECT e.id FROM OutboxEvent e
+            WHERE e.status IN :statuses
+              AND e.nextAttemptAt <= :now
+            ORDER BY e.id
+            """)
+    List<Long> findDueIds(@Param("statuses") Collection<OutboxStatus> statuses,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Tag the still claimable events of a batch with the relay's token; rows another node
+     * took in the meantime are skipped, so each event is delivered by one relay only.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE OutboxEvent e
+               SET e.status = vn.cineshow.enums.OutboxStatus.PROCESSING,
+                   e.claimToken = :token,
+                   e.attempts = e.attempts + 1,
+                   e.updatedAt = :now
+             WHERE e.id IN :ids
+               AND e.status IN :statuses
+               AND e.nextAttemptAt <= :now
+            """)
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("token") String token,
+              @Param("statuses") Collection<OutboxStatus> statuses,
+              @Param("now") LocalDateTime now);
+
+    List<OutboxEvent> findByClaimTokenOrderById(String claimToken);
+
+    /**
+     * Hand events whose relay died mid-way back to the retry queue.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE OutboxEvent e
+               SET e.status = vn.cineshow.enums.OutboxStatus.FAILED,
+                   e.claimToken = NULL,
+                   e.lastError = 'Relay timed out',
+                   e.nextAttemptAt = :now,
+                   e.updatedAt = :now
+             WHERE e.status = vn.cineshow.enums.OutboxStatus.PROCESSING
+               AND e.updatedAt < :staleBefore
+            """)
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = vn.cineshow.enums.OutboxStatus.SENT AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
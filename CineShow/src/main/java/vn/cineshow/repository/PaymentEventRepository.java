@@ -0,0 +1,69 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import vn.cineshow.enums.PaymentEventStatus;
+import vn.cineshow.model.PaymentEvent;
+
+@Repository
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+    Optional<PaymentEvent> findByTxnRefAndTransactionNo(String txnRef, String transactionNo);
+
+    Optional<PaymentEvent> findFirstByTxnRefOrderByIdDesc(String txnRef);
+
+    @Query("""
+            SELECT e.id FROM PaymentEvent e
+            WHERE e.status IN :statuses
+              AND e.nextAttemptAt <= :now
+            ORDER BY e.id
+            """)
+    List<Long> findDueIds(@Param("statuses") Collection<PaymentEventStatus> statuses,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Take an event for processing if it is still claimable; only one worker on any node gets 1.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PaymentEvent e
+               SET e.status = vn.cineshow.enums.PaymentEventStatus.PROCESSING,
+                   e.attempts = e.attempts + 1,
+                   e.updatedAt = :now
+             WHERE e.id = :id
+               AND e.status IN :statuses
+               AND e.nextAttemptAt <= :now
+            """)
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<PaymentEventStatus> statuses,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Hand events whose worker died mid-way back to the retry queue.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE PaymentEvent e
+               SET e.status = vn.cineshow.enums.PaymentEventStatus.FAILED,
+                   e.lastError = 'Processing timed out',
+                   e.nextAttemptAt = :now,
+                   e.updatedAt = :now
+             WHERE e.status = vn.cineshow.enums.PaymentEventStatus.PROCESSING
+               AND e.updatedAt < :staleBefore
+            """)
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+}
@@ -1,13 +1,44 @@
 package vn.cineshow.repository;
 
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import vn.cineshow.model.Payment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Object> findByTxnRef(String txnRef);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.txnRef = :txnRef")
+    Optional<Payment> findByTxnRefForUpdate(@Param("txnRef") String txnRef);
+
+    /**
+     * Fail the still PENDING payments of the given orders; completed ones are left as they are, and so are
+     * payments with a callback waiting to be applied or a successful one parked as DEAD.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Payment p
+               SET p.paymentStatus = vn.cineshow.enums.PaymentStatus.FAILED, p.updatedAt = :now
+             WHERE p.order.id IN :orderIds
+               AND p.paymentStatus = vn.cineshow.enums.PaymentStatus.PENDING
+               AND NOT EXISTS (
+                   SELECT 1 FROM PaymentEvent e
+                   WHERE e.txnRef = p.txnRef
+                     AND (e.status IN (vn.cineshow.enums.PaymentEventStatus.RECEIVED,
+                                       vn.cineshow.enums.PaymentEventStatus.PROCESSING,
+                                       vn.cineshow.enums.PaymentEventStatus.FAILED)
+                          OR (e.status = vn.cineshow.enums.PaymentEventStatus.DEAD AND e.paid = true)))
+            """)
+    int failPendingByOrderIds(@Param("orderIds") Collection<Long> orderIds, @Param("now") LocalDateTime now);
 }
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import vn.cineshow.enums.RoomStatus;
 import vn.cineshow.model.Room;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -37,6 +38,23 @@ public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificat
 
     boolean existsByNameIgnoreCase(String name);
 
+    /**
+     * Room counts per status: [status, count]
+     */
+    @Query("SELECT r.status, COUNT(r) FROM Room r GROUP BY r.status")
+    List<Object[]> countGroupByStatus();
+
+    @Query("""
+        SELECT COUNT(r) FROM Room r
+        WHERE r.status = :status
+          AND NOT EXISTS (SELECT 1 FROM ShowTime st
+                          WHERE st.room = r AND st.isDeleted = false
+                            AND st.startTime >= :start AND st.startTime < :end)
+        """)
+    long countWithoutShowtimeBetween(@Param("status") RoomStatus status,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
     Object findByRoomType_Id(Long roomTypeId, Sort sort);
 
     List<Room> findAllByRoomType_Id(Long roomTypeId);
@@ -0,0 +1,27 @@
+package vn.cineshow.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import vn.cineshow.model.SalesRollupOrder;
+
+@Repository
+public interface SalesRollupOrderRepository extends JpaRepository<SalesRollupOrder, Long> {
+
+    // khoá dòng: hai lần cập nhật cùng một đơn (sự kiện lặp, nhiều node) chạy nối tiếp nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<SalesRollupOrder> findByOrderIdIn(Collection<Long> orderIds);
+
+    @Modifying
+    @Query("DELETE FROM SalesRollupOrder s WHERE s.saleDate = :day")
+    int deleteBySaleDate(@Param("day") LocalDate day);
+}
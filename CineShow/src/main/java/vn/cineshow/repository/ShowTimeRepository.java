@@ -2,6 +2,7 @@ package vn.cineshow.repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -79,6 +80,59 @@ public interface ShowTimeRepository extends JpaRepository<ShowTime, Long> {
                                 @Param("start") LocalDateTime start,
                                 @Param("end") LocalDateTime end);
 
+    /**
+     * Active showtimes of the given rooms overlapping [from, to): [id, roomId, startTime, endTime]
+     */
+    @Query("""
+                SELECT st.id, st.room.id, st.startTime, st.endTime
+                FROM ShowTime st
+                WHERE st.room.id IN :roomIds
+                  AND st.isDeleted = false
+                  AND st.startTime < :to
+                  AND st.endTime   > :from
+            """)
+    List<Object[]> findIntervalsInRooms(@Param("roomIds") Collection<Long> roomIds,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    @Query("""
+                SELECT st.id
+                FROM ShowTime st
+                WHERE st.id IN :ids
+                  AND (st.isDeleted = true OR st.endTime < :now)
+            """)
+    List<Long> findIdsEndedOrDeleted(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Active showtimes starting after the given time: [id, roomTypeId, startTime]
+     */
+    @Query("""
+                SELECT st.id, st.room.roomType.id, st.startTime
+                FROM ShowTime st
+                WHERE st.isDeleted = false
+                  AND st.startTime > :now
+            """)
+    List<Object[]> findUpcomingPricingKeys(@Param("now") LocalDateTime now);
+
+    /**
+     * Showtimes of one partition ({@code id % partitions}) that ended before {@code before}, after the
+     * (endTime, id) cursor, in cursor order: [id, endTime]. Plain range on end_time, so the index is used.
+     */
+    @Query("""
+                SELECT st.id, st.endTime
+                FROM ShowTime st
+                WHERE st.endTime < :before
+                  AND (st.endTime > :afterEnd OR (st.endTime = :afterEnd AND st.id > :afterId))
+                  AND MOD(st.id, :partitions) = :partition
+                ORDER BY st.endTime, st.id
+            """)
+    List<Object[]> findEndedAfterCursor(@Param("before") LocalDateTime before,
+                                        @Param("afterEnd") LocalDateTime afterEnd,
+                                        @Param("afterId") Long afterId,
+                                        @Param("partitions") long partitions,
+                                        @Param("partition") long partition,
+                                        Pageable pageable);
+
     // (Dành cho update): bỏ qua chính nó
     @Query("""
                 SELECT CASE WHEN COUNT(st) > 0 THEN TRUE ELSE FALSE END
@@ -140,6 +194,59 @@ public interface ShowTimeRepository extends JpaRepository<ShowTime, Long> {
             @Param("movieId") Long movieId);
 
 
+    long countByIsDeletedFalse();
+
+    /**
+     * Showtimes (not deleted) starting from {@code todayStart}, counted in one range scan:
+     * [today, until weekEnd, after now]
+     */
+    @Query("""
+            SELECT SUM(CASE WHEN st.startTime < :todayEnd THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN st.startTime <= :weekEnd THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN st.startTime > :now THEN 1 ELSE 0 END)
+            FROM ShowTime st
+            WHERE st.isDeleted = false
+              AND st.startTime >= :todayStart
+            """)
+    List<Object[]> countFrom(@Param("todayStart") LocalDateTime todayStart,
+                             @Param("todayEnd") LocalDateTime todayEnd,
+                             @Param("weekEnd") LocalDateTime weekEnd,
+                             @Param("now") LocalDateTime now);
+
+    @Query("""
+            SELECT st FROM ShowTime st
+            JOIN FETCH st.movie
+            JOIN FETCH st.room
+            WHERE st.isDeleted = false
+              AND st.startTime >= :start AND st.startTime < :end
+            ORDER BY st.startTime
+            """)
+    List<ShowTime> findStartingBetweenWithMovieAndRoom(@Param("start") LocalDateTime start,
+                                                       @Param("end") LocalDateTime end,
+                                                       Pageable pageable);
+
+    /**
+     * Showtimes (not deleted) per movie starting in [from, to]: [movieId, count]
+     */
+    @Query("""
+            SELECT st.movie.id, COUNT(st) FROM ShowTime st
+            WHERE st.isDeleted = false
+              AND st.startTime >= :from AND st.startTime <= :to
+            GROUP BY st.movie.id
+            """)
+    List<Object[]> countByMovieStartingBetween(@Param("from") LocalDateTime from,
+                                               @Param("to") LocalDateTime to);
+
+    /**
+     * Price keys of a seat in a showtime, in one query: [seatTypeId, roomTypeId, startTime]
+     */
+    @Query("""
+            SELECT s.seatType.id, st.room.roomType.id, st.startTime
+            FROM Seat s, ShowTime st
+            WHERE s.id = :seatId AND st.id = :showTimeId
+            """)
+    List<Object[]> findPriceKeys(@Param("seatId") Long seatId, @Param("showTimeId") Long showTimeId);
+
     @Query("SELECT st FROM ShowTime st WHERE st.movie.id = :movieId AND st.startTime = :startTime AND st.isDeleted = false")
     List<ShowTime> findByMovie_IdAndStartTime(@Param("movieId") Long movieId, @Param("startTime") LocalDateTime startTime);
 
@@ -1,19 +1,25 @@
 package vn.cineshow.repository;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import vn.cineshow.enums.OrderStatus;
 import vn.cineshow.enums.TicketStatus;
+import vn.cineshow.model.Order;
 import vn.cineshow.model.Ticket;
+import vn.cineshow.model.TicketPrice;
 
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, Long> {
+public interface TicketRepository extends JpaRepository<Ticket, Long>, TicketRepositoryCustom {
 
     @Query("SELECT t FROM Ticket t " +
            "LEFT JOIN FETCH t.seat s " +
@@ -21,6 +27,101 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
            "WHERE t.id = :id")
     Optional<Ticket> findByIdWithSeat(@Param("id") Long id);
 
+    /**
+     * Seat geometry of every ticket of a showtime: [ticketId, seatRow, seatColumn, seatTypeName]
+     */
+    @Query("SELECT t.id, s.row, s.column, st.name FROM Ticket t " +
+           "JOIN t.seat s " +
+           "JOIN s.seatType st " +
+           "WHERE t.showTime.id = :showTimeId")
+    List<Object[]> findSeatLayoutByShowTimeId(@Param("showTimeId") Long showTimeId);
+
+    @Query("SELECT t.id FROM Ticket t WHERE t.showTime.id = :showTimeId AND t.status IN :statuses")
+    List<Long> findIdsByShowTimeIdAndStatusIn(@Param("showTimeId") Long showTimeId,
+                                              @Param("statuses") Collection<TicketStatus> statuses);
+
+    /**
+     * Ticket counts per showtime and status: [showTimeId, status, count]
+     */
+    @Query("SELECT t.showTime.id, t.status, COUNT(t) FROM Ticket t " +
+           "WHERE t.showTime.id IN :showTimeIds " +
+           "GROUP BY t.showTime.id, t.status")
+    List<Object[]> countByShowTimeIdsGroupByStatus(@Param("showTimeIds") Collection<Long> showTimeIds);
+
+    /**
+     * Relink AVAILABLE tickets of the given showtimes and seat type to another price row in one statement.
+     * Tickets already on that row and the excluded (held) tickets are left untouched.
+     *
+     * @return number of tickets relinked
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Ticket t
+           SET t.ticketPrice = :ticketPrice, t.updatedAt = :now
+         WHERE t.showTime.id IN :showTimeIds
+           AND t.status = :status
+           AND t.ticketPrice <> :ticketPrice
+           AND t.seat.id IN (SELECT s.id FROM Seat s WHERE s.seatType.id = :seatTypeId)
+           AND t.id NOT IN :excludedIds
+    """)
+    int relinkTicketPrice(@Param("showTimeIds") Collection<Long> showTimeIds,
+                          @Param("seatTypeId") Long seatTypeId,
+                          @Param("ticketPrice") TicketPrice ticketPrice,
+                          @Param("status") TicketStatus status,
+                          @Param("excludedIds") Collection<Long> excludedIds,
+                          @Param("now") LocalDateTime now);
+
+    // Compare-and-set state transitions. Ticket entities already loaded in the transaction are not
+    // refreshed, so do not modify and save them afterwards.
+
+    /**
+     * Book the given tickets for an order: status BOOKED, order link and price snapshot from the linked price row.
+     * Only tickets still in one of {@code fromStatuses} and not linked to another live order are changed,
+     * so a seat is never sold twice.
+     *
+     * @return number of tickets booked; less than {@code ticketIds.size()} means a conflict
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("""
+        UPDATE Ticket t
+           SET t.status = vn.cineshow.enums.TicketStatus.BOOKED,
+               t.order = :order,
+               t.priceSnapshot = (SELECT p.price FROM TicketPrice p WHERE p = t.ticketPrice),
+               t.updatedAt = :now
+         WHERE t.id IN :ticketIds
+           AND t.status IN :fromStatuses
+           AND (t.order IS NULL
+                OR t.order = :order
+                OR EXISTS (SELECT 1 FROM Order o
+                            WHERE o = t.order AND o.orderStatus = vn.cineshow.enums.OrderStatus.CANCELED))
+    """)
+    int bookForOrder(@Param("ticketIds") Collection<Long> ticketIds,
+                     @Param("order") Order order,
+                     @Param("fromStatuses") Collection<TicketStatus> fromStatuses,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * Unlink canceled orders from their tickets that are still in one of {@code fromStatuses}
+     * (booked tickets keep their order).
+     *
+     * @return number of tickets unlinked
+     */
+    @Modifying(flushAutomatically = true)
+    @Transactional
+    @Query("""
+        UPDATE Ticket t
+           SET t.order = NULL, t.updatedAt = :now
+         WHERE t.order.id IN (SELECT o.id FROM Order o
+                               WHERE o.id IN :orderIds
+                                 AND o.orderStatus = vn.cineshow.enums.OrderStatus.CANCELED)
+           AND t.status IN :fromStatuses
+    """)
+    int detachFromCanceledOrders(@Param("orderIds") Collection<Long> orderIds,
+                                 @Param("fromStatuses") Collection<TicketStatus> fromStatuses,
+                                 @Param("now") LocalDateTime now);
+
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.showTime.id = :showTimeId AND t.status = :status")
     Long countByShowTime_IdAndStatus(@Param("showTimeId") Long showTimeId, @Param("status") TicketStatus status);
 
@@ -38,18 +139,52 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findTicketsWithRelations(@Param("ids") List<Long> ids);
 
     /**
-     * Tìm tất cả ticket có status AVAILABLE hoặc BLOCKED
-     * của các showtime đã qua ngày suất chiếu (endTime < threshold date)
+     * Delete the tickets of the given showtimes that are in one of the statuses, in one statement.
+     *
+     * @return number of tickets deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Ticket t WHERE t.showTime.id IN :showTimeIds AND t.status IN :statuses")
+    int deleteByShowTimeIdsAndStatusIn(@Param("showTimeIds") Collection<Long> showTimeIds,
+                                       @Param("statuses") Collection<TicketStatus> statuses);
+
+    /**
+     * Ticket totals of the given orders: [orderId, movieId, roomTypeId, count, sum of price snapshots]
      */
     @Query("""
-        SELECT t FROM Ticket t
-        JOIN FETCH t.showTime st
-        WHERE t.status IN :statuses
-        AND CAST(st.endTime AS date) < :thresholdDate
-    """)
-    List<Ticket> findAvailableOrBlockedTicketsAfterShowtimeDate(
-            @Param("statuses") List<TicketStatus> statuses,
-            @Param("thresholdDate") LocalDate thresholdDate
-    );
+        SELECT t.order.id, st.movie.id, r.roomType.id, COUNT(t), COALESCE(SUM(t.priceSnapshot), 0)
+        FROM Ticket t
+        JOIN t.showTime st
+        JOIN st.room r
+        WHERE t.order.id IN :orderIds
+        GROUP BY t.order.id, st.movie.id, r.roomType.id
+        """)
+    List<Object[]> sumByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Tickets of orders in a status created in (from, to), per movie: [movieId, count]
+     */
+    @Query("""
+        SELECT st.movie.id, COUNT(t) FROM Ticket t
+        JOIN t.order o
+        JOIN t.showTime st
+        WHERE o.orderStatus = :status
+          AND o.createdAt > :from AND o.createdAt < :to
+        GROUP BY st.movie.id
+        """)
+    List<Object[]> countByMovieForOrdersCreatedBetween(@Param("status") OrderStatus status,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    /**
+     * Delete every ticket of the given showtimes; used once they are copied to the archive,
+     * in the same transaction.
+     *
+     * @return number of tickets deleted
+     */
+    @Modifying
+    @Query("DELETE FROM Ticket t WHERE t.showTime.id IN :showTimeIds")
+    int deleteByShowTimeIds(@Param("showTimeIds") Collection<Long> showTimeIds);
 
 }
@@ -0,0 +1,16 @@
+package vn.cineshow.repository;
+
+import java.util.List;
+
+import vn.cineshow.model.Ticket;
+
+public interface TicketRepositoryCustom {
+
+    /**
+     * Insert new tickets with plain JDBC batches, bypassing the persistence context.
+     * Generated ids are not written back to the given entities.
+     *
+     * @return number of inserted rows
+     */
+    int insertAll(List<Ticket> tickets);
+}
@@ -0,0 +1,70 @@
+package vn.cineshow.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.model.Ticket;
+
+/**
+ * Batch insert for ticket generation. With IDENTITY ids Hibernate cannot batch inserts,
+ * so a showtime's tickets are written here in chunks of {@link #BATCH_SIZE} rows per round trip
+ * (collapsed into multi-row INSERTs on MySQL with rewriteBatchedStatements=true).
+ * <p>
+ * With the batch-ids profile ids come from the table generator instead; rows inserted here would
+ * take AUTO_INCREMENT ids the generator does not know about, so tickets are persisted through
+ * Hibernate, which then batches them itself (hibernate.jdbc.batch_size).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TicketRepositoryCustomImpl implements TicketRepositoryCustom {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO tickets (seat_id, ticket_price_id, showtime_id, status, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cineshow.jpa.batch-ids:false}")
+    private boolean batchIds;
+
+    @Override
+    public int insertAll(List<Ticket> tickets) {
+        if (tickets == null || tickets.isEmpty()) return 0;
+
+        if (batchIds) {
+            for (int i = 0; i < tickets.size(); i++) {
+                entityManager.persist(tickets.get(i));
+                if ((i + 1) % BATCH_SIZE == 0) entityManager.flush();
+            }
+            entityManager.flush();
+            return tickets.size();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_SQL, tickets, BATCH_SIZE, (ps, ticket) -> {
+            ps.setLong(1, ticket.getSeat().getId());
+            ps.setLong(2, ticket.getTicketPrice().getId());
+            ps.setLong(3, ticket.getShowTime().getId());
+            ps.setString(4, ticket.getStatus().name());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+
+        log.debug("Inserted {} tickets in {} batches", tickets.size(), results.length);
+        return tickets.size();
+    }
+}
@@ -3,57 +3,88 @@ package vn.cineshow.scheduler;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import vn.cineshow.enums.OrderStatus;
-import vn.cineshow.enums.PaymentStatus;
-import vn.cineshow.model.Order;
-import vn.cineshow.model.Payment;
-import vn.cineshow.model.Ticket;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.cineshow.config.VNPayProperties;
+import vn.cineshow.enums.TicketStatus;
 import vn.cineshow.repository.OrderRepository;
 import vn.cineshow.repository.PaymentRepository;
 import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.SchedulerLockService;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+
+/**
+ * Expires abandoned checkouts: PENDING orders older than the VNPay payment timeout plus a grace period
+ * are canceled, their payment failed and their unsold tickets unlinked, in batches of
+ * {@code booking.order-expiry.batch-size}, each batch in its own transaction with three UPDATEs.
+ * Orders whose IPN is recorded but not applied yet are skipped, and an order paid meanwhile is never canceled.
+ * Only one node runs it at a time (Redis lease), the others skip that round.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 class Order_PaymentCleanupScheduler {
 
+    private static final Set<TicketStatus> UNSOLD = EnumSet.of(TicketStatus.AVAILABLE, TicketStatus.HELD);
+
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
     private final TicketRepository ticketRepository;
+    private final VNPayProperties vnpayProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLockService schedulerLockService;
 
-    // Test
-//    @Scheduled(fixedDelay = 120000)
-
-    //  Chạy mỗi ngày lúc 1h sáng
-    @Scheduled(cron = "0 0 1 * * *", zone = "Asia/Ho_Chi_Minh")
-    public void cleanOldPendingOrders() {
-        LocalDateTime threshold = LocalDateTime.now().minusHours(24);
-        List<Order> oldOrders = orderRepository.findPendingBefore(threshold);
+    @Value("${booking.order-expiry.grace-minutes:5}")
+    long graceMinutes;
 
-        if (oldOrders.isEmpty()) {
-            log.info("[CronJob] Không có Order Pending nào quá 24h.");
-            return;
-        }
+    @Value("${booking.order-expiry.batch-size:500}")
+    int batchSize;
 
-        for (Order order : oldOrders) {
-            Payment payment = order.getPayment();
+    //  Chạy mỗi phút
+    @Scheduled(fixedDelayString = "${booking.order-expiry.interval-ms:60000}", initialDelay = 30000)
+    public void expirePendingOrders() {
+        schedulerLockService.runExclusively("orderExpiry", this::expireAll);
+    }
 
-            order.setOrderStatus(OrderStatus.CANCELED);
-            order.setUpdatedAt(LocalDateTime.now());
+    private void expireAll() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(vnpayProperties.getTimeout() + graceMinutes);
 
-            if (payment != null) {
-                payment.setPaymentStatus(PaymentStatus.FAILED);
-                paymentRepository.save(payment);
-            }
+        int canceled = 0;
+        int batches = 0;
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            // keyset theo id: đơn nào không huỷ được (vừa thanh toán) cũng không chặn các lô sau
+            ids = orderRepository.findExpiredPendingIds(threshold, afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) break;
+            canceled += expireBatch(ids);
+            batches++;
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
 
-            orderRepository.save(order);
-            log.info("[CronJob]  Dọn Order Pending {} do Pending quá 24h.", order.getCode());
+        if (canceled > 0) {
+            log.info("[CronJob] Đã huỷ {} Order Pending quá {} phút ({} lô).",
+                    canceled, vnpayProperties.getTimeout() + graceMinutes, batches);
         }
+    }
 
-        log.info("[CronJob]  Đã dọn {} Order Pending quá hạn.", oldOrders.size());
+    private int expireBatch(List<Long> orderIds) {
+        Integer canceled = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            // payment trước: khoá dòng payment, IPN đến cùng lúc sẽ thấy FAILED và bỏ qua
+            paymentRepository.failPendingByOrderIds(orderIds, now);
+            int orders = orderRepository.cancelPending(orderIds, now);
+            int tickets = ticketRepository.detachFromCanceledOrders(orderIds, UNSOLD, now);
+            log.debug("[CronJob] Lô {} order: huỷ {}, trả {} vé", orderIds.size(), orders, tickets);
+            return orders;
+        });
+        return canceled != null ? canceled : 0;
     }
 }
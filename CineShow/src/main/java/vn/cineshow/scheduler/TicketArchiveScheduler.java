@@ -0,0 +1,147 @@
+package vn.cineshow.scheduler;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.repository.ArchivedTicketRepository;
+import vn.cineshow.repository.ShowTimeRepository;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SchedulerLockService;
+
+/**
+ * Moves the tickets of showtimes that ended more than {@code booking.archive.after-days} days ago from
+ * {@code tickets} to {@code tickets_archive}, so the hot table only holds recent and upcoming inventory.
+ * <p>
+ * Walks showtimes like TicketCleanupScheduler (per-partition (endTime, id) cursor in Redis, partitions shared
+ * between nodes); each chunk of {@code booking.archive.showtime-batch} showtimes is one INSERT ... SELECT
+ * and one DELETE in the same transaction, rolled back if the two counts differ. Orders, payments and
+ * concessions stay where they are: they are one row per purchase and every report reads them, while order
+ * history picks archived tickets up through {@code Order.archivedTickets}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketArchiveScheduler {
+
+    private static final String JOB = "ticketArchive";
+    private static final String CURSOR_KEY = "ticketArchive:cursor:";
+    private static final long CURSOR_TTL = 365L * 24 * 3600;
+    private static final LocalDateTime NO_CURSOR = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final TicketRepository ticketRepository;
+    private final ArchivedTicketRepository archivedTicketRepository;
+    private final ShowTimeRepository showTimeRepository;
+    private final RedisService redisService;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.archive.enabled:true}")
+    boolean enabled;
+
+    @Value("${booking.archive.after-days:90}")
+    int afterDays;
+
+    @Value("${booking.archive.showtime-batch:20}")
+    int showtimeBatch;
+
+    @Value("${booking.archive.partitions:4}")
+    int partitions;
+
+    @Scheduled(cron = "${booking.archive.cron:0 30 2 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void archiveOldTickets() {
+        if (!enabled) return;
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime before = today.minusDays(afterDays).atStartOfDay();
+        log.info("[TICKET ARCHIVE] Start archiving tickets of showtimes ended before {}", before);
+
+        long started = System.currentTimeMillis();
+        AtomicLong moved = new AtomicLong();
+        int parts = schedulerLockService.runPartitioned(JOB, today.toString(), partitions,
+                partition -> moved.addAndGet(archivePartition(partition, before)));
+
+        long elapsed = Math.max(System.currentTimeMillis() - started, 1);
+        log.info("[TICKET ARCHIVE] Archived {} tickets in {} of {} partitions in {} ms ({} rows/s)",
+                moved.get(), parts, partitions, elapsed, moved.get() * 1000 / elapsed);
+    }
+
+    private long archivePartition(int partition, LocalDateTime before) {
+        String cursorKey = CURSOR_KEY + partitions + ":" + partition;
+        Cursor cursor = loadCursor(cursorKey);
+
+        long moved = 0;
+        int showtimes = 0;
+        List<Object[]> rows;
+        do {
+            rows = showTimeRepository.findEndedAfterCursor(before, cursor.endTime(), cursor.id(),
+                    partitions, partition, PageRequest.of(0, showtimeBatch));
+            if (rows.isEmpty()) break;
+
+            List<Long> showTimeIds = new ArrayList<>(rows.size());
+            rows.forEach(r -> showTimeIds.add((Long) r[0]));
+
+            moved += archiveChunk(showTimeIds);
+            showtimes += showTimeIds.size();
+
+            Object[] last = rows.get(rows.size() - 1);
+            cursor = new Cursor((LocalDateTime) last[1], (Long) last[0]);
+            saveCursor(cursorKey, cursor);
+        } while (rows.size() == showtimeBatch);
+
+        log.info("[TICKET ARCHIVE] Partition {}/{}: archived {} tickets of {} showtimes, cursor {}",
+                partition, partitions, moved, showtimes, cursor);
+        return moved;
+    }
+
+    private int archiveChunk(List<Long> showTimeIds) {
+        Integer moved = transactionTemplate.execute(status -> {
+            int copied = archivedTicketRepository.copyFromTickets(showTimeIds, LocalDateTime.now());
+            int deleted = ticketRepository.deleteByShowTimeIds(showTimeIds);
+            if (copied != deleted) {
+                // a ticket changed between the two statements: keep everything in the hot table
+                throw new IllegalStateException("Archived " + copied + " tickets but deleted " + deleted
+                        + " for showtimes " + showTimeIds);
+            }
+            return copied;
+        });
+        return moved != null ? moved : 0;
+    }
+
+    private Cursor loadCursor(String cursorKey) {
+        try {
+            String value = redisService.get(cursorKey, String.class);
+            if (value != null) {
+                String[] parts = value.split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+            }
+        } catch (Exception e) {
+            log.warn("[TICKET ARCHIVE] Cannot read cursor, scanning from the start: {}", e.getMessage());
+        }
+        return new Cursor(NO_CURSOR, 0L);
+    }
+
+    private void saveCursor(String cursorKey, Cursor cursor) {
+        try {
+            redisService.save(cursorKey, cursor.endTime() + "|" + cursor.id(), CURSOR_TTL);
+        } catch (Exception e) {
+            // archived showtimes have no tickets left, rescanning them only costs the lookups
+            log.warn("[TICKET ARCHIVE] Cannot save cursor {}: {}", cursor, e.getMessage());
+        }
+    }
+
+    // last showtime archived, in (endTime, id) order
+    private record Cursor(LocalDateTime endTime, Long id) {
+    }
+}
@@ -1,43 +1,126 @@
 package vn.cineshow.scheduler;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import vn.cineshow.enums.TicketStatus;
-import vn.cineshow.model.Ticket;
+import vn.cineshow.repository.ShowTimeRepository;
 import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SchedulerLockService;
+import vn.cineshow.service.SeatOccupancyService;
 
+/**
+ * Deletes unsold (AVAILABLE / BLOCKED) tickets of showtimes that ended before today.
+ * <p>
+ * Showtimes are walked in (endTime, id) order, {@code booking.ticket-cleanup.showtime-batch} at a time,
+ * and each chunk is one DELETE in its own transaction. The cursor is saved in Redis after every chunk,
+ * so an interrupted run resumes where it stopped and the next day only looks at newly ended showtimes.
+ * <p>
+ * Showtimes are split into {@code booking.ticket-cleanup.partitions} parts by id, each with its own cursor;
+ * the nodes share the parts through {@link SchedulerLockService} and take over the parts of a node that dies.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TicketCleanupScheduler {
 
+    private static final List<TicketStatus> STATUSES_TO_CLEAN = List.of(TicketStatus.AVAILABLE, TicketStatus.BLOCKED);
+    private static final String JOB = "ticketCleanup";
+    private static final String CURSOR_KEY = "ticketCleanup:cursor:";
+    private static final long CURSOR_TTL = 90L * 24 * 3600;
+    private static final LocalDateTime NO_CURSOR = LocalDateTime.of(2000, 1, 1, 0, 0);
+
     private final TicketRepository ticketRepository;
+    private final ShowTimeRepository showTimeRepository;
+    private final SeatOccupancyService seatOccupancyService;
+    private final RedisService redisService;
+    private final SchedulerLockService schedulerLockService;
+
+    @Value("${booking.ticket-cleanup.showtime-batch:50}")
+    int showtimeBatch;
 
+    @Value("${booking.ticket-cleanup.partitions:4}")
+    int partitions;
 
     @Scheduled(cron = "0 0 1 * * *", zone = "Asia/Ho_Chi_Minh")
-    @Transactional
     public void cleanupExpiredTickets() {
-        log.info("[TICKET CLEANUP] Start clean ticket AVAILABLE/BLOCKED...");
-        
-        LocalDate thresholdDate = LocalDate.now();
-        
-        List<TicketStatus> statusesToClean = List.of(TicketStatus.AVAILABLE, TicketStatus.BLOCKED);
-        
-        List<Ticket> ticketsToDelete = ticketRepository.findAvailableOrBlockedTicketsAfterShowtimeDate(
-                statusesToClean,
-                thresholdDate
-        );
-        
-        ticketRepository.deleteAll(ticketsToDelete);
-        
-        log.info("[TICKET CLEANUP] Date threshold: {}", thresholdDate);
+        LocalDate today = LocalDate.now();
+        LocalDateTime before = today.atStartOfDay();
+        log.info("[TICKET CLEANUP] Start clean ticket AVAILABLE/BLOCKED of showtimes ended before {}", before);
+
+        long started = System.currentTimeMillis();
+        AtomicLong deleted = new AtomicLong();
+        int parts = schedulerLockService.runPartitioned(JOB, today.toString(), partitions,
+                partition -> deleted.addAndGet(cleanupPartition(partition, before)));
+
+        long elapsed = Math.max(System.currentTimeMillis() - started, 1);
+        log.info("[TICKET CLEANUP] Deleted {} tickets in {} of {} partitions in {} ms ({} rows/s)",
+                deleted.get(), parts, partitions, elapsed, deleted.get() * 1000 / elapsed);
     }
-}
 
+    private long cleanupPartition(int partition, LocalDateTime before) {
+        String cursorKey = CURSOR_KEY + partitions + ":" + partition;
+        Cursor cursor = loadCursor(cursorKey);
+
+        long deleted = 0;
+        int showtimes = 0;
+        List<Object[]> rows;
+        do {
+            rows = showTimeRepository.findEndedAfterCursor(before, cursor.endTime(), cursor.id(),
+                    partitions, partition, PageRequest.of(0, showtimeBatch));
+            if (rows.isEmpty()) break;
+
+            List<Long> showTimeIds = new ArrayList<>(rows.size());
+            rows.forEach(r -> showTimeIds.add((Long) r[0]));
+
+            deleted += ticketRepository.deleteByShowTimeIdsAndStatusIn(showTimeIds, STATUSES_TO_CLEAN);
+            seatOccupancyService.evict(showTimeIds);
+            showtimes += showTimeIds.size();
+
+            Object[] last = rows.get(rows.size() - 1);
+            cursor = new Cursor((LocalDateTime) last[1], (Long) last[0]);
+            saveCursor(cursorKey, cursor);
+        } while (rows.size() == showtimeBatch);
+
+        log.info("[TICKET CLEANUP] Partition {}/{}: deleted {} tickets of {} showtimes, cursor {}",
+                partition, partitions, deleted, showtimes, cursor);
+        return deleted;
+    }
+
+    private Cursor loadCursor(String cursorKey) {
+        try {
+            String value = redisService.get(cursorKey, String.class);
+            if (value != null) {
+                String[] parts = value.split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+            }
+        } catch (Exception e) {
+            log.warn("[TICKET CLEANUP] Cannot read cursor, scanning from the start: {}", e.getMessage());
+        }
+        return new Cursor(NO_CURSOR, 0L);
+    }
+
+    private void saveCursor(String cursorKey, Cursor cursor) {
+        try {
+            redisService.save(cursorKey, cursor.endTime() + "|" + cursor.id(), CURSOR_TTL);
+        } catch (Exception e) {
+            // deleting again is harmless, the next run just rescans
+            log.warn("[TICKET CLEANUP] Cannot save cursor {}: {}", cursor, e.getMessage());
+        }
+    }
+
+    // last showtime processed, in (endTime, id) order
+    private record Cursor(LocalDateTime endTime, Long id) {
+    }
+}
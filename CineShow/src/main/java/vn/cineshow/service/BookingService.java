@@ -2,6 +2,8 @@ package vn.cineshow.service;
 
 import vn.cineshow.dto.request.booking.SeatSelectRequest;
 import vn.cineshow.dto.response.booking.BookingSeatsResponse;
+import vn.cineshow.dto.response.booking.SeatMapSnapshot;
+import vn.cineshow.dto.response.booking.SeatReplayResponse;
 import vn.cineshow.dto.response.booking.ShowTimeResponse;
 import vn.cineshow.dto.response.booking.TicketDetailResponse;
 
@@ -18,6 +20,18 @@ public interface BookingService {
 
     List<BookingSeatsResponse> getSeatsByShowTimeId(Long showTimeId);
 
+    /**
+     * Seat map response of {@link #getSeatsByShowTimeId} serialized once per seat map version,
+     * with an ETag derived from its content.
+     */
+    SeatMapSnapshot getSeatMapSnapshot(Long showTimeId);
+
+    /**
+     * Resync a reconnecting client: seat frames broadcast after {@code afterSeq},
+     * or the full seat map when they are no longer buffered.
+     */
+    SeatReplayResponse getSeatEventsAfter(Long showTimeId, long afterSeq);
+
     void handleSeatAction(SeatSelectRequest req);
 
     List<TicketDetailResponse> getTicketDetailsByIds(List<Long> ids);
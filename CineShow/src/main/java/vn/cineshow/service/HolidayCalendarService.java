@@ -0,0 +1,23 @@
+package vn.cineshow.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read side of the holiday table, answered from memory.
+ */
+public interface HolidayCalendarService {
+
+    boolean isHoliday(LocalDate date);
+
+    /**
+     * Holidays (fixed and recurring) among {@code days} days starting at {@code from}, in date order.
+     */
+    List<LocalDate> findHolidays(LocalDate from, int days);
+
+    /**
+     * Rebuild the calendar once the current transaction commits (immediately if there is none)
+     * and tell the other nodes to do the same.
+     */
+    void rebuildAfterCommit();
+}
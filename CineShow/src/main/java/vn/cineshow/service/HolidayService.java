@@ -14,5 +14,8 @@ public interface HolidayService {
     Page<HolidayResponse> getHolidays(String filterType, int page, int limit, Integer year);
     public void deleteHolidayById(Long id);
 
-    boolean isHoliday(LocalDate date);
+    /**
+     * Holiday dates from today over the next {@code days} days (at most one year).
+     */
+    List<LocalDate> getUpcomingHolidays(int days);
 }
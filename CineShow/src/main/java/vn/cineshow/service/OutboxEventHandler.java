@@ -0,0 +1,18 @@
+package vn.cineshow.service;
+
+import java.util.List;
+
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+
+/**
+ * Consumer of one outbox event type. The relay passes every due event of the type in one call,
+ * so a handler can merge work (e.g. one broadcast per showtime). Delivery is at least once:
+ * a failed batch is retried event by event, so handlers must tolerate repeats.
+ */
+public interface OutboxEventHandler {
+
+    OutboxEventType type();
+
+    void handle(List<BookingOutboxPayload> payloads);
+}
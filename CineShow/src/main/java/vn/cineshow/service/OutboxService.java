@@ -0,0 +1,16 @@
+package vn.cineshow.service;
+
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+
+/**
+ * Transactional outbox: side effects are stored with the business change and delivered after commit.
+ */
+public interface OutboxService {
+
+    /**
+     * Write an event in the caller's transaction (one is required). It is handed to its
+     * {@link OutboxEventHandler} once the transaction commits and dropped if it rolls back.
+     */
+    void enqueue(OutboxEventType type, String aggregateId, BookingOutboxPayload payload);
+}
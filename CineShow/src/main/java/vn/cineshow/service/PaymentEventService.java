@@ -0,0 +1,21 @@
+package vn.cineshow.service;
+
+import java.util.Map;
+
+/**
+ * Durable queue of payment gateway callbacks, applied in the background.
+ */
+public interface PaymentEventService {
+
+    /**
+     * Store the callback and schedule it for processing.
+     *
+     * @return false if the same (txnRef, transactionNo) was already recorded
+     */
+    boolean record(String txnRef, String transactionNo, Map<String, String> params);
+
+    /**
+     * Whether the latest callback of the order is recorded but not applied yet (still retrying included).
+     */
+    boolean isPending(String txnRef);
+}
@@ -0,0 +1,21 @@
+package vn.cineshow.service;
+
+import java.util.Map;
+
+public interface PaymentIpnService {
+
+    /**
+     * Apply a verified VNPay IPN to its order: payment and order status, tickets, concession
+     * stock and loyalty points. Seat broadcast, Redis cleanup and the confirmation email are
+     * written to the outbox in the same transaction.
+     * A payment that is no longer PENDING is left as it is, so replaying an IPN is harmless.
+     */
+    void applyIpn(Map<String, String> params);
+
+    /**
+     * Record, in a transaction of its own, that a successful IPN could not be applied: the payment
+     * becomes REFUND_REQUIRED and the order CANCELED, so the money taken stays visible after the
+     * failed attempt rolled back. Does nothing if the payment is no longer PENDING.
+     */
+    void markRefundRequired(Map<String, String> params, String reason);
+}
@@ -1,6 +1,11 @@
 package vn.cineshow.service;
 
 
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface RedisService {
@@ -19,4 +24,28 @@ public interface RedisService {
     long getTTL(String key);
 
     void expire(String key, java.time.Duration duration);
+
+    Map<String, String> hashGetAll(String key);
+
+    void hashPutAll(String key, Map<String, String> entries, long ttlSeconds);
+
+    void hashDelete(String key, Collection<String> fields);
+
+    Set<String> setMembers(String key);
+
+    long setAdd(String key, Collection<String> members, long ttlSeconds);
+
+    void setRemove(String key, Collection<String> members);
+
+    List<Map<String, String>> hashGetAll(List<String> keys);
+
+    <T> T executeScript(RedisScript<T> script, List<String> keys, List<String> args);
+
+    long increment(String key, long ttlSeconds);
+
+    long getCounter(String key);
+
+    boolean setIfAbsent(String key, String value, long ttlMillis);
+
+    void publish(String channel, String message);
 }
@@ -0,0 +1,24 @@
+package vn.cineshow.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Daily sales rollups (day x movie x room type, day x concession) read by the business dashboards.
+ */
+public interface SalesRollupService {
+
+    /**
+     * Bring the rollups in line with the current status of the given orders: a COMPLETED order not
+     * counted yet is added, a counted order that is no longer COMPLETED is taken out. Safe to repeat.
+     */
+    void refresh(Collection<String> orderCodes);
+
+    /**
+     * Recompute the rollups of every day in [from, to] from orders, tickets and concessions,
+     * one transaction per day.
+     *
+     * @return number of completed orders counted
+     */
+    int rebuild(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,25 @@
+package vn.cineshow.service;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Cluster-wide coordination of scheduled jobs through Redis leases.
+ */
+public interface SchedulerLockService {
+
+    /**
+     * Run the task only if no other node is running the same job; the lease is renewed while it runs.
+     *
+     * @return false if the job is running elsewhere (or Redis is unavailable) and was skipped
+     */
+    boolean runExclusively(String job, Runnable task);
+
+    /**
+     * Split a job into {@code partitions} parts shared by the nodes: each node runs the parts it can lease,
+     * and a part whose node dies is taken over once its lease expires. A part completed for {@code runKey}
+     * (e.g. the date of a daily run) is not run again for that key.
+     *
+     * @return number of parts run by this node
+     */
+    int runPartitioned(String job, String runKey, int partitions, IntConsumer task);
+}
@@ -0,0 +1,14 @@
+package vn.cineshow.service;
+
+import java.util.List;
+
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+
+public interface SeatBroadcastService {
+
+    /**
+     * Queue seat status changes of a showtime; they are sent to /topic/seat/{showtimeId}
+     * as one delta frame at the end of the current broadcast window.
+     */
+    void publish(Long showtimeId, List<SeatTicketDTO> changes);
+}
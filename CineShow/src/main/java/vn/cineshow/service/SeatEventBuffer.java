@@ -0,0 +1,25 @@
+package vn.cineshow.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import vn.cineshow.dto.response.booking.SeatReplayFrame;
+
+/**
+ * Bounded per-showtime history of the seat frames delivered by this node.
+ */
+public interface SeatEventBuffer {
+
+    void record(Long showtimeId, long seq, String seatsJson);
+
+    /**
+     * Frames with seq greater than {@code afterSeq}, oldest first, or empty when the buffer
+     * no longer holds all of them and the client has to take a full snapshot.
+     */
+    Optional<List<SeatReplayFrame>> framesAfter(Long showtimeId, long afterSeq);
+
+    /**
+     * Seq of the newest buffered frame, 0 when nothing was buffered for the showtime.
+     */
+    long latestSeq(Long showtimeId);
+}
@@ -0,0 +1,19 @@
+package vn.cineshow.service;
+
+import java.util.List;
+
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+
+/**
+ * Delivers coalesced seat frames to /topic/seat/{showtimeId} subscribers.
+ * Selected by {@code booking.websocket.fanout}: {@code local} (this JVM only) or {@code redis}
+ * (Redis pub/sub, reaches subscribers connected to every node). The frame contract is described
+ * on SeatFrameSender.
+ */
+public interface SeatFrameRelay {
+
+    /**
+     * Assign the next sequence number of the showtime and deliver the frame.
+     */
+    void relay(Long showtimeId, List<SeatTicketDTO> seats);
+}
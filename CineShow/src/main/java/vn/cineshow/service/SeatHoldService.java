@@ -1,6 +1,11 @@
 package vn.cineshow.service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import vn.cineshow.dto.request.booking.SeatSelectRequest;
+import vn.cineshow.dto.response.booking.SeatClaimResult;
 import vn.cineshow.dto.response.booking.SeatHold;
 
 public interface SeatHoldService {
@@ -11,4 +16,45 @@ public interface SeatHoldService {
     long getExpire(Long showtimeId, Long userId);
     
     SeatHold getCurrentHold(Long showtimeId, Long userId);
+
+    /**
+     * Claim every requested ticket for the user in one atomic server-side call, or none of them
+     * if any is held by another user or already booked/blocked.
+     */
+    SeatClaimResult claimSeats(Long showtimeId, Long userId, List<Long> ticketIds);
+
+    /**
+     * Live holds of a showtime, read from the per-showtime index in one round trip.
+     *
+     * @return ticketId -> userId of every seat currently held
+     */
+    Map<Long, Long> getHeldTicketOwners(Long showtimeId);
+
+    void extendHold(Long showtimeId, Long userId, long ttlSeconds);
+
+    void clearHold(Long showtimeId, Long userId);
+
+    /**
+     * Record tickets that became BOOKED so later claims reject them without a DB read.
+     *
+     * @return how many of the tickets were not recorded as booked before
+     */
+    long markBooked(Long showtimeId, List<Long> ticketIds);
+
+    /**
+     * Number of unexpired holds per showtime, one script call for all showtimes.
+     * Expired index entries met on the way are pruned in the same call.
+     */
+    Map<Long, Long> countHeld(List<Long> showtimeIds);
+
+    /**
+     * Tickets currently held in any of the showtimes, one pipelined round trip. Expired entries are skipped.
+     */
+    Set<Long> findHeldTicketIds(List<Long> showtimeIds);
+
+    /**
+     * Counter bumped on every hold, release and booking of the showtime, so readers can tell
+     * whether a seat map built earlier is still current.
+     */
+    long getSeatMapVersion(Long showtimeId);
 }
@@ -0,0 +1,17 @@
+package vn.cineshow.service;
+
+import java.util.Map;
+
+import vn.cineshow.dto.response.booking.SeatLayoutDTO;
+
+public interface SeatLayoutService {
+
+    /**
+     * Seat geometry of every ticket of a showtime, loaded once with a single query.
+     *
+     * @return immutable ticketId -> layout map
+     */
+    Map<Long, SeatLayoutDTO> getLayout(Long showtimeId);
+
+    void evict(Long showtimeId);
+}
@@ -0,0 +1,29 @@
+package vn.cineshow.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import vn.cineshow.dto.response.booking.SeatOccupancyDTO;
+
+/**
+ * Per-showtime seat counters kept in Redis, so listings and dashboards read occupancy
+ * without counting tickets.
+ */
+public interface SeatOccupancyService {
+
+    /**
+     * Counters of every showtime, seeding missing ones from the DB with a single query.
+     */
+    Map<Long, SeatOccupancyDTO> getOccupancies(List<Long> showtimeIds);
+
+    /**
+     * Tickets of the showtime went from AVAILABLE to BOOKED.
+     */
+    void onBooked(Long showtimeId, long count);
+
+    /**
+     * Drop counters after tickets were created, deleted or rewritten outside the booking flow.
+     */
+    void evict(Collection<Long> showtimeIds);
+}
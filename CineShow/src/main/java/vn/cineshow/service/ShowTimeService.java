@@ -3,9 +3,11 @@ package vn.cineshow.service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import vn.cineshow.dto.request.showtime.BulkCreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.CreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.UpdateShowTimeRequest;
 import vn.cineshow.dto.response.IdNameDTO;
+import vn.cineshow.dto.response.showtime.BulkCreateShowTimeResponse;
 import vn.cineshow.dto.response.showtime.ShowTimeListDTO;
 import vn.cineshow.dto.response.showtime.ShowTimeResponse;
 import vn.cineshow.model.ShowTime;
@@ -30,6 +32,7 @@ public interface ShowTimeService {
             LocalDateTime endTime
     );
     ShowTimeResponse createShowTime(CreateShowTimeRequest req);
+    BulkCreateShowTimeResponse createShowTimes(BulkCreateShowTimeRequest req);
     ShowTimeListDTO getShowTimeById(Long id);
     ShowTimeResponse updateShowTime(Long id, UpdateShowTimeRequest req);
     void softDelete(Long id);
@@ -3,9 +3,12 @@ package vn.cineshow.service;
 
 import vn.cineshow.dto.request.ticketPrice.TicketPriceRequest;
 import vn.cineshow.dto.response.ticketPrice.TicketPriceResponse;
+import vn.cineshow.enums.DayType;
 import vn.cineshow.model.TicketPrice;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 public interface TicketPriceService {
 
@@ -13,4 +16,23 @@ public interface TicketPriceService {
     List<TicketPriceResponse> getAllPrices();
      Double calculatePrice(Long seatId, Long showTimeId);
      TicketPrice findTicketPrice(Long seatId, Long showTimeId);
+
+    /**
+     * Price of a seat type in a room type on the given show date, read from memory only
+     * (no database access).
+     */
+    TicketPrice findTicketPrice(Long roomTypeId, Long seatTypeId, LocalDate showDate);
+
+    /**
+     * Prices of every seat type of a room type on the given show date, resolved with one
+     * day-type lookup and one query.
+     *
+     * @return seatTypeId -> ticket price
+     */
+    Map<Long, TicketPrice> findTicketPricesBySeatType(Long roomTypeId, LocalDate showDate);
+
+    /**
+     * HOLIDAY for weekends and holidays, NORMAL otherwise.
+     */
+    DayType getDayType(LocalDate date);
 }
@@ -0,0 +1,20 @@
+package vn.cineshow.service;
+
+import vn.cineshow.dto.response.ticketPrice.TicketRepricingStatus;
+
+/**
+ * Keeps tickets of upcoming showtimes linked to the price row that matches their
+ * (room type, seat type, day type) after prices or holidays change.
+ */
+public interface TicketRepricingService {
+
+    /**
+     * Queue a repricing run in the background. Requests arriving before the queued run starts
+     * are merged into it.
+     *
+     * @return the current status
+     */
+    TicketRepricingStatus requestReprice(String reason);
+
+    TicketRepricingStatus getStatus();
+}
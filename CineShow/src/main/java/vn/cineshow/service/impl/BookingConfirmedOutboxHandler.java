@@ -0,0 +1,40 @@
+package vn.cineshow.service.impl;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.service.OutboxEventHandler;
+
+/**
+ * Sends the booking confirmation email of a completed order.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingConfirmedOutboxHandler implements OutboxEventHandler {
+
+    private final EmailService emailService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.BOOKING_CONFIRMED;
+    }
+
+    @Override
+    public void handle(List<BookingOutboxPayload> payloads) {
+        for (BookingOutboxPayload p : payloads) {
+            if (p.getEmail() == null || p.getEmail().isBlank()) {
+                log.info("[OUTBOX] Order {} has no email, confirmation skipped", p.getOrderCode());
+                continue;
+            }
+            String text = String.format("Cảm ơn bạn đã đặt vé tại CineShow.%nMã đơn hàng: %s%nSố vé: %d%nTổng tiền: %,.0f VND",
+                    p.getOrderCode(), p.getTicketIds() == null ? 0 : p.getTicketIds().size(), p.getTotalPrice());
+            emailService.send(p.getEmail(), "Xác nhận đặt vé " + p.getOrderCode(), text);
+        }
+    }
+}
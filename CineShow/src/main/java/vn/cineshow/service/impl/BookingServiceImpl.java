@@ -5,21 +5,35 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import vn.cineshow.dto.redis.OrderSessionRequest;
 import vn.cineshow.dto.request.booking.SeatSelectRequest;
+import vn.cineshow.dto.response.ResponseData;
 import vn.cineshow.dto.response.booking.BookingSeatsResponse;
 import vn.cineshow.dto.response.booking.SeatHold;
+import vn.cineshow.dto.response.booking.SeatLayoutDTO;
+import vn.cineshow.dto.response.booking.SeatMapSnapshot;
+import vn.cineshow.dto.response.booking.SeatOccupancyDTO;
+import vn.cineshow.dto.response.booking.SeatReplayFrame;
+import vn.cineshow.dto.response.booking.SeatReplayResponse;
 import vn.cineshow.dto.response.booking.SeatTicketDTO;
 import vn.cineshow.dto.response.booking.ShowTimeResponse;
 import vn.cineshow.dto.response.booking.TicketDetailResponse;
@@ -39,8 +53,11 @@ import vn.cineshow.repository.ShowTimeRepository;
 import vn.cineshow.repository.TicketRepository;
 import vn.cineshow.service.BookingService;
 import vn.cineshow.service.OrderSessionService;
-import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SeatBroadcastService;
+import vn.cineshow.service.SeatEventBuffer;
 import vn.cineshow.service.SeatHoldService;
+import vn.cineshow.service.SeatLayoutService;
+import vn.cineshow.service.SeatOccupancyService;
 
 @Service
 @Slf4j(topic = "BOOKING-SERVICE")
@@ -49,12 +66,22 @@ import vn.cineshow.service.SeatHoldService;
 public class BookingServiceImpl implements BookingService {
     MovieRepository movieRepository;
     ShowTimeRepository showTimeRepository;
-    RedisService redisService;
     SeatHoldService seatHoldService;
-    SimpMessagingTemplate messagingTemplate;
+    SeatLayoutService seatLayoutService;
+    SeatBroadcastService seatBroadcastService;
+    SeatEventBuffer seatEventBuffer;
+    SeatOccupancyService seatOccupancyService;
     TicketRepository ticketRepository;
     OrderSessionService orderSessionService;
     PaymentMethodRepository paymentMethodRepository;
+    ObjectMapper objectMapper;
+
+    Map<Long, SeatMapSnapshot> seatMapSnapshots = new ConcurrentHashMap<>();
+
+    // upper bound on staleness for changes that do not bump the version (price edits, hold expiry)
+    @Value("${booking.seat-map.max-age-ms:5000}")
+    @NonFinal
+    long seatMapMaxAgeMs;
 
     @Override
     public List<ShowTimeResponse> getShowTimesByMovieAndDay(Long movieId, LocalDate date) {
@@ -72,7 +99,11 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<ShowTimeResponse> getShowTimesByMovieAndStartTime(Long movieId, LocalDateTime startTime) {
         // Return all showtimes, even if sold out, so frontend can display "Hết vé" message
-        return showTimeRepository.findByMovie_IdAndStartTime(movieId, startTime).stream()
+        List<ShowTime> showTimes = showTimeRepository.findByMovie_IdAndStartTime(movieId, startTime);
+        Map<Long, SeatOccupancyDTO> occupancies = seatOccupancyService.getOccupancies(
+                showTimes.stream().map(ShowTime::getId).toList());
+
+        return showTimes.stream()
                 .map(s -> ShowTimeResponse.builder()
                         .showTimeId(s.getId())
                         .startTime(s.getStartTime())
@@ -80,8 +111,8 @@ public class BookingServiceImpl implements BookingService {
                         .roomId(s.getRoom().getId())
                         .roomType(s.getRoom().getRoomType().getName())
                         .roomName(s.getRoom().getName())
-                        .totalSeat((long) s.getRoom().getSeats().size())
-                        .totalSeatAvailable((long) countTotalSeatAvailable(s))
+                        .totalSeat(occupancies.get(s.getId()).getTotal())
+                        .totalSeatAvailable(occupancies.get(s.getId()).getAvailable())
                         .build())
                 .toList();
     }
@@ -106,15 +137,9 @@ public class BookingServiceImpl implements BookingService {
                         .build())
                 .collect(Collectors.toList());
 
-        // 2. get seat held in redis
-        Set<String> keys = redisService.findKeys("seatHold:showtime:" + showTimeId + ":*");
-        if (!keys.isEmpty()) {
-            Set<Long> heldSeatIds = keys.stream()
-                    .map(k -> redisService.get(k, SeatHold.class))
-                    .filter(Objects::nonNull)
-                    .flatMap(h -> h.getSeats().stream().map(SeatTicketDTO::getTicketId))
-                    .collect(Collectors.toSet());
-
+        // 2. get seat held in redis (per-showtime hold index, one round trip)
+        Set<Long> heldSeatIds = seatHoldService.getHeldTicketOwners(showTimeId).keySet();
+        if (!heldSeatIds.isEmpty()) {
             // 3.update held ticket for seats are get in db
             for (TicketResponse t : tickets) {
                 if (heldSeatIds.contains(t.getTicketId()) && !"BOOKED".equals(t.getSeatStatus())) {
@@ -130,6 +155,61 @@ public class BookingServiceImpl implements BookingService {
                 .build());
     }
 
+    @Override
+    public SeatMapSnapshot getSeatMapSnapshot(Long showTimeId) {
+        // version is read before building, so a change racing with the build only costs one extra rebuild
+        long version = seatHoldService.getSeatMapVersion(showTimeId);
+        SeatMapSnapshot cached = seatMapSnapshots.get(showTimeId);
+        if (cached != null && cached.getVersion() == version
+                && System.currentTimeMillis() - cached.getBuiltAt() < seatMapMaxAgeMs) {
+            return cached;
+        }
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ResponseData<>(HttpStatus.OK.value(),
+                    "Get showtime and room by movie and start time successfully", getSeatsByShowTimeId(showTimeId)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize seat map of showtime " + showTimeId, e);
+        }
+
+        // etag follows the content only, so a rebuild that changes nothing keeps clients on 304
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        SeatMapSnapshot snapshot = new SeatMapSnapshot(version, etag, body, System.currentTimeMillis());
+        seatMapSnapshots.put(showTimeId, snapshot);
+        return snapshot;
+    }
+
+    @Scheduled(cron = "0 30 4 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void dropSeatMapSnapshots() {
+        log.info("Dropping {} cached seat map snapshots", seatMapSnapshots.size());
+        seatMapSnapshots.clear();
+    }
+
+    @Override
+    public SeatReplayResponse getSeatEventsAfter(Long showTimeId, long afterSeq) {
+        Optional<List<SeatReplayFrame>> frames = seatEventBuffer.framesAfter(showTimeId, afterSeq);
+        if (frames.isPresent()) {
+            List<SeatReplayFrame> replay = frames.get();
+            return SeatReplayResponse.builder()
+                    .showTimeId(showTimeId)
+                    .latestSeq(replay.isEmpty() ? afterSeq : replay.get(replay.size() - 1).getSeq())
+                    .snapshot(false)
+                    .frames(replay)
+                    .build();
+        }
+
+        // gap no longer buffered: read the seq first, so frames racing with the snapshot are re-applied by the client
+        long latestSeq = seatEventBuffer.latestSeq(showTimeId);
+        log.info("Seat replay gap for showtime {} after seq {}, serving full snapshot at seq {}", showTimeId, afterSeq, latestSeq);
+        return SeatReplayResponse.builder()
+                .showTimeId(showTimeId)
+                .latestSeq(latestSeq)
+                .snapshot(true)
+                .seats(getSeatsByShowTimeId(showTimeId))
+                .build();
+    }
+
     @Override
 
     public void handleSeatAction(SeatSelectRequest req) {
@@ -148,6 +228,7 @@ public class BookingServiceImpl implements BookingService {
         if (seatHold == null) {
             log.warn("[BOOKING] User {} failed to hold seats", req.getUserId());
             broadcast(req, "FAILED");
+            return;
         }
 
         // synchronize data to order session
@@ -186,82 +267,48 @@ public class BookingServiceImpl implements BookingService {
 
 
     private void broadcast(SeatSelectRequest req, String status) {
-        List<SeatTicketDTO> seatDetails = req.getTicketIds().stream()
-                .map(ticketId -> {
-                    var ticketOpt = ticketRepository.findByIdWithSeat(ticketId);
-                    if (ticketOpt.isEmpty()) {
-                        return SeatTicketDTO.builder()
-                                .ticketId(ticketId)
-                                .status(status)
-                                .build();
-                    }
-                    var ticket = ticketOpt.get();
-                    return SeatTicketDTO.builder()
-                            .ticketId(ticketId)
-                            .rowIdx(Integer.parseInt(ticket.getSeat().getRow()) - 1)
-                            .columnIdx(Integer.parseInt(ticket.getSeat().getColumn()) - 1)
-                            .seatType(ticket.getSeat().getSeatType().getName())
-                            .status(status)
-                            .build();
-                })
-                .toList();
+        List<SeatTicketDTO> seatDetails = toSeatDetails(req.getShowtimeId(), req.getTicketIds(), status);
+        seatDetails.forEach(seat -> seat.setUserId(req.getUserId()));
 
-        messagingTemplate.convertAndSend(
-                "/topic/seat/" + req.getShowtimeId(),
-                Map.of("seats", seatDetails,
-                        "status", status,
-                        "userId", req.getUserId(),
-                        "showtimeId", req.getShowtimeId())
-        );
+        // coalesced with other changes of the showtime into one delta frame
+        seatBroadcastService.publish(req.getShowtimeId(), seatDetails);
     }
 
     @Override
     public void broadcastBooked(Long showtimeId, List<Long> ticketIds) {
         log.info("[BOOKING] Broadcasting BOOKED status for showtime {} with {} tickets", showtimeId, ticketIds.size());
         
-        List<SeatTicketDTO> seatDetails = ticketIds.stream()
+        List<SeatTicketDTO> seatDetails = toSeatDetails(showtimeId, ticketIds, TicketStatus.BOOKED.name());
+
+        seatBroadcastService.publish(showtimeId, seatDetails);
+        
+        log.info("[BOOKING] Successfully broadcasted BOOKED status for {} tickets", seatDetails.size());
+    }
+
+    /**
+     * Build seat payloads from the cached showtime layout (no DB access).
+     * Unknown tickets are still sent with their id and status only.
+     */
+    private List<SeatTicketDTO> toSeatDetails(Long showtimeId, List<Long> ticketIds, String status) {
+        Map<Long, SeatLayoutDTO> layout = seatLayoutService.getLayout(showtimeId);
+        return ticketIds.stream()
                 .map(ticketId -> {
-                    var ticketOpt = ticketRepository.findByIdWithSeat(ticketId);
-                    if (ticketOpt.isEmpty()) {
+                    SeatLayoutDTO seat = layout.get(ticketId);
+                    if (seat == null) {
                         return SeatTicketDTO.builder()
                                 .ticketId(ticketId)
-                                .status(TicketStatus.BOOKED.name())
+                                .status(status)
                                 .build();
                     }
-                    var ticket = ticketOpt.get();
-                    return SeatTicketDTO.builder()
-                            .ticketId(ticketId)
-                            .rowIdx(Integer.parseInt(ticket.getSeat().getRow()) - 1)
-                            .columnIdx(Integer.parseInt(ticket.getSeat().getColumn()) - 1)
-                            .seatType(ticket.getSeat().getSeatType().getName())
-                            .status(TicketStatus.BOOKED.name())
-                            .build();
+                    return seat.toSeatTicket(status);
                 })
                 .toList();
-
-        messagingTemplate.convertAndSend(
-                "/topic/seat/" + showtimeId,
-                Map.of("seats", seatDetails,
-                        "status", TicketStatus.BOOKED.name(),
-                        "showtimeId", showtimeId)
-        );
-        
-        log.info("[BOOKING] Successfully broadcasted BOOKED status for {} tickets", seatDetails.size());
     }
 
     /**
-     * Count available seats based on ticket status in the showtime
-     * Only tickets with status AVAILABLE are counted (not HELD, BOOKED, or BLOCKED)
-     * Uses TicketRepository to count directly from database for better performance
+     * Seat, room, showtime and movie details of the given tickets for the checkout summary,
+     * loaded with their relations in one query.
      */
-    private int countTotalSeatAvailable(ShowTime showTime) {
-        Long count = ticketRepository.countByShowTime_IdAndStatus(
-                showTime.getId(), 
-                TicketStatus.AVAILABLE
-        );
-        return count != null ? count.intValue() : 0;
-    }
-
     @Override
     public List<TicketDetailResponse> getTicketDetailsByIds(List<Long> ids) {
         List<Ticket> tickets = ticketRepository.findTicketsWithRelations(ids);
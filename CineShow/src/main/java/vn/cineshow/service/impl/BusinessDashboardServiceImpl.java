@@ -5,21 +5,27 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import vn.cineshow.dto.response.BDashbroad.BusinessDashboardResponse;
+import vn.cineshow.dto.response.BDashbroad.MonthlyStatsDTO;
 import vn.cineshow.dto.response.BDashbroad.TopProductDTO;
-import vn.cineshow.repository.OrderRepository;
-import vn.cineshow.repository.UserRepository;
+import vn.cineshow.repository.DailyConcessionRollupRepository;
+import vn.cineshow.repository.DailySalesRollupRepository;
 import vn.cineshow.service.BusinessDashboardService;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * Business dashboard read only from the daily sales rollups (see SalesRollupService):
+ * every figure is a sum over a date range of pre-aggregated rows, never a scan of orders.
+ */
 @Service
 @RequiredArgsConstructor
 public class BusinessDashboardServiceImpl implements BusinessDashboardService {
 
-    private final OrderRepository orderRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final DailyConcessionRollupRepository dailyConcessionRollupRepository;
 
     @Override
     public BusinessDashboardResponse getBusinessDashboard() {
@@ -27,36 +33,33 @@ public class BusinessDashboardServiceImpl implements BusinessDashboardService {
         YearMonth currentMonth = YearMonth.from(now);
         YearMonth prevMonth = currentMonth.minusMonths(1);
 
-        // --- Doanh thu tháng này & tháng trước ---
-        long revenueThisMonth = Optional.ofNullable(orderRepository
-                        .sumRevenueByMonth(currentMonth.getYear(), currentMonth.getMonthValue()))
-                .orElse(0L);
-        long revenueLastMonth = Optional.ofNullable(orderRepository
-                        .sumRevenueByMonth(prevMonth.getYear(), prevMonth.getMonthValue()))
-                .orElse(0L);
+        // --- Doanh thu & số đơn tháng này / tháng trước: [revenue, orders, tickets] ---
+        Object[] thisMonth = monthTotals(currentMonth);
+        Object[] lastMonth = monthTotals(prevMonth);
+
+        long revenueThisMonth = ((Number) thisMonth[0]).longValue();
+        long revenueLastMonth = ((Number) lastMonth[0]).longValue();
         double revenueChange = calculateChangePercent(revenueThisMonth, revenueLastMonth);
 
         // --- Tổng đơn hàng ---
-        long totalOrders = Optional.ofNullable(orderRepository
-                        .countByMonth(currentMonth.getYear(), currentMonth.getMonthValue()))
-                .orElse(0L);
-        long prevOrders = Optional.ofNullable(orderRepository
-                        .countByMonth(prevMonth.getYear(), prevMonth.getMonthValue()))
-                .orElse(0L);
-
+        long totalOrders = ((Number) thisMonth[1]).longValue();
+        long prevOrders = ((Number) lastMonth[1]).longValue();
         double orderChange = calculateChangePercent(totalOrders, prevOrders);
 
-
         // --- Giá trị đơn TB ---
         double avgOrderValue = (totalOrders > 0) ? (double) revenueThisMonth / totalOrders : 0;
         double prevAvgValue = (prevOrders > 0) ? (double) revenueLastMonth / prevOrders : 0;
         double avgValueChange = calculateChangePercent(avgOrderValue, prevAvgValue);
 
-//
-//        // --- Dữ liệu biểu đồ trong năm hiện tại (dữ liệu 12 tháng nếu lấy dữ liệu cho đến tháng hiện tại, do vậy nếu bh là tháng 11 thì chỉ hiện 11 cột) ---
-        var revenueChart = Optional.ofNullable(orderRepository.getRevenueOfCurrentYear()).orElse(List.of());
-        var orderChart = Optional.ofNullable(orderRepository.getOrdersOfCurrentYear()).orElse(List.of());
-        var topProducts = orderRepository.findTopProductsOfCurrentMonth(PageRequest.of(0, 4));
+        // --- Dữ liệu biểu đồ trong năm hiện tại (chỉ các tháng đã có dữ liệu) ---
+        LocalDate yearStart = now.withDayOfYear(1);
+        List<MonthlyStatsDTO> revenueChart = new ArrayList<>();
+        List<MonthlyStatsDTO> orderChart = new ArrayList<>();
+        for (Object[] row : dailySalesRollupRepository.sumByMonthBetween(yearStart, yearStart.plusYears(1))) {
+            int month = ((Number) row[0]).intValue();
+            revenueChart.add(new MonthlyStatsDTO(month, ((Number) row[1]).doubleValue()));
+            orderChart.add(new MonthlyStatsDTO(month, ((Number) row[2]).doubleValue()));
+        }
 
         return BusinessDashboardResponse.builder()
                 .revenueThisMonth(revenueThisMonth)
@@ -67,10 +70,15 @@ public class BusinessDashboardServiceImpl implements BusinessDashboardService {
                 .avgValueChange(avgValueChange)
                 .revenueChart(revenueChart)
                 .orderChart(orderChart)
-                .topProducts(topProducts)
+                .topProducts(getTopProducts())
                 .build();
     }
 
+    private Object[] monthTotals(YearMonth month) {
+        List<Object[]> rows = dailySalesRollupRepository.sumBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+        return rows.isEmpty() ? new Object[]{0L, 0L, 0L} : rows.get(0);
+    }
+
     private double calculateChangePercent(double current, double previous) {
         if (previous == 0) return 0;
         return ((current - previous) / previous) * 100.0;
@@ -78,6 +86,8 @@ public class BusinessDashboardServiceImpl implements BusinessDashboardService {
 
     public List<TopProductDTO> getTopProducts() {
         Pageable top4 = PageRequest.of(0, 4);
-        return orderRepository.findTopProductsOfCurrentMonth(top4);
+        YearMonth currentMonth = YearMonth.now();
+        return dailyConcessionRollupRepository.findTopProductsBetween(currentMonth.atDay(1),
+                currentMonth.plusMonths(1).atDay(1), top4);
     }
 }
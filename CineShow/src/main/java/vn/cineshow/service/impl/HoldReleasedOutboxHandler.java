@@ -0,0 +1,42 @@
+package vn.cineshow.service.impl;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.service.OutboxEventHandler;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SeatHoldService;
+
+/**
+ * Drops the buyer's OrderSession and seat hold once the payment is settled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HoldReleasedOutboxHandler implements OutboxEventHandler {
+
+    private final RedisService redisService;
+    private final SeatHoldService seatHoldService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.HOLD_RELEASED;
+    }
+
+    @Override
+    public void handle(List<BookingOutboxPayload> payloads) {
+        for (BookingOutboxPayload p : payloads) {
+            String orderSessionKey = "orderSession:showtime:" + p.getShowtimeId() + ":userId:" + p.getUserId();
+            if (redisService.exists(orderSessionKey)) {
+                redisService.delete(orderSessionKey);
+                log.info("[REDIS CLEANUP] Deleted orderSessionKey={}", orderSessionKey);
+            }
+            seatHoldService.clearHold(p.getShowtimeId(), p.getUserId());
+        }
+    }
+}
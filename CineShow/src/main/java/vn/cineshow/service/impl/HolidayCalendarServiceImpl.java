@@ -0,0 +1,202 @@
+package vn.cineshow.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.model.Holiday;
+import vn.cineshow.repository.HolidayRepository;
+import vn.cineshow.service.HolidayCalendarService;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.TicketRepricingService;
+
+/**
+ * Holidays as one bitmap per year, indexed by day of year.
+ * <p>
+ * The holiday table is read once into a {@link Calendar}: fixed dates grouped by year, recurring
+ * days as a mask over a leap year. A year's bitmap (its fixed dates OR the recurring mask, 29/02
+ * only in leap years) is materialized on first use and kept, so a lookup is a single bit test.
+ * A change builds a new calendar; other nodes follow through {@link #VERSION_KEY} and {@link #CHANNEL},
+ * the same way as the ticket price matrix.
+ */
+@Slf4j(topic = "HOLIDAY-CALENDAR")
+@Service
+@RequiredArgsConstructor
+public class HolidayCalendarServiceImpl implements HolidayCalendarService, MessageListener {
+
+    public static final String CHANNEL = "holidayCalendar:changed";
+    private static final String VERSION_KEY = "holidayCalendar:version";
+    private static final long VERSION_TTL = 30L * 24 * 60 * 60;
+
+    private final HolidayRepository holidayRepository;
+    private final RedisService redisService;
+    // looked up on use, repricing depends on the calendar through the price service
+    private final ObjectProvider<TicketRepricingService> ticketRepricingService;
+
+    private volatile Calendar calendar;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        long version = readVersion();
+        Calendar built = new Calendar(holidayRepository.findAll(), version);
+        calendar = built;
+        log.info("Built holiday calendar: {} fixed, {} recurring (version {})",
+                built.fixedCount, built.recurring.cardinality(), version);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.price.refresh-ms:60000}", initialDelay = 60000)
+    public void refreshIfChanged() {
+        Calendar current = calendar;
+        if (current == null || current.version != readVersion()) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        long version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        Calendar current = calendar;
+        if (current == null || current.version != version) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public boolean isHoliday(LocalDate date) {
+        return calendar().year(date.getYear()).get(date.getDayOfYear());
+    }
+
+    @Override
+    public List<LocalDate> findHolidays(LocalDate from, int days) {
+        List<LocalDate> holidays = new ArrayList<>();
+        if (days <= 0) return holidays;
+
+        Calendar current = calendar();
+        LocalDate end = from.plusDays(days - 1L);
+        for (int y = from.getYear(); y <= end.getYear(); y++) {
+            BitSet bits = current.year(y);
+            int first = y == from.getYear() ? from.getDayOfYear() : 1;
+            int last = y == end.getYear() ? end.getDayOfYear() : Year.of(y).length();
+            for (int doy = bits.nextSetBit(first); doy >= 0 && doy <= last; doy = bits.nextSetBit(doy + 1)) {
+                holidays.add(LocalDate.ofYearDay(y, doy));
+            }
+        }
+        return holidays;
+    }
+
+    @Override
+    public void rebuildAfterCommit() {
+        Runnable publish = () -> {
+            long version = redisService.increment(VERSION_KEY, VERSION_TTL);
+            rebuild();
+            redisService.publish(CHANNEL, String.valueOf(version));
+            ticketRepricingService.getObject().requestReprice("holidays changed");
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
+
+    private Calendar calendar() {
+        Calendar current = calendar;
+        if (current == null) {
+            rebuild();
+            current = calendar;
+        }
+        return current;
+    }
+
+    private long readVersion() {
+        try {
+            return redisService.getCounter(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("Cannot read holiday calendar version, keeping local state: {}", e.getMessage());
+            Calendar current = calendar;
+            return current != null ? current.version : 0L;
+        }
+    }
+
+    /**
+     * Immutable view of the holiday table; per-year bitmaps are derived from it on demand.
+     */
+    private static final class Calendar {
+
+        // 2000 is a leap year, so every month/day has a slot
+        private static final int LEAP_YEAR = 2000;
+        private static final int FEB_29 = LocalDate.of(LEAP_YEAR, 2, 29).getDayOfYear();
+
+        final BitSet recurring = new BitSet(367);
+        final Map<Integer, BitSet> fixedByYear = new HashMap<>();
+        final Map<Integer, BitSet> years = new ConcurrentHashMap<>();
+        final long version;
+        final int fixedCount;
+
+        Calendar(List<Holiday> holidays, long version) {
+            int fixed = 0;
+            for (Holiday h : holidays) {
+                if (h.isRecurring()) {
+                    if (h.getMonthOfYear() == null || h.getDayOfMonth() == null) continue;
+                    recurring.set(LocalDate.of(LEAP_YEAR, h.getMonthOfYear(), h.getDayOfMonth()).getDayOfYear());
+                } else if (h.getHolidayDate() != null) {
+                    fixedByYear.computeIfAbsent(h.getHolidayDate().getYear(), y -> new BitSet(367))
+                            .set(h.getHolidayDate().getDayOfYear());
+                    fixed++;
+                }
+            }
+            this.version = version;
+            this.fixedCount = fixed;
+        }
+
+        /**
+         * Bitmap of the given year; bit n is set when day-of-year n is a holiday. Never modified once built.
+         */
+        BitSet year(int year) {
+            return years.computeIfAbsent(year, this::materialize);
+        }
+
+        private BitSet materialize(int year) {
+            BitSet bits = new BitSet(367);
+            BitSet fixed = fixedByYear.get(year);
+            if (fixed != null) bits.or(fixed);
+
+            boolean leap = Year.isLeap(year);
+            for (int doy = recurring.nextSetBit(1); doy >= 0; doy = recurring.nextSetBit(doy + 1)) {
+                if (leap || doy < FEB_29) {
+                    bits.set(doy);
+                } else if (doy > FEB_29) {
+                    bits.set(doy - 1);
+                }
+            }
+            return bits;
+        }
+    }
+}
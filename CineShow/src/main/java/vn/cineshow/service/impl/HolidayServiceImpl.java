@@ -12,6 +12,7 @@ import vn.cineshow.exception.AppException;
 import vn.cineshow.exception.ErrorCode;
 import vn.cineshow.model.Holiday;
 import vn.cineshow.repository.HolidayRepository;
+import vn.cineshow.service.HolidayCalendarService;
 import vn.cineshow.service.HolidayService;
 import java.time.LocalDate;
 import java.util.Collections;
@@ -23,7 +24,10 @@ import java.util.stream.Collectors;
 @Transactional
 public class HolidayServiceImpl implements HolidayService {
 
+    private static final int MAX_UPCOMING_DAYS = 366;
+
     private final HolidayRepository holidayRepository;
+    private final HolidayCalendarService holidayCalendarService;
 
     @Override
     public List<Holiday> addHolidays(List<HolidayRequest> requests) {
@@ -32,7 +36,9 @@ public class HolidayServiceImpl implements HolidayService {
                 .map(this::toEntityWithValidation)
                 .collect(Collectors.toList());
 
-        return holidayRepository.saveAll(holidays);
+        List<Holiday> saved = holidayRepository.saveAll(holidays);
+        holidayCalendarService.rebuildAfterCommit();
+        return saved;
     }
 
     @Override
@@ -72,6 +78,7 @@ public class HolidayServiceImpl implements HolidayService {
         Holiday holiday = holidayRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.HOLIDAY_NOT_FOUND));
         holidayRepository.delete(holiday);
+        holidayCalendarService.rebuildAfterCommit();
     }
 
     /**
@@ -125,18 +132,10 @@ public class HolidayServiceImpl implements HolidayService {
         }
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
-    public boolean isHoliday(LocalDate date) {
-        // 1⃣ Kiểm tra ngày lễ cố định theo năm (isRecurring = false)
-        boolean existsSpecificHoliday = holidayRepository.existsByHolidayDate(date);
-        if (existsSpecificHoliday) return true;
-
-        // 2⃣ Kiểm tra ngày lễ lặp lại hàng năm (isRecurring = true)
-        int day = date.getDayOfMonth();
-        int month = date.getMonthValue();
-
-        return holidayRepository.existsByDayOfMonthAndMonthOfYearAndIsRecurringTrue(day, month);
+    public List<LocalDate> getUpcomingHolidays(int days) {
+        return holidayCalendarService.findHolidays(LocalDate.now(), Math.min(Math.max(days, 1), MAX_UPCOMING_DAYS));
     }
 
 }
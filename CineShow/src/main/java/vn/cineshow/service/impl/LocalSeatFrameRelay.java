@@ -0,0 +1,40 @@
+package vn.cineshow.service.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+import vn.cineshow.service.SeatFrameRelay;
+
+/**
+ * Single-node fan-out: sequence numbers live in this JVM and frames go straight to the simple broker.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.websocket.fanout", havingValue = "local", matchIfMissing = true)
+public class LocalSeatFrameRelay implements SeatFrameRelay {
+
+    private final ObjectMapper objectMapper;
+    private final SeatFrameSender seatFrameSender;
+
+    private final Map<Long, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    @Override
+    public void relay(Long showtimeId, List<SeatTicketDTO> seats) {
+        long seq = sequences.computeIfAbsent(showtimeId, id -> new AtomicLong()).incrementAndGet();
+        try {
+            seatFrameSender.send(showtimeId, seq, SeatFrameSender.sharedFields(seats), objectMapper.writeValueAsString(seats));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize seat frame of showtime " + showtimeId, e);
+        }
+    }
+}
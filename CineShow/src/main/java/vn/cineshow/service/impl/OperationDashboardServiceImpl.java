@@ -2,50 +2,55 @@ package vn.cineshow.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import vn.cineshow.dto.response.booking.SeatOccupancyDTO;
 import vn.cineshow.dto.response.dashboard.*;
 import vn.cineshow.enums.MovieStatus;
 import vn.cineshow.enums.OrderStatus;
 import vn.cineshow.enums.RoomStatus;
-import vn.cineshow.enums.TicketStatus;
-import vn.cineshow.model.Movie;
-import vn.cineshow.model.Order;
-import vn.cineshow.model.Room;
 import vn.cineshow.model.ShowTime;
 import vn.cineshow.repository.MovieRepository;
-import vn.cineshow.repository.OrderRepository;
 import vn.cineshow.repository.RoomRepository;
 import vn.cineshow.repository.ShowTimeRepository;
 import vn.cineshow.repository.TicketRepository;
 import vn.cineshow.service.OperationDashboardService;
+import vn.cineshow.service.SeatOccupancyService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Operation dashboard built from aggregate queries: every figure is a GROUP BY / COUNT bounded by
+ * status or a date range (indexed), so the endpoint runs the same dozen queries whatever the history size.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j(topic = "OPERATION_DASHBOARD_SERVICE")
 public class OperationDashboardServiceImpl implements OperationDashboardService {
 
+    private static final int TOP_SIZE = 5;
+
     private final MovieRepository movieRepository;
     private final ShowTimeRepository showTimeRepository;
     private final RoomRepository roomRepository;
-    private final OrderRepository orderRepository;
     private final TicketRepository ticketRepository;
+    private final SeatOccupancyService seatOccupancyService;
 
     @Override
     @Transactional(readOnly = true)
     public OperationDashboardStatsResponse getDashboardStats() {
-        log.info("Getting dashboard statistics");
-
         LocalDateTime now = LocalDateTime.now();
         LocalDate today = now.toLocalDate();
         LocalDateTime todayStart = today.atStartOfDay();
@@ -53,53 +58,25 @@ public class OperationDashboardServiceImpl implements OperationDashboardService
         LocalDateTime weekStart = todayStart.minusDays(7);
         LocalDateTime weekEnd = todayEnd.plusDays(7);
 
-        // Get current year movies
-        int currentYear = today.getYear();
-        List<Movie> allMovies = movieRepository.findAll().stream()
-                .filter(m -> !m.isDeleted())
-                .filter(m -> {
-                    if (m.getReleaseDate() == null) return true;
-                    return m.getReleaseDate().getYear() == currentYear;
-                })
-                .toList();
-
-        log.info("Movies found for year {}: total={}, playing={}, upcoming={}, ended={}", 
-                currentYear, allMovies.size(),
-                allMovies.stream().filter(m -> MovieStatus.PLAYING.equals(m.getStatus())).count(),
-                allMovies.stream().filter(m -> MovieStatus.UPCOMING.equals(m.getStatus())).count(),
-                allMovies.stream().filter(m -> MovieStatus.ENDED.equals(m.getStatus())).count());
-
-        // Movie stats
-        MovieStatsResponse movieStats = calculateMovieStats(allMovies);
-        log.info("Calculated movie stats: total={}, playing={}, upcoming={}, ended={}", 
-                movieStats.getTotal(), movieStats.getPlaying(), 
-                movieStats.getUpcoming(), movieStats.getEnded());
+        // Phim của năm hiện tại (phim chưa có ngày phát hành cũng tính)
+        LocalDate yearStart = today.withDayOfYear(1);
+        LocalDate nextYearStart = yearStart.plusYears(1);
 
-        // Showtime stats
+        MovieStatsResponse movieStats = calculateMovieStats(yearStart, nextYearStart);
         ShowtimeStatsResponse showtimeStats = calculateShowtimeStats(todayStart, todayEnd, weekEnd, now);
-
-        // Room stats
         RoomStatsResponse roomStats = calculateRoomStats();
-
-        // Today's showtimes
         List<TodayShowtimeResponse> todayShowtimes = getTodayShowtimes(todayStart, todayEnd, now);
+        List<PlayingMovieResponse> playingMovies = getPlayingMovies(yearStart, nextYearStart);
+        List<HotMovieResponse> hotMovies = getHotMovies(weekStart, now, today.getYear());
 
-        // Playing movies
-        List<PlayingMovieResponse> playingMovies = getPlayingMovies(allMovies);
-
-        // Hot movies this week
-        List<HotMovieResponse> hotMovies = getHotMovies(weekStart, now, allMovies);
-
-        // Alerts and insights
-        OperationDashboardInsightsResponse insights = calculateInsights(allMovies, todayStart, todayEnd, now);
+        OperationDashboardInsightsResponse insights =
+                calculateInsights(yearStart, nextYearStart, todayStart, todayEnd, now);
         List<OperationDashboardAlertResponse> alerts = generateAlerts(insights);
 
-        log.info("Dashboard statistics retrieved successfully");
-        log.info("Final movieStats in response - total: {}, playing: {}, upcoming: {}, ended: {}", 
-                movieStats.getTotal(), movieStats.getPlaying(), 
-                movieStats.getUpcoming(), movieStats.getEnded());
+        log.info("Dashboard statistics: movies={}, showtimes today={}, hot movies={}",
+                movieStats.getTotal(), showtimeStats.getToday(), hotMovies.size());
 
-        OperationDashboardStatsResponse response = OperationDashboardStatsResponse.builder()
+        return OperationDashboardStatsResponse.builder()
                 .movieStats(movieStats)
                 .showtimeStats(showtimeStats)
                 .roomStats(roomStats)
@@ -109,95 +86,62 @@ public class OperationDashboardServiceImpl implements OperationDashboardService
                 .alerts(alerts)
                 .insights(insights)
                 .build();
-
-        log.info("OperationDashboardStatsResponse built - movieStats.total: {}", 
-                response.getMovieStats() != null ? response.getMovieStats().getTotal() : "null");
-
-        return response;
     }
 
-    private MovieStatsResponse calculateMovieStats(List<Movie> movies) {
-        long total = movies.size();
-        long playing = movies.stream().filter(m -> MovieStatus.PLAYING.equals(m.getStatus())).count();
-        long upcoming = movies.stream().filter(m -> MovieStatus.UPCOMING.equals(m.getStatus())).count();
-        long ended = movies.stream().filter(m -> MovieStatus.ENDED.equals(m.getStatus())).count();
-
-        log.info("Movie stats calculation - total: {}, playing: {}, upcoming: {}, ended: {}", 
-                total, playing, upcoming, ended);
+    private MovieStatsResponse calculateMovieStats(LocalDate yearStart, LocalDate nextYearStart) {
+        Map<MovieStatus, Long> byStatus = new EnumMap<>(MovieStatus.class);
+        long total = 0;
+        for (Object[] row : movieRepository.countByStatusReleasedBetween(yearStart, nextYearStart)) {
+            long count = ((Number) row[1]).longValue();
+            if (row[0] != null) byStatus.put((MovieStatus) row[0], count);
+            total += count;
+        }
 
-        MovieStatsResponse stats = MovieStatsResponse.builder()
+        return MovieStatsResponse.builder()
                 .total(total)
-                .playing(playing)
-                .upcoming(upcoming)
-                .ended(ended)
+                .playing(byStatus.getOrDefault(MovieStatus.PLAYING, 0L))
+                .upcoming(byStatus.getOrDefault(MovieStatus.UPCOMING, 0L))
+                .ended(byStatus.getOrDefault(MovieStatus.ENDED, 0L))
                 .build();
-
-        log.info("MovieStatsResponse built - total: {}, playing: {}, upcoming: {}, ended: {}", 
-                stats.getTotal(), stats.getPlaying(), stats.getUpcoming(), stats.getEnded());
-
-        return stats;
     }
 
     private ShowtimeStatsResponse calculateShowtimeStats(LocalDateTime todayStart, LocalDateTime todayEnd,
                                                          LocalDateTime weekEnd, LocalDateTime now) {
-        List<ShowTime> allShowtimes = showTimeRepository.findAllBy().stream()
-                .filter(st -> !st.getIsDeleted())
-                .toList();
-
-        long today = allShowtimes.stream()
-                .filter(st -> {
-                    LocalDateTime startTime = st.getStartTime();
-                    return !startTime.isBefore(todayStart) && startTime.isBefore(todayEnd);
-                })
-                .count();
-
-        long thisWeek = allShowtimes.stream()
-                .filter(st -> {
-                    LocalDateTime startTime = st.getStartTime();
-                    return !startTime.isBefore(todayStart) && !startTime.isAfter(weekEnd);
-                })
-                .count();
-
-        long upcoming = allShowtimes.stream()
-                .filter(st -> st.getStartTime().isAfter(now))
-                .count();
-
-        long total = allShowtimes.size();
+        List<Object[]> rows = showTimeRepository.countFrom(todayStart, todayEnd, weekEnd, now);
+        Object[] counts = rows.isEmpty() ? new Object[3] : rows.get(0);
 
         return ShowtimeStatsResponse.builder()
-                .today(today)
-                .thisWeek(thisWeek)
-                .upcoming(upcoming)
-                .total(total)
+                .today(asLong(counts[0]))
+                .thisWeek(asLong(counts[1]))
+                .upcoming(asLong(counts[2]))
+                .total(showTimeRepository.countByIsDeletedFalse())
                 .build();
     }
 
     private RoomStatsResponse calculateRoomStats() {
-        List<Room> allRooms = roomRepository.findAll();
-        long total = allRooms.size();
-        long active = allRooms.stream().filter(r -> RoomStatus.ACTIVE.equals(r.getStatus())).count();
-        long inactive = allRooms.stream().filter(r -> !RoomStatus.ACTIVE.equals(r.getStatus())).count();
+        long total = 0;
+        long active = 0;
+        for (Object[] row : roomRepository.countGroupByStatus()) {
+            long count = ((Number) row[1]).longValue();
+            if (RoomStatus.ACTIVE.equals(row[0])) active = count;
+            total += count;
+        }
 
         return RoomStatsResponse.builder()
                 .total(total)
                 .active(active)
-                .inactive(inactive)
+                .inactive(total - active)
                 .build();
     }
 
     private List<TodayShowtimeResponse> getTodayShowtimes(LocalDateTime todayStart, LocalDateTime todayEnd,
                                                            LocalDateTime now) {
-        List<ShowTime> todayShowtimes = showTimeRepository.findAllBy().stream()
-                .filter(st -> !st.getIsDeleted())
-                .filter(st -> {
-                    LocalDateTime startTime = st.getStartTime();
-                    return !startTime.isBefore(todayStart) && startTime.isBefore(todayEnd);
-                })
-                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
-                .limit(5)
-                .toList();
+        List<ShowTime> todayShowtimes = showTimeRepository.findStartingBetweenWithMovieAndRoom(
+                todayStart, todayEnd, PageRequest.of(0, TOP_SIZE));
 
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+        Map<Long, SeatOccupancyDTO> occupancies = seatOccupancyService.getOccupancies(
+                todayShowtimes.stream().map(ShowTime::getId).toList());
 
         return todayShowtimes.stream()
                 .map(st -> {
@@ -214,15 +158,15 @@ public class OperationDashboardServiceImpl implements OperationDashboardService
                     }
 
                     // Calculate occupancy rate
-                    Long soldTickets = ticketRepository.countByShowTime_IdAndStatus(st.getId(), TicketStatus.BOOKED);
+                    Long soldTickets = occupancies.get(st.getId()).getBooked();
                     Integer capacity = st.getRoom() != null ? st.getRoom().getCapacity() : null;
                     Long totalCapacity = capacity != null ? (long) capacity : 0L;
                     Double occupancyRate = totalCapacity > 0 ? (soldTickets.doubleValue() / totalCapacity.doubleValue()) * 100 : 0.0;
 
                     // Null safety checks
-                    String movieName = (st.getMovie() != null && st.getMovie().getName() != null) 
+                    String movieName = (st.getMovie() != null && st.getMovie().getName() != null)
                             ? st.getMovie().getName() : "N/A";
-                    String roomName = (st.getRoom() != null && st.getRoom().getName() != null) 
+                    String roomName = (st.getRoom() != null && st.getRoom().getName() != null)
                             ? st.getRoom().getName() : "N/A";
 
                     return TodayShowtimeResponse.builder()
@@ -240,181 +184,60 @@ public class OperationDashboardServiceImpl implements OperationDashboardService
                 .toList();
     }
 
-    private List<PlayingMovieResponse> getPlayingMovies(List<Movie> movies) {
-        return movies.stream()
-                .filter(m -> MovieStatus.PLAYING.equals(m.getStatus()))
-                .limit(5)
-                .map(m -> {
-                    long showtimeCount = showTimeRepository.findAllBy().stream()
-                            .filter(st -> !st.getIsDeleted())
-                            .filter(st -> st.getMovie().getId().equals(m.getId()))
-                            .count();
-
-                    return PlayingMovieResponse.builder()
-                            .id(m.getId())
-                            .name(m.getName())
-                            .posterUrl(m.getPosterUrl())
-                            .showtimeCount(showtimeCount)
-                            .status(m.getStatus().name())
-                            .build();
-                })
+    private List<PlayingMovieResponse> getPlayingMovies(LocalDate yearStart, LocalDate nextYearStart) {
+        return movieRepository.findWithShowtimeCountByStatus(MovieStatus.PLAYING, yearStart, nextYearStart,
+                        PageRequest.of(0, TOP_SIZE)).stream()
+                .map(row -> PlayingMovieResponse.builder()
+                        .id((Long) row[0])
+                        .name((String) row[1])
+                        .posterUrl((String) row[2])
+                        .showtimeCount(((Number) row[3]).longValue())
+                        .status(MovieStatus.PLAYING.name())
+                        .build())
                 .toList();
     }
 
-    private List<HotMovieResponse> getHotMovies(LocalDateTime weekStart, LocalDateTime now, List<Movie> movies) {
-        // Get showtimes from last 7 days
-        List<ShowTime> weekShowtimes = showTimeRepository.findAllBy().stream()
-                .filter(st -> !st.getIsDeleted())
-                .filter(st -> {
-                    if (st.getStartTime() == null) return false;
-                    LocalDateTime startTime = st.getStartTime();
-                    return !startTime.isBefore(weekStart) && !startTime.isAfter(now);
-                })
-                .toList();
-
-        log.info("Week showtimes found: {}", weekShowtimes.size());
+    private List<HotMovieResponse> getHotMovies(LocalDateTime weekStart, LocalDateTime now, int year) {
+        // Vé bán trong 7 ngày qua theo phim (đơn COMPLETED) và số suất chiếu trong 7 ngày qua theo phim
+        Map<Long, Long> movieBookingCounts = toCountMap(
+                ticketRepository.countByMovieForOrdersCreatedBetween(OrderStatus.COMPLETED, weekStart, now));
+        Map<Long, Long> movieShowtimeCounts = toCountMap(
+                showTimeRepository.countByMovieStartingBetween(weekStart, now));
 
-        // Get bookings for these showtimes
-        List<Order> allOrders = orderRepository.findAll();
-        List<Order> completedOrders = allOrders.stream()
-                .filter(o -> {
-                    if (o.getCreatedAt() == null) return false;
-                    LocalDateTime createdAt = o.getCreatedAt();
-                    return createdAt.isAfter(weekStart) && createdAt.isBefore(now);
-                })
-                .filter(o -> OrderStatus.COMPLETED.equals(o.getOrderStatus()))
-                .toList();
+        Set<Long> movieIds = new HashSet<>(movieBookingCounts.keySet());
+        movieIds.addAll(movieShowtimeCounts.keySet());
+        if (movieIds.isEmpty()) return List.of();
 
-        log.info("Completed orders in last 7 days: {}", completedOrders.size());
-
-        // Count bookings per movie
-        Map<Long, Long> movieBookingCounts = completedOrders.stream()
-                .flatMap(order -> order.getTickets() != null ? order.getTickets().stream() : java.util.stream.Stream.empty())
-                .filter(ticket -> ticket.getShowTime() != null 
-                        && ticket.getShowTime().getMovie() != null 
-                        && ticket.getShowTime().getMovie().getId() != null)
-                .map(ticket -> ticket.getShowTime().getMovie().getId())
-                .collect(Collectors.groupingBy(id -> id, Collectors.counting()));
-
-        // Count showtimes per movie (tất cả showtimes, không chỉ 7 ngày qua)
-        // Hot movies: phim có nhiều showtime nhất trong tuần qua HOẶC có nhiều bookings nhất
-        Map<Long, Long> movieShowtimeCounts = weekShowtimes.stream()
-                .filter(st -> st.getMovie() != null && st.getMovie().getId() != null)
-                .collect(Collectors.groupingBy(st -> st.getMovie().getId(), Collectors.counting()));
-
-        log.info("Movies with bookings: {}, Movies with showtimes: {}", 
-                movieBookingCounts.size(), movieShowtimeCounts.size());
-
-        // Build hot movies list: ưu tiên phim có bookings, sau đó phim có nhiều showtimes
-        List<HotMovieResponse> hotMoviesList = movies.stream()
-                .filter(m -> {
-                    // Bao gồm phim có bookings HOẶC có showtimes trong tuần
-                    return movieBookingCounts.containsKey(m.getId()) || movieShowtimeCounts.containsKey(m.getId());
-                })
-                .map(m -> {
-                    Long bookingCount = movieBookingCounts.getOrDefault(m.getId(), 0L);
-                    Long showtimeCount = movieShowtimeCounts.getOrDefault(m.getId(), 0L);
-
-                    return HotMovieResponse.builder()
-                            .id(m.getId())
-                            .name(m.getName())
-                            .posterUrl(m.getPosterUrl())
-                            .bookingCount(bookingCount)
-                            .showtimeCount(showtimeCount)
-                            .build();
-                })
-                .sorted((a, b) -> {
-                    // Sort: ưu tiên bookingCount, nếu bằng nhau thì ưu tiên showtimeCount
-                    int bookingCompare = Long.compare(b.getBookingCount(), a.getBookingCount());
-                    if (bookingCompare != 0) return bookingCompare;
-                    return Long.compare(b.getShowtimeCount(), a.getShowtimeCount());
-                })
-                .limit(5)
+        // Hot movies: ưu tiên phim có nhiều bookings, sau đó phim có nhiều showtimes
+        return movieRepository.findAllById(movieIds).stream()
+                .filter(m -> !m.isDeleted())
+                .filter(m -> m.getReleaseDate() == null || m.getReleaseDate().getYear() == year)
+                .map(m -> HotMovieResponse.builder()
+                        .id(m.getId())
+                        .name(m.getName())
+                        .posterUrl(m.getPosterUrl())
+                        .bookingCount(movieBookingCounts.getOrDefault(m.getId(), 0L))
+                        .showtimeCount(movieShowtimeCounts.getOrDefault(m.getId(), 0L))
+                        .build())
+                .sorted(Comparator.comparing(HotMovieResponse::getBookingCount).reversed()
+                        .thenComparing(Comparator.comparing(HotMovieResponse::getShowtimeCount).reversed())
+                        .thenComparing(HotMovieResponse::getId))
+                .limit(TOP_SIZE)
                 .toList();
-
-        log.info("Hot movies found: {}", hotMoviesList.size());
-        return hotMoviesList;
     }
 
-    private OperationDashboardInsightsResponse calculateInsights(List<Movie> movies, LocalDateTime todayStart,
-                                                          LocalDateTime todayEnd, LocalDateTime now) {
-        // Movies ending soon: Phim đang chiếu (PLAYING) và chỉ còn suất chiếu trong 3 ngày gần nhất
-        // Logic: Phim được coi là "sắp kết thúc" nếu:
-        // - Status = PLAYING
-        // - Có ít nhất 1 showtime trong 3 ngày tới
-        // - Không còn showtime nào sau 3 ngày tính từ hiện tại
-        LocalDateTime threeDaysLater = now.plusDays(3);
-        LocalDateTime threeDaysLaterEnd = threeDaysLater.with(LocalTime.MAX);
-        
-        long upcomingMoviesEnding = movies.stream()
-                .filter(m -> MovieStatus.PLAYING.equals(m.getStatus()))
-                .filter(m -> {
-                    try {
-                        // Lấy tất cả showtimes của phim này chưa bị xóa
-                        List<ShowTime> movieShowtimes = showTimeRepository.findAllBy().stream()
-                                .filter(st -> !st.getIsDeleted())
-                                .filter(st -> st.getMovie() != null && st.getMovie().getId().equals(m.getId()))
-                                .filter(st -> st.getStartTime() != null)
-                                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
-                                .toList();
-                        
-                        if (movieShowtimes.isEmpty()) {
-                            return false; // Không có showtime nào thì không coi là sắp kết thúc
-                        }
-                        
-                        // Kiểm tra xem có showtime nào trong 3 ngày tới không
-                        boolean hasShowtimeInNext3Days = movieShowtimes.stream()
-                                .anyMatch(st -> {
-                                    LocalDateTime startTime = st.getStartTime();
-                                    return startTime.isAfter(now) && !startTime.isAfter(threeDaysLaterEnd);
-                                });
-                        
-                        // Kiểm tra xem có showtime nào sau 3 ngày không
-                        boolean hasShowtimeAfter3Days = movieShowtimes.stream()
-                                .anyMatch(st -> st.getStartTime().isAfter(threeDaysLaterEnd));
-                        
-                        // Phim sắp kết thúc nếu: có showtime trong 3 ngày tới VÀ không còn showtime sau 3 ngày
-                        return hasShowtimeInNext3Days && !hasShowtimeAfter3Days;
-                    } catch (Exception e) {
-                        log.error("Error checking if movie {} is ending soon: {}", m.getId(), e.getMessage());
-                        return false;
-                    }
-                })
-                .count();
-        
-        log.info("Movies ending soon (within 3 days): {}", upcomingMoviesEnding);
+    private OperationDashboardInsightsResponse calculateInsights(LocalDate yearStart, LocalDate nextYearStart,
+                                                                 LocalDateTime todayStart, LocalDateTime todayEnd,
+                                                                 LocalDateTime now) {
+        // Phim sắp kết thúc: đang chiếu, còn suất chiếu trong 3 ngày tới và không còn suất nào sau đó
+        LocalDateTime threeDaysLaterEnd = now.plusDays(3).with(LocalTime.MAX);
+        long upcomingMoviesEnding = movieRepository.countEndingBefore(MovieStatus.PLAYING, yearStart, nextYearStart,
+                now, threeDaysLaterEnd);
 
-        // Rooms without showtime today
-        List<Room> activeRooms = roomRepository.findAll().stream()
-                .filter(r -> RoomStatus.ACTIVE.equals(r.getStatus()))
-                .toList();
+        long roomsWithoutShowtime = roomRepository.countWithoutShowtimeBetween(RoomStatus.ACTIVE, todayStart, todayEnd);
 
-        Set<Long> roomsWithShowtime = showTimeRepository.findAllBy().stream()
-                .filter(st -> !st.getIsDeleted())
-                .filter(st -> st.getStartTime() != null)
-                .filter(st -> {
-                    LocalDateTime startTime = st.getStartTime();
-                    return !startTime.isBefore(todayStart) && startTime.isBefore(todayEnd);
-                })
-                .filter(st -> st.getRoom() != null && st.getRoom().getId() != null)
-                .map(st -> st.getRoom().getId())
-                .collect(Collectors.toSet());
-
-        long roomsWithoutShowtime = activeRooms.stream()
-                .filter(r -> !roomsWithShowtime.contains(r.getId()))
-                .count();
-
-        // Upcoming movies without showtime
-        Set<Long> moviesWithShowtime = showTimeRepository.findAllBy().stream()
-                .filter(st -> !st.getIsDeleted())
-                .filter(st -> st.getMovie() != null && st.getMovie().getId() != null)
-                .map(st -> st.getMovie().getId())
-                .collect(Collectors.toSet());
-
-        long upcomingMoviesWithoutShowtime = movies.stream()
-                .filter(m -> MovieStatus.UPCOMING.equals(m.getStatus()))
-                .filter(m -> !moviesWithShowtime.contains(m.getId()))
-                .count();
+        long upcomingMoviesWithoutShowtime = movieRepository.countWithoutShowtime(MovieStatus.UPCOMING,
+                yearStart, nextYearStart);
 
         return OperationDashboardInsightsResponse.builder()
                 .upcomingMoviesEnding(upcomingMoviesEnding)
@@ -423,6 +246,18 @@ public class OperationDashboardServiceImpl implements OperationDashboardService
                 .build();
     }
 
+    private static Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
     private List<OperationDashboardAlertResponse> generateAlerts(OperationDashboardInsightsResponse insights) {
         List<OperationDashboardAlertResponse> alerts = new ArrayList<>();
 
@@ -0,0 +1,126 @@
+package vn.cineshow.service.impl;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.service.RedisService;
+
+/**
+ * Order codes (also the VNPay vnp_TxnRef and the QR content), unique without a database round trip.
+ * <p>
+ * Layout: {@code PHT} + 13 Crockford base32 characters + 1 check character (17 characters).
+ * The 63-bit body is milliseconds since 2025-01-01 (41 bits) | node id (10 bits) | sequence (12 bits),
+ * so each node issues up to 4096 codes per millisecond and nodes never overlap.
+ * The node id comes from {@code booking.order-code.node-id} or, when unset, is taken from a Redis counter
+ * at startup. The clock is treated as monotonic: if it steps back, or a millisecond is exhausted, codes
+ * keep being issued on the following logical millisecond instead of repeating.
+ * The check character (Luhn mod 32) catches a mistyped or swapped character at the counter.
+ */
+@Slf4j(topic = "ORDER-CODE")
+@Component
+@RequiredArgsConstructor
+public class OrderCodeGenerator {
+
+    private static final String PREFIX = "PHT";
+    // Crockford base32: no I, L, O, U, so codes read back unambiguously
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int BODY_LENGTH = 13;
+    private static final int CODE_LENGTH = PREFIX.length() + BODY_LENGTH + 1;
+    // codes issued before this generator: PHT + 9 digits
+    private static final int LEGACY_LENGTH = PREFIX.length() + 9;
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String NODE_COUNTER_KEY = "orderCode:nodeCounter";
+    private static final long NODE_COUNTER_TTL = 365L * 24 * 3600;
+
+    private final RedisService redisService;
+
+    @Value("${booking.order-code.node-id:-1}")
+    long configuredNodeId;
+
+    private long nodeId;
+    private long lastMillis = -1;
+    private long sequence;
+
+    @PostConstruct
+    void init() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId > MAX_NODE) {
+                throw new IllegalStateException("booking.order-code.node-id must be between 0 and " + MAX_NODE);
+            }
+            nodeId = configuredNodeId;
+        } else {
+            try {
+                nodeId = redisService.increment(NODE_COUNTER_KEY, NODE_COUNTER_TTL) & MAX_NODE;
+            } catch (Exception e) {
+                nodeId = ThreadLocalRandom.current().nextLong(MAX_NODE + 1);
+                log.warn("Cannot take an order code node id from Redis ({}), using random id {}; "
+                        + "set booking.order-code.node-id on multi-node deployments", e.getMessage(), nodeId);
+            }
+        }
+        log.info("Order codes issued with node id {}", nodeId);
+    }
+
+    public String next() {
+        long id;
+        synchronized (this) {
+            long now = Math.max(System.currentTimeMillis(), lastMillis);
+            if (now == lastMillis) {
+                sequence = (sequence + 1) & MAX_SEQUENCE;
+                if (sequence == 0) now++; // millisecond exhausted: borrow the next one
+            } else {
+                sequence = 0;
+            }
+            lastMillis = now;
+            id = ((now - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+
+        char[] body = new char[BODY_LENGTH];
+        for (int i = BODY_LENGTH - 1; i >= 0; i--) {
+            body[i] = ALPHABET.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return PREFIX + new String(body) + ALPHABET.charAt(checkValue(body));
+    }
+
+    /**
+     * Cheap format check before looking a code up: prefix, alphabet and check character.
+     * Legacy numeric codes are accepted as they are.
+     */
+    public static boolean isWellFormed(String code) {
+        if (code == null || !code.startsWith(PREFIX)) return false;
+        if (code.length() == LEGACY_LENGTH) {
+            return code.substring(PREFIX.length()).chars().allMatch(Character::isDigit);
+        }
+        if (code.length() != CODE_LENGTH) return false;
+
+        char[] body = code.substring(PREFIX.length(), CODE_LENGTH - 1).toCharArray();
+        for (char c : body) {
+            if (ALPHABET.indexOf(c) < 0) return false;
+        }
+        return ALPHABET.charAt(checkValue(body)) == code.charAt(CODE_LENGTH - 1);
+    }
+
+    // Luhn mod N over the base32 alphabet
+    private static int checkValue(char[] body) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = body.length - 1; i >= 0; i--) {
+            int addend = factor * ALPHABET.indexOf(body[i]);
+            sum += addend / 32 + addend % 32;
+            factor = factor == 2 ? 1 : 2;
+        }
+        return (32 - sum % 32) % 32;
+    }
+}
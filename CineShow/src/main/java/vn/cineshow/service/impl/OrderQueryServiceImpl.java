@@ -13,6 +13,8 @@ import vn.cineshow.enums.OrderStatus;
 import vn.cineshow.exception.AppException;
 import vn.cineshow.exception.ErrorCode;
 import vn.cineshow.model.*;
+import vn.cineshow.repository.DailyConcessionRollupRepository;
+import vn.cineshow.repository.DailySalesRollupRepository;
 import vn.cineshow.repository.OrderConcessionRepository;
 import vn.cineshow.repository.OrderRepository;
 import vn.cineshow.service.OrderQueryService;
@@ -35,6 +37,8 @@ public class OrderQueryServiceImpl implements OrderQueryService {
 
     private final OrderRepository orderRepository;
     private final OrderConcessionRepository orderConcessionRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final DailyConcessionRollupRepository dailyConcessionRollupRepository;
     private final OwnershipValidator ownershipValidator;
     private final QrPolicy qrPolicy;
     private final QrTokenService qrTokenService;
@@ -45,9 +49,29 @@ public class OrderQueryServiceImpl implements OrderQueryService {
 
     // ==================== Helper methods ====================
 
+    // Vé của đơn; đơn của suất chiếu cũ có vé đã chuyển sang tickets_archive
+    private List<Ticket> ticketsOf(Order order) {
+        if (order.getTickets() != null && !order.getTickets().isEmpty()) return order.getTickets();
+        if (order.getArchivedTickets() == null || order.getArchivedTickets().isEmpty()) return List.of();
+        return order.getArchivedTickets().stream()
+                .map(a -> {
+                    // bản sao chỉ để đọc, không gắn vào order nên không bao giờ được lưu lại
+                    Ticket t = Ticket.builder()
+                            .seat(a.getSeat())
+                            .showTime(a.getShowTime())
+                            .ticketPrice(a.getTicketPrice())
+                            .priceSnapshot(a.getPriceSnapshot())
+                            .status(a.getStatus())
+                            .build();
+                    t.setId(a.getId());
+                    return t;
+                })
+                .toList();
+    }
+
     private Ticket pickPrimaryTicket(Order order) {
-        if (order == null || order.getTickets() == null || order.getTickets().isEmpty()) return null;
-        return order.getTickets().stream()
+        if (order == null) return null;
+        return ticketsOf(order).stream()
                 .min(Comparator.comparing(t -> {
                     Seat s = t.getSeat();
                     String label = s != null
@@ -115,8 +139,7 @@ public class OrderQueryServiceImpl implements OrderQueryService {
     }
 
     private List<String> safeSeatLabels(Order order) {
-        if (order.getTickets() == null) return List.of();
-        return order.getTickets().stream()
+        return ticketsOf(order).stream()
                 .map(this::safeSeatLabel)
                 .filter(Objects::nonNull)
                 .sorted()
@@ -137,7 +160,7 @@ public class OrderQueryServiceImpl implements OrderQueryService {
         Ticket t = pickPrimaryTicket(order);
         if (t == null || t.getShowTime() == null) return null;
         Long showtimeId = t.getShowTime().getId();
-        List<Long> seatIds = order.getTickets() == null ? List.of() : order.getTickets().stream()
+        List<Long> seatIds = ticketsOf(order).stream()
                 .map(Ticket::getSeat)
                 .filter(Objects::nonNull)
                 .map(Seat::getId)
@@ -243,29 +266,31 @@ public class OrderQueryServiceImpl implements OrderQueryService {
             date = LocalDate.now();
         }
 
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+        // đọc từ bảng tổng hợp theo ngày: [doanh thu, số đơn, số vé]
+        List<Object[]> rows = dailySalesRollupRepository.sumBetween(date, date.plusDays(1));
+        Object[] totals = rows.isEmpty() ? new Object[]{0.0, 0L, 0L} : rows.get(0);
 
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalRevenueToday",
-                Optional.ofNullable(orderRepository.getRevenueByDate(startOfDay, endOfDay)).orElse(0.0));
-        summary.put("totalTicketsSold",
-                Optional.ofNullable(orderRepository.getTicketsByDate(startOfDay, endOfDay)).orElse(0L));
-        summary.put("totalCompletedOrders",
-                Optional.ofNullable(orderRepository.getCompletedOrdersByDate(startOfDay, endOfDay)).orElse(0L));
+        summary.put("totalRevenueToday", ((Number) totals[0]).doubleValue());
+        summary.put("totalTicketsSold", ((Number) totals[2]).longValue());
+        summary.put("totalCompletedOrders", ((Number) totals[1]).longValue());
         summary.put("totalConcessionsSold",
-                Optional.ofNullable(orderRepository.getConcessionSoldByDate(startOfDay, endOfDay)).orElse(0L));
+                Optional.ofNullable(dailyConcessionRollupRepository.sumQuantityBetween(date, date.plusDays(1))).orElse(0L));
 
         return summary;
     }
 
     @Override
     public OrderCheckTicketResponse checkTicketByOrderCode(String orderCode) {
+        // mã gõ sai (sai ký tự kiểm tra) -> không cần truy vấn DB
+        if (!OrderCodeGenerator.isWellFormed(orderCode)) {
+            throw new AppException(ErrorCode.ORDER_NOT_FOUND);
+        }
         Order order = orderRepository.findByCodeWithTickets(orderCode)
                 .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
 
-        List<OrderCheckTicketResponse.TicketInfo> ticketInfos = order.getTickets() == null ? List.of() :
-                order.getTickets().stream()
+        List<OrderCheckTicketResponse.TicketInfo> ticketInfos =
+                ticketsOf(order).stream()
                         .map(ticket -> {
                             Seat seat = ticket.getSeat();
                             ShowTime showTime = ticket.getShowTime();
@@ -382,9 +407,9 @@ public class OrderQueryServiceImpl implements OrderQueryService {
         List<OrderConcessionItem> concessions = getConcessionsByOrderId(o.getId());
 
         String reservationCode = null;
-        if (o.getTickets() != null && !o.getTickets().isEmpty()) {
-            Ticket t = pickPrimaryTicket(o);
-            reservationCode = safeTicketCode(t);
+        Ticket primary = pickPrimaryTicket(o);
+        if (primary != null) {
+            reservationCode = safeTicketCode(primary);
         }
         if (!notBlank.test(reservationCode) && o.getPayment() != null) {
             Payment p = o.getPayment();
@@ -0,0 +1,239 @@
+package vn.cineshow.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.enums.OutboxStatus;
+import vn.cineshow.model.OutboxEvent;
+import vn.cineshow.repository.OutboxEventRepository;
+import vn.cineshow.service.OutboxEventHandler;
+import vn.cineshow.service.OutboxService;
+import vn.cineshow.service.SchedulerLockService;
+
+/**
+ * Writes outbox rows inside the business transaction and relays them to the handlers.
+ * <p>
+ * A commit wakes the relay right away; the poller only catches what a wake-up missed (restart,
+ * other node, retries). The relay claims up to {@code booking.outbox.batch-size} due events with a
+ * per-batch token, hands each type its events in one call and, if that call fails, retries them one
+ * by one so a single bad event does not hold back the rest. Failed events back off exponentially and
+ * are parked as DEAD after {@code booking.outbox.max-attempts}.
+ */
+@Slf4j(topic = "OUTBOX")
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final Set<OutboxStatus> CLAIMABLE = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.FAILED);
+    private static final long MAX_BACKOFF_MS = 10 * 60 * 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final SchedulerLockService schedulerLockService;
+    private final Map<OutboxEventType, OutboxEventHandler> handlers = new EnumMap<>(OutboxEventType.class);
+
+    private final ExecutorService relay = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    @Value("${booking.outbox.batch-size:200}")
+    int batchSize;
+
+    @Value("${booking.outbox.max-attempts:5}")
+    int maxAttempts;
+
+    @Value("${booking.outbox.retry-base-ms:2000}")
+    long retryBaseMs;
+
+    @Value("${booking.outbox.processing-timeout-ms:60000}")
+    long processingTimeoutMs;
+
+    @Value("${booking.outbox.retention-days:7}")
+    int retentionDays;
+
+    public OutboxServiceImpl(OutboxEventRepository outboxEventRepository,
+                             ObjectMapper objectMapper,
+                             SchedulerLockService schedulerLockService,
+                             List<OutboxEventHandler> handlerList) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.schedulerLockService = schedulerLockService;
+        handlerList.forEach(h -> handlers.put(h.type(), h));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxEventType type, String aggregateId, BookingOutboxPayload payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox event " + type + " of " + aggregateId, e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-ms:1000}", initialDelay = 10000)
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = outboxEventRepository.releaseStale(now.minus(Duration.ofMillis(processingTimeoutMs)), now);
+        if (released > 0) {
+            log.warn("Released {} outbox events stuck in PROCESSING", released);
+        }
+        wakeUp();
+    }
+
+    @Scheduled(cron = "0 15 4 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void purgeSent() {
+        schedulerLockService.runExclusively("outboxPurge", () -> {
+            int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+            log.info("Purged {} sent outbox events older than {} days", deleted, retentionDays);
+        });
+    }
+
+    private void wakeUp() {
+        if (queued.compareAndSet(false, true)) {
+            relay.submit(() -> {
+                // cleared before draining so events committed meanwhile trigger another pass
+                queued.set(false);
+                try {
+                    while (relayBatch() == batchSize) {
+                        // full batch: more may be waiting
+                    }
+                } catch (Exception e) {
+                    log.error("Outbox relay failed: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxEventRepository.findDueIds(CLAIMABLE, now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) return 0;
+
+        String token = UUID.randomUUID().toString();
+        if (outboxEventRepository.claim(ids, token, CLAIMABLE, now) == 0) {
+            return ids.size(); // taken by another node, look for more
+        }
+        List<OutboxEvent> events = outboxEventRepository.findByClaimTokenOrderById(token);
+
+        Map<OutboxEventType, List<OutboxEvent>> byType = new EnumMap<>(OutboxEventType.class);
+        Map<OutboxEvent, BookingOutboxPayload> payloads = new HashMap<>();
+        for (OutboxEvent event : events) {
+            try {
+                payloads.put(event, objectMapper.readValue(event.getPayload(), BookingOutboxPayload.class));
+                byType.computeIfAbsent(event.getType(), k -> new ArrayList<>()).add(event);
+            } catch (Exception e) {
+                markDead(event, "Unreadable payload: " + e.getMessage());
+            }
+        }
+
+        byType.forEach((type, group) -> {
+            OutboxEventHandler handler = handlers.get(type);
+            if (handler == null) {
+                group.forEach(e -> markDead(e, "No handler for " + type));
+                return;
+            }
+            try {
+                handler.handle(group.stream().map(payloads::get).toList());
+                group.forEach(this::markSent);
+            } catch (Exception batchError) {
+                log.warn("Outbox batch of {} {} events failed, retrying one by one: {}",
+                        group.size(), type, batchError.getMessage());
+                for (OutboxEvent event : group) {
+                    try {
+                        handler.handle(List.of(payloads.get(event)));
+                        markSent(event);
+                    } catch (Exception e) {
+                        markFailed(event, e);
+                    }
+                }
+            }
+        });
+
+        outboxEventRepository.saveAll(events);
+        return ids.size();
+    }
+
+    private void markSent(OutboxEvent event) {
+        event.setStatus(OutboxStatus.SENT);
+        event.setSentAt(LocalDateTime.now());
+        event.setClaimToken(null);
+        event.setLastError(null);
+    }
+
+    private void markFailed(OutboxEvent event, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (event.getAttempts() >= maxAttempts) {
+            log.error("Outbox event {} ({} of {}) moved to DEAD after {} attempts: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), event.getAttempts(), error, e);
+            markDead(event, error);
+            return;
+        }
+        long backoff = Math.min(retryBaseMs << (event.getAttempts() - 1), MAX_BACKOFF_MS);
+        event.setStatus(OutboxStatus.FAILED);
+        event.setClaimToken(null);
+        event.setLastError(truncate(error));
+        event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+        log.warn("Outbox event {} ({} of {}) failed (attempt {}), retry in {} ms: {}",
+                event.getId(), event.getType(), event.getAggregateId(), event.getAttempts(), backoff, error);
+    }
+
+    private void markDead(OutboxEvent event, String error) {
+        event.setStatus(OutboxStatus.DEAD);
+        event.setClaimToken(null);
+        event.setLastError(truncate(error));
+    }
+
+    private static String truncate(String error) {
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdown();
+    }
+}
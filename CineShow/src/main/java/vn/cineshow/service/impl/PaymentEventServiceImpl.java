@@ -0,0 +1,200 @@
+package vn.cineshow.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.enums.PaymentEventStatus;
+import vn.cineshow.exception.AppException;
+import vn.cineshow.model.PaymentEvent;
+import vn.cineshow.repository.PaymentEventRepository;
+import vn.cineshow.service.PaymentEventService;
+import vn.cineshow.service.PaymentIpnService;
+
+/**
+ * IPN callbacks are stored first and applied by a bounded worker pool.
+ * <p>
+ * An event is claimed with a conditional UPDATE, so on any number of nodes only one worker applies it.
+ * A failure is retried with exponential backoff up to {@code booking.payment.ipn.max-attempts}, then the
+ * event is parked as DEAD for manual handling. The sweeper picks up events the pool could not take,
+ * retries that became due and events left PROCESSING by a worker that died.
+ */
+@Slf4j(topic = "PAYMENT-EVENT")
+@Service
+@RequiredArgsConstructor
+public class PaymentEventServiceImpl implements PaymentEventService {
+
+    private static final Set<PaymentEventStatus> CLAIMABLE = EnumSet.of(PaymentEventStatus.RECEIVED, PaymentEventStatus.FAILED);
+    private static final Set<PaymentEventStatus> PENDING = EnumSet.of(
+            PaymentEventStatus.RECEIVED, PaymentEventStatus.PROCESSING, PaymentEventStatus.FAILED);
+    private static final TypeReference<Map<String, String>> PARAMS_TYPE = new TypeReference<>() {};
+    private static final int SWEEP_BATCH = 100;
+    private static final long MAX_BACKOFF_MS = 10 * 60 * 1000;
+
+    private final PaymentEventRepository paymentEventRepository;
+    private final PaymentIpnService paymentIpnService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${booking.payment.ipn.workers:4}")
+    int workers;
+
+    @Value("${booking.payment.ipn.queue-capacity:1000}")
+    int queueCapacity;
+
+    @Value("${booking.payment.ipn.max-attempts:5}")
+    int maxAttempts;
+
+    @Value("${booking.payment.ipn.retry-base-ms:5000}")
+    long retryBaseMs;
+
+    @Value("${booking.payment.ipn.processing-timeout-ms:120000}")
+    long processingTimeoutMs;
+
+    private ThreadPoolExecutor pool;
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "payment-ipn-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public boolean record(String txnRef, String transactionNo, Map<String, String> params) {
+        String dedupNo = Objects.toString(transactionNo, "");
+        if (paymentEventRepository.findByTxnRefAndTransactionNo(txnRef, dedupNo).isPresent()) {
+            return false;
+        }
+
+        PaymentEvent event;
+        try {
+            event = paymentEventRepository.saveAndFlush(PaymentEvent.builder()
+                    .txnRef(txnRef)
+                    .transactionNo(dedupNo)
+                    .payload(objectMapper.writeValueAsString(params))
+                    .status(PaymentEventStatus.RECEIVED)
+                    .paid("00".equals(params.get("vnp_ResponseCode")) && "00".equals(params.get("vnp_TransactionStatus")))
+                    .nextAttemptAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // the same callback was recorded concurrently
+            return false;
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot record IPN of order " + txnRef, e);
+        }
+
+        dispatch(event.getId());
+        return true;
+    }
+
+    @Override
+    public boolean isPending(String txnRef) {
+        return paymentEventRepository.findFirstByTxnRefOrderByIdDesc(txnRef)
+                .map(e -> PENDING.contains(e.getStatus()))
+                .orElse(false);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.payment.ipn.sweep-ms:5000}", initialDelay = 10000)
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = paymentEventRepository.releaseStale(now.minus(Duration.ofMillis(processingTimeoutMs)), now);
+        if (released > 0) {
+            log.warn("Released {} IPN events stuck in PROCESSING", released);
+        }
+
+        int room = pool.getQueue().remainingCapacity();
+        if (room == 0) return;
+        List<Long> due = paymentEventRepository.findDueIds(CLAIMABLE, now, PageRequest.of(0, Math.min(room, SWEEP_BATCH)));
+        due.forEach(this::dispatch);
+    }
+
+    private void dispatch(Long eventId) {
+        try {
+            pool.execute(() -> process(eventId));
+        } catch (RejectedExecutionException e) {
+            log.warn("IPN worker queue full, event {} left for the sweeper", eventId);
+        }
+    }
+
+    private void process(Long eventId) {
+        if (paymentEventRepository.claim(eventId, CLAIMABLE, LocalDateTime.now()) == 0) {
+            return; // taken by another worker, already done, or not due yet
+        }
+        PaymentEvent event = paymentEventRepository.findById(eventId).orElse(null);
+        if (event == null) return;
+
+        Map<String, String> params = null;
+        try {
+            params = objectMapper.readValue(event.getPayload(), PARAMS_TYPE);
+            paymentIpnService.applyIpn(params);
+            event.setStatus(PaymentEventStatus.PROCESSED);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+            paymentEventRepository.save(event);
+            log.info("Applied IPN of order {} (attempt {})", event.getTxnRef(), event.getAttempts());
+
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            event.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+            // business errors (e.g. seats sold meanwhile) do not go away by retrying
+            if (e instanceof AppException || event.getAttempts() >= maxAttempts) {
+                event.setStatus(PaymentEventStatus.DEAD);
+                log.error("IPN of order {} moved to DEAD after {} attempts: {}",
+                        event.getTxnRef(), event.getAttempts(), error, e);
+                if (e instanceof AppException && Boolean.TRUE.equals(event.getPaid()) && params != null) {
+                    markRefundRequired(event, params, error);
+                }
+            } else {
+                long backoff = Math.min(retryBaseMs << (event.getAttempts() - 1), MAX_BACKOFF_MS);
+                event.setStatus(PaymentEventStatus.FAILED);
+                event.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+                log.warn("IPN of order {} failed (attempt {}), retry in {} ms: {}",
+                        event.getTxnRef(), event.getAttempts(), backoff, error);
+            }
+            paymentEventRepository.save(event);
+        }
+    }
+
+    // the customer paid but the order cannot be fulfilled: keep that on the payment, not only in this event
+    private void markRefundRequired(PaymentEvent event, Map<String, String> params, String reason) {
+        try {
+            paymentIpnService.markRefundRequired(params, reason);
+        } catch (Exception e) {
+            log.error("Cannot mark payment of order {} as REFUND_REQUIRED: {}", event.getTxnRef(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
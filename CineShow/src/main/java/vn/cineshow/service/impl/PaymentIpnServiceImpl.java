@@ -0,0 +1,203 @@
+package vn.cineshow.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OrderStatus;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.enums.PaymentStatus;
+import vn.cineshow.enums.TicketStatus;
+import vn.cineshow.exception.AppException;
+import vn.cineshow.exception.ErrorCode;
+import vn.cineshow.model.Concession;
+import vn.cineshow.model.Order;
+import vn.cineshow.model.OrderConcession;
+import vn.cineshow.model.Payment;
+import vn.cineshow.model.Ticket;
+import vn.cineshow.model.User;
+import vn.cineshow.repository.ConcessionRepository;
+import vn.cineshow.repository.OrderRepository;
+import vn.cineshow.repository.PaymentRepository;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.repository.UserRepository;
+import vn.cineshow.service.OutboxService;
+import vn.cineshow.service.PaymentIpnService;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentIpnServiceImpl implements PaymentIpnService {
+
+    private static final Set<TicketStatus> BOOKABLE = EnumSet.of(TicketStatus.AVAILABLE, TicketStatus.HELD);
+
+    private final PaymentRepository paymentRepository;
+    private final TicketRepository ticketRepository;
+    private final OrderRepository orderRepository;
+    private final ConcessionRepository concessionRepository;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+
+    @Override
+    @Transactional
+    public void applyIpn(Map<String, String> params) {
+        // 1. Lấy payment theo mã txnRef (khoá dòng: hai callback cùng đơn không chạy song song)
+        String txnRef = params.get("vnp_TxnRef");
+        Payment payment = paymentRepository.findByTxnRefForUpdate(txnRef)
+                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+
+        Order order = payment.getOrder();
+        User user = order.getUser();
+
+        // vé của lần checkout, không lấy theo order.getTickets(): vé có thể đã bị gán sang đơn khác
+        List<Long> ticketIds = checkoutTicketIds(payment, order);
+        Long userId = user.getId();
+        Long showTimeId = ticketIds.isEmpty() ? null : ticketRepository.findById(ticketIds.get(0))
+                .map(t -> t.getShowTime().getId())
+                .orElse(null);
+
+        // 2. Đã xử lý rồi (callback lặp lại) -> chỉ dọn Redis
+        if (payment.getPaymentStatus() != PaymentStatus.PENDING) {
+            if (payment.getPaymentStatus() == PaymentStatus.FAILED
+                    && "00".equals(params.get("vnp_ResponseCode")) && "00".equals(params.get("vnp_TransactionStatus"))) {
+                // đơn đã bị huỷ (quá hạn) trong lúc khách vẫn thanh toán: tiền đã trừ mà không có vé
+                refundRequired(payment, params.get("vnp_TransactionNo"), "paid after the order was canceled");
+            } else {
+                log.info("IPN already applied — order={}, status={}", txnRef, payment.getPaymentStatus());
+            }
+            releaseHold(txnRef, showTimeId, userId);
+            return;
+        }
+
+        // 3. Lấy các mã trạng thái
+        String responseCode = params.get("vnp_ResponseCode");
+        String transactionStatus = params.get("vnp_TransactionStatus");
+        String vnpTransactionNo = params.get("vnp_TransactionNo");
+
+        List<OrderConcession> orderConcessions = order.getOrderConcession();
+
+        // 4. Xử lý kết quả thanh toán
+        if ("00".equals(responseCode) && "00".equals(transactionStatus)) {
+            if (ticketIds.isEmpty() || showTimeId == null) {
+                log.error("Ticket conflict — order={}, no checkout tickets left to book, payment needs manual refund",
+                        txnRef);
+                throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
+            }
+
+            // BOOKED + snapshot giá vé trong 1 câu UPDATE, chỉ với vé còn trống -> không bán trùng ghế
+            int booked = ticketRepository.bookForOrder(ticketIds, order, BOOKABLE, LocalDateTime.now());
+            if (booked != ticketIds.size()) {
+                log.error("Ticket conflict — order={}, booked {}/{} tickets, payment needs manual refund",
+                        txnRef, booked, ticketIds.size());
+                throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
+            }
+
+            payment.setTransactionNo(vnpTransactionNo);
+            payment.setPaymentStatus(PaymentStatus.COMPLETED);
+            order.setOrderStatus(OrderStatus.COMPLETED);
+
+            for (OrderConcession oc : orderConcessions) {
+                Concession concession = oc.getConcession();
+                concession.setUnitInStock(Math.max(concession.getUnitInStock() - oc.getQuantity(), 0));
+            }
+
+            int usedPoints = 0;
+            if (order.getDiscount() != null && order.getDiscount() > 0) {
+                usedPoints = (int) (order.getDiscount() / 1000);
+                user.setLoyalPoint(Math.max(0, user.getLoyalPoint() - usedPoints));
+            }
+
+            int earnedPoints = (int) Math.floor(order.getTotalPrice() / 10000);
+            int newPoints = Math.max(0, user.getLoyalPoint() - usedPoints + earnedPoints);
+
+            user.setLoyalPoint(newPoints);
+
+            orderRepository.save(order);
+            userRepository.save(user);
+            concessionRepository.saveAll(orderConcessions.stream().map(OrderConcession::getConcession).toList());
+
+            // Đánh dấu ghế đã bán + broadcast + email: gửi sau khi commit qua outbox
+            outboxService.enqueue(OutboxEventType.SEATS_BOOKED, txnRef, BookingOutboxPayload.builder()
+                    .showtimeId(showTimeId)
+                    .ticketIds(ticketIds)
+                    .build());
+            outboxService.enqueue(OutboxEventType.BOOKING_CONFIRMED, txnRef, BookingOutboxPayload.builder()
+                    .orderCode(txnRef)
+                    .userId(userId)
+                    .ticketIds(ticketIds)
+                    .totalPrice(order.getTotalPrice())
+                    .email(user.getAccount() != null ? user.getAccount().getEmail() : null)
+                    .build());
+            outboxService.enqueue(OutboxEventType.SALES_CHANGED, txnRef, BookingOutboxPayload.builder()
+                    .orderCode(txnRef)
+                    .build());
+
+            log.info(" Payment SUCCESS — order={}, transactionNo={}", txnRef, vnpTransactionNo);
+
+        } else {
+            payment.setTransactionNo(vnpTransactionNo);
+            payment.setPaymentStatus(PaymentStatus.FAILED);
+            order.setOrderStatus(OrderStatus.CANCELED);
+            orderRepository.save(order);
+            paymentRepository.save(payment);
+            log.warn("Payment FAILED — order={}, code={}", txnRef, responseCode);
+        }
+
+        // 5. Xoá OrderSession + SeatHold sau commit. Khi lỗi (rollback, sẽ thử lại) ghế vẫn được giữ cho người mua
+        releaseHold(txnRef, showTimeId, userId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markRefundRequired(Map<String, String> params, String reason) {
+        String txnRef = params.get("vnp_TxnRef");
+        Payment payment = paymentRepository.findByTxnRefForUpdate(txnRef).orElse(null);
+        if (payment == null || payment.getPaymentStatus() != PaymentStatus.PENDING) {
+            return;
+        }
+
+        refundRequired(payment, params.get("vnp_TransactionNo"), reason);
+    }
+
+    // tiền đã bị trừ: giữ lại dấu vết trên payment để vận hành hoàn tiền, huỷ đơn để trả các ghế còn lại
+    private void refundRequired(Payment payment, String transactionNo, String reason) {
+        payment.setTransactionNo(transactionNo);
+        payment.setPaymentStatus(PaymentStatus.REFUND_REQUIRED);
+        payment.getOrder().setOrderStatus(OrderStatus.CANCELED);
+        paymentRepository.save(payment);
+        orderRepository.save(payment.getOrder());
+        log.error("Payment REFUND_REQUIRED — order={}, transactionNo={}: {}", payment.getTxnRef(), transactionNo, reason);
+    }
+
+    /**
+     * Ticket ids recorded on the payment at checkout. Payments created before that column existed
+     * fall back to the tickets currently linked to the order.
+     */
+    private List<Long> checkoutTicketIds(Payment payment, Order order) {
+        if (payment.getTicketIds() == null) {
+            return order.getTickets().stream().map(Ticket::getId).toList();
+        }
+        return Arrays.stream(payment.getTicketIds().split(","))
+                .filter(id -> !id.isBlank())
+                .map(id -> Long.valueOf(id.trim()))
+                .toList();
+    }
+
+    private void releaseHold(String txnRef, Long showTimeId, Long userId) {
+        if (showTimeId == null) return; // không còn vé nào để biết suất chiếu, hold tự hết hạn
+        outboxService.enqueue(OutboxEventType.HOLD_RELEASED, txnRef, BookingOutboxPayload.builder()
+                .showtimeId(showTimeId)
+                .userId(userId)
+                .build());
+    }
+}
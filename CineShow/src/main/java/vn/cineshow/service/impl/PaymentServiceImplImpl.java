@@ -4,20 +4,22 @@ package vn.cineshow.service.impl;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TimeZone;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,9 +28,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import vn.cineshow.config.VNPayProperties;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
 import vn.cineshow.dto.redis.OrderSessionDTO;
 import vn.cineshow.dto.request.payment.CheckoutRequest;
 import vn.cineshow.enums.OrderStatus;
+import vn.cineshow.enums.OutboxEventType;
 import vn.cineshow.enums.PaymentStatus;
 import vn.cineshow.enums.TicketStatus;
 import vn.cineshow.exception.AppException;
@@ -42,15 +46,16 @@ import vn.cineshow.model.Ticket;
 import vn.cineshow.model.User;
 import vn.cineshow.model.ids.OrderConcessionId;
 import vn.cineshow.repository.ConcessionRepository;
-import vn.cineshow.repository.OrderConcessionRepository;
 import vn.cineshow.repository.OrderRepository;
 import vn.cineshow.repository.PaymentMethodRepository;
 import vn.cineshow.repository.PaymentRepository;
 import vn.cineshow.repository.TicketRepository;
 import vn.cineshow.repository.UserRepository;
-import vn.cineshow.service.BookingService;
+import vn.cineshow.service.OutboxService;
+import vn.cineshow.service.PaymentEventService;
 import vn.cineshow.service.PaymentServiceImpl;
 import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SeatHoldService;
 
 @Service
 @RequiredArgsConstructor
@@ -60,14 +65,20 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
     private final PaymentRepository paymentRepository; //
     private final VNPayProperties vnpayProperties;//
     private final OrderRepository orderRepository;
-    private final OrderConcessionRepository orderConcessionRepository; //
     private final ConcessionRepository concessionRepository; //
     private final PaymentMethodRepository paymentMethodRepository; //
     private final TicketRepository ticketRepository; //
     private final UserRepository userRepository;//
     private final RedisService redisService; //
-    private final BookingService bookingService; //
+    private final SeatHoldService seatHoldService;
+    private final OutboxService outboxService;
+    private final PaymentEventService paymentEventService;
+    private final VNPaySigner vnPaySigner;
+    private final OrderCodeGenerator orderCodeGenerator;
+
 
+    // vé còn bán được; ghế đang giữ nằm ở Redis nên trong DB vẫn là AVAILABLE
+    private static final Set<TicketStatus> BOOKABLE = EnumSet.of(TicketStatus.AVAILABLE, TicketStatus.HELD);
 
     @Value("${booking.ttl.payment}")
     long HOLD_DURATION;
@@ -81,90 +92,64 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
             User user = userRepository.findById(checkoutRequest.getUserId())
                     .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
-            // 2️⃣ Tạo Order (chưa gắn ticket, chỉ setup metadata)
+            Long userId = checkoutRequest.getUserId();
+            Long showTimeId = checkoutRequest.getShowtimeId();
+            String orderSessionKey = String.format("orderSession:showtime:%d:userId:%d", showTimeId, userId);
+
+            // 2️⃣ Đối chiếu với OrderSession trong Redis: vé thanh toán phải đúng các vé đã chọn.
+            // Không còn session (hết hạn / chưa tạo) cũng coi là không khớp, không bỏ qua kiểm tra
+            OrderSessionDTO session = redisService.exists(orderSessionKey)
+                    ? redisService.get(orderSessionKey, OrderSessionDTO.class)
+                    : null;
+            if (session == null || session.getTicketIds() == null
+                    || !new HashSet<>(session.getTicketIds()).equals(new HashSet<>(checkoutRequest.getTicketIds()))) {
+                log.warn("Checkout tickets {} do not match order session {}", checkoutRequest.getTicketIds(),
+                        session != null ? session.getTicketIds() : null);
+                throw new AppException(ErrorCode.ORDER_SESSION_MISMATCH);
+            }
+
+            PaymentMethod paymentMethod = paymentMethodRepository
+                    .findByPaymentCodeIgnoreCase(checkoutRequest.getPaymentCode())
+                    .orElseThrow(() -> new AppException(ErrorCode.PAYMENT_METHOD_NOT_FOUND));
+
+            // 3️⃣ Tạo Order + gán Ticket (1 query cho tất cả vé)
             Order order = Order.builder()
                     .user(user)
                     .totalPrice(checkoutRequest.getTotalPrice())
                     .discount(checkoutRequest.getDiscount())
                     .orderStatus(OrderStatus.PENDING)
+                    .code(orderCodeGenerator.next())
                     .build();
 
-            // 3️⃣ Lấy danh sách Ticket và gán luôn quan hệ hai chiều
-            List<Ticket> tickets = new ArrayList<>(checkoutRequest.getTicketIds().size());
-            for (Long id : checkoutRequest.getTicketIds()) {
-                Ticket t = ticketRepository.findById(id)
-                        .orElseThrow(() -> new AppException(ErrorCode.TICKET_NOT_FOUND));
-                t.setOrder(order); // gán chiều ngược
-                tickets.add(t);
-            }
+            List<Ticket> tickets = loadTickets(checkoutRequest);
+            tickets.forEach(t -> t.setOrder(order)); // gán chiều ngược
             order.setTickets(tickets);
 
-            ticketRepository.saveAll(tickets);
-
-            // 4️⃣ Lưu Order (cascade tickets nếu có CascadeType.MERGE)
-            orderRepository.save(order);
-
-            // 4️⃣ Tạo OrderConcession
-            List<OrderConcession> orderConcessions = checkoutRequest.getConcessions().stream()
-                    .map(cor -> {
-                        Concession c = concessionRepository.findById(cor.getConcessionId())
-                                .orElseThrow(() -> new AppException(ErrorCode.CONCESSION_NOT_FOUND));
-                        return OrderConcession.builder()
-                                .order(order)
-                                .concession(c)
-                                .orderConcessionId(new OrderConcessionId(order.getId(), c.getId()))
-                                .quantity(cor.getQuantity())
-                                .unitPrice(c.getPrice())
-                                .priceSnapshot(c.getPrice() * cor.getQuantity())
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-            orderConcessionRepository.saveAll(orderConcessions);
-
-            // 5️⃣ Tạo Payment
-            PaymentMethod paymentMethod = paymentMethodRepository
-                    .findByPaymentCodeIgnoreCase(checkoutRequest.getPaymentCode())
-                    .orElseThrow(() -> new AppException(ErrorCode.PAYMENT_METHOD_NOT_FOUND));
+            // 4️⃣ OrderConcession (1 query cho tất cả combo)
+            order.setOrderConcession(buildOrderConcessions(order, checkoutRequest.getConcessions()));
 
+            // 5️⃣ Payment
             Payment payment = Payment.builder()
                     .order(order)
                     .method(paymentMethod)
                     .amount(checkoutRequest.getAmount())
                     .txnRef(order.getCode())
+                    .ticketIds(joinTicketIds(tickets))
                     .paymentStatus(PaymentStatus.PENDING)
                     .build();
-//            paymentRepository.save(payment);
             order.setPayment(payment);
 
-            // ORDER cascade payment, cascade orderConcession
+            // Lưu 1 lần: cascade payment + orderConcession, vé cập nhật theo batch khi flush
             orderRepository.save(order);
 
             // 6️⃣ Cập nhật TTL cho OrderSession và SeatHold trong Redis
-            Long userId = checkoutRequest.getUserId();
-            Long showTimeId = checkoutRequest.getShowtimeId();
-
-                // Build Redis keys
-            String orderSessionKey = String.format("orderSession:showtime:%d:userId:%d", showTimeId, userId);
-            String seatHoldKey = String.format("seatHold:showtime:%d:user:%d", showTimeId, userId);
-
             try {
-                // ----  Cập nhật TTL cho OrderSession và SeatHold nếu tồn tại ----
-                if (redisService.exists(orderSessionKey)) {
-                    OrderSessionDTO session = redisService.get(orderSessionKey, OrderSessionDTO.class);
+                // ----  Cập nhật TTL cho OrderSession và SeatHold ----
+                redisService.save(orderSessionKey, session, HOLD_DURATION);
+                log.info("[REDIS TTL][ORDER_SESSION] Extended TTL for key={} to {} seconds", orderSessionKey, HOLD_DURATION);
 
-                    redisService.expire(orderSessionKey, Duration.ofSeconds(HOLD_DURATION));
-                    redisService.save(orderSessionKey, session, HOLD_DURATION);
-                    log.info("[REDIS TTL][ORDER_SESSION] Extended TTL for key={} to {} seconds", orderSessionKey, HOLD_DURATION);
-                } else {
-                    log.warn("[REDIS TTL][ORDER_SESSION] Key not found, cannot extend TTL: {}", orderSessionKey);
-                }
-
-                if (redisService.exists(seatHoldKey)) {
-                    redisService.expire(seatHoldKey, Duration.ofSeconds(HOLD_DURATION));
-                    log.info("[REDIS TTL][SEAT_HOLD] Extended TTL for key={} to {} seconds", seatHoldKey, HOLD_DURATION);
-                } else {
-                    log.warn("[REDIS TTL][SEAT_HOLD] Key not found, cannot extend TTL: {}", seatHoldKey);
-                }
+                // seat hold + hold index entries of the user
+                seatHoldService.extendHold(showTimeId, userId, HOLD_DURATION);
 
             } catch (Exception ex) {
                 log.error("[REDIS UPDATE][ORDER_SESSION] Error updating TTL for user={}, showtime={}",
@@ -216,14 +201,13 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 }
             }
 
-            String vnp_SecureHash = hmacSHA512(vnpayProperties.getHashSecret(), hashPayload.toString());
+            String vnp_SecureHash = vnPaySigner.sign(hashPayload.toString());
             String paymentUrl = vnpayProperties.getPayUrl() + "?" + query + "&vnp_SecureHash=" + vnp_SecureHash;
 
 
             //8.trả về
             log.info("======== VNPay Checksum Debug ========");
             log.info("RAW DATA: {}", hashPayload);
-            log.info("SECRET: {}", vnpayProperties.getHashSecret());
             log.info("SECURE HASH: {}", vnp_SecureHash);
             log.info("FULL PAY URL: {}", paymentUrl);
             log.info("======================================");
@@ -241,19 +225,20 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
         }
     }
 
+    /**
+     * Only verifies and records the callback; the order is updated by the IPN workers
+     * (see PaymentEventServiceImpl), so the gateway gets its answer without waiting for it.
+     */
     @Override
-    @Transactional
     public Map<String, String> handleIPN(Map<String, String> params) {
         Map<String, String> response = new HashMap<>();
-        String orderSessionKey = null;
-        String seatHoldKey = null;
 
         try {
             log.info("===== VNPay IPN Callback =====");
             log.info("Params: {}", params);
 
             // 1️⃣ Checksum validation
-            if (!isValidChecksum(params)) {
+            if (!vnPaySigner.isValidChecksum(params)) {
                 response.put("RspCode", "97");
                 response.put("Message", "Invalid Checksum");
                 return response;
@@ -269,25 +254,18 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 return response;
             }
 
-            // 3. Chuẩn bị key Redis (xoá sau này)
-            Order order = payment.getOrder();
-            User user = order.getUser();
-            List<Ticket> tickets = order.getTickets();
-
-            Long userId = user.getId();
-            Long showTimeId = tickets.get(0).getShowTime().getId();
-            orderSessionKey = "orderSession:showtime:" + showTimeId + ":userId:" + userId;
-            seatHoldKey = "seatHold:showtime:" + showTimeId + ":user:" + userId;
-
-            // 4. Kiểm tra trạng thái payment
-            if (payment.getPaymentStatus() != PaymentStatus.PENDING) {
+            // 3. Kiểm tra trạng thái payment. Đơn đã huỷ vì quá hạn mà khách vẫn trả tiền thành công:
+            //    vẫn ghi nhận để worker chuyển payment sang REFUND_REQUIRED
+            boolean paidAfterExpiry = payment.getPaymentStatus() == PaymentStatus.FAILED
+                    && "00".equals(params.get("vnp_ResponseCode")) && "00".equals(params.get("vnp_TransactionStatus"));
+            if (payment.getPaymentStatus() != PaymentStatus.PENDING && !paidAfterExpiry) {
                 log.info("Order already confirmed, status={}", payment.getPaymentStatus());
                 response.put("RspCode", "02");
                 response.put("Message", "Order already confirmed");
                 return response;
             }
 
-            // 5. Kiểm tra số tiền hợp lệ
+            // 4. Kiểm tra số tiền hợp lệ
             long amountFromVNPay = Long.parseLong(params.get("vnp_Amount")) / 100;
             if (amountFromVNPay != payment.getAmount().longValue()) {
                 log.warn("Invalid Amount. DB={}, VNPAY={}", payment.getAmount(), amountFromVNPay);
@@ -296,63 +274,12 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 return response;
             }
 
-            // 6. Lấy các mã trạng thái
-            String responseCode = params.get("vnp_ResponseCode");
-            String transactionStatus = params.get("vnp_TransactionStatus");
-            String vnpTransactionNo = params.get("vnp_TransactionNo");
-
-            List<OrderConcession> orderConcessions = order.getOrderConcession();
-
-            // 8. Xử lý kết quả thanh toán
-            if ("00".equals(responseCode) && "00".equals(transactionStatus)) {
-                payment.setTransactionNo(vnpTransactionNo);
-                payment.setPaymentStatus(PaymentStatus.COMPLETED);
-                order.setOrderStatus(OrderStatus.COMPLETED);
-
-                for (Ticket ticket : tickets) {
-                    ticket.setStatus(TicketStatus.BOOKED);
-                    ticket.setPriceSnapshot(ticket.getTicketPrice().getPrice());
-                }
-
-                for (OrderConcession oc : orderConcessions) {
-                    Concession concession = oc.getConcession();
-                    concession.setUnitInStock(Math.max(concession.getUnitInStock() - oc.getQuantity(), 0));
-                }
-
-                int usedPoints = 0;
-                if (order.getDiscount() != null && order.getDiscount() > 0) {
-                    usedPoints = (int) (order.getDiscount() / 1000);
-                    user.setLoyalPoint(Math.max(0, user.getLoyalPoint() - usedPoints));
-                }
-
-                int earnedPoints = (int) Math.floor(order.getTotalPrice() / 10000);
-                int newPoints = Math.max(0, user.getLoyalPoint() - usedPoints + earnedPoints);
-
-                user.setLoyalPoint(newPoints);
-
-                orderRepository.save(order);
-                userRepository.save(user);
-                concessionRepository.saveAll(orderConcessions.stream().map(OrderConcession::getConcession).toList());
-
-                // Broadcast booked seats via WebSocket
-                List<Long> ticketIds = tickets.stream().map(Ticket::getId).toList();
-                bookingService.broadcastBooked(showTimeId, ticketIds);
-
-                log.info(" Payment SUCCESS — order={}, transactionNo={}", txnRef, vnpTransactionNo);
-                response.put("RspCode", "00");
-                response.put("Message", "Confirm Success");
-
-            } else {
-                payment.setTransactionNo(vnpTransactionNo);
-                payment.setPaymentStatus(PaymentStatus.FAILED);
-                order.setOrderStatus(OrderStatus.CANCELED);
-                orderRepository.save(order);
-                paymentRepository.save(payment);
-                log.warn("Payment FAILED — order={}, code={}", txnRef, responseCode);
-                response.put("RspCode", "00");
-                response.put("Message", "Confirm Success");
+            // 5. Ghi nhận callback (chống trùng theo txnRef + transactionNo), xử lý nền
+            if (!paymentEventService.record(txnRef, params.get("vnp_TransactionNo"), params)) {
+                log.info("Duplicate IPN ignored — order={}, transactionNo={}", txnRef, params.get("vnp_TransactionNo"));
             }
-
+            response.put("RspCode", "00");
+            response.put("Message", "Confirm Success");
             return response;
 
         } catch (Exception e) {
@@ -360,23 +287,6 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
             response.put("RspCode", "99");
             response.put("Message", "Unknown error");
             return response;
-
-        } finally {
-            // Xoá key Redis dù có lỗi, return sớm hay exception
-            //  Xoá key Redis nếu tồn tại
-            if (orderSessionKey != null && redisService.exists(orderSessionKey)) {
-                redisService.delete(orderSessionKey);
-                log.info("[REDIS CLEANUP] Deleted orderSessionKey={}", orderSessionKey);
-            } else if (orderSessionKey != null) {
-                log.info("[REDIS CLEANUP] orderSessionKey={} not found (already expired or removed)", orderSessionKey);
-            }
-
-            if (seatHoldKey != null && redisService.exists(seatHoldKey)) {
-                redisService.delete(seatHoldKey);
-                log.info("[REDIS CLEANUP] Deleted seatHoldKey={}", seatHoldKey);
-            } else if (seatHoldKey != null) {
-                log.info("[REDIS CLEANUP] seatHoldKey={} not found (already expired or removed)", seatHoldKey);
-            }
         }
     }
 
@@ -386,14 +296,15 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
     public Map<String, Object> handleReturn(Map<String, String> params) {
         Map<String, Object> response = new HashMap<>();
 
-        String orderSessionKey = null;
-        String seatHoldKey = null;
+        String orderCode = null;
+        Long seatHoldShowtimeId = null;
+        Long seatHoldUserId = null;
         try {
             log.info("===== VNPay Return URL Callback =====");
             log.info("Params: {}", params);
 
             // 1  Checksum validation
-            if (!isValidChecksum(params)) {
+            if (!vnPaySigner.isValidChecksum(params)) {
                 response.put("RspCode", "97");
                 response.put("Message", "Invalid Checksum");
                 return response;
@@ -420,8 +331,9 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
 
             Long userId = user.getId();
             Long showTimeId = tickets.get(0).getShowTime().getId();
-            orderSessionKey = "orderSession:showtime:" + showTimeId + ":userId:" + userId;
-            seatHoldKey = "seatHold:showtime:" + showTimeId + ":user:" + userId;
+            orderCode = txnRef;
+            seatHoldShowtimeId = showTimeId;
+            seatHoldUserId = userId;
 
             // 4. Xử lý hiển thị
             if ("00".equals(responseCode) && "00".equals(transactionStatus)) {
@@ -432,6 +344,10 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 if (dbCompleted) {
                     response.put("status", "SUCCESS");
                     response.put("message", "Thanh toán thành công");
+                } else if (paymentEventService.isPending(txnRef)) {
+                    // IPN received, still being applied by the workers
+                    response.put("status", "PENDING");
+                    response.put("message", "Thanh toán đang được xử lý");
                 } else {
                     // VNPay claims success but DB not updated yet (IPN not received)
                     log.warn("Return URL success but DB not updated — txnRef={}, orderStatus={}, paymentStatus={}",
@@ -441,16 +357,19 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 }
             } else {
 
+                boolean wasCompleted = order.getOrderStatus() == OrderStatus.COMPLETED;
                 order.setOrderStatus(OrderStatus.CANCELED);
                 payment.setPaymentStatus(PaymentStatus.FAILED);
 
-                for (Ticket ticket : tickets) {
-                    ticket.setOrder(null);
-                }
-
                 orderRepository.save(order);
                 paymentRepository.save(payment);
-                ticketRepository.saveAll(tickets);
+                ticketRepository.detachFromCanceledOrders(List.of(order.getId()), BOOKABLE, LocalDateTime.now());
+                if (wasCompleted) {
+                    // đơn đã được tính doanh thu: trừ khỏi bảng tổng hợp
+                    outboxService.enqueue(OutboxEventType.SALES_CHANGED, txnRef, BookingOutboxPayload.builder()
+                            .orderCode(txnRef)
+                            .build());
+                }
 
                 response.put("status", "FAILED");
                 response.put("message", "Thanh toán không thành công");
@@ -465,38 +384,78 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
             response.put("message", "Unknown error during return processing");
             return response;
         }finally {
-            // Xoá key Redis dù có lỗi, return sớm hay exception
-            if (orderSessionKey != null && redisService.exists(orderSessionKey)) {
-                redisService.delete(orderSessionKey);
-                log.info("[REDIS CLEANUP] Deleted orderSessionKey={}", orderSessionKey);
-            } else if (orderSessionKey != null) {
-                log.info("[REDIS CLEANUP] orderSessionKey={} not found (already expired or removed)", orderSessionKey);
+            // Xoá OrderSession + SeatHold sau commit (outbox), dù có lỗi, return sớm hay exception
+            if (seatHoldShowtimeId != null) {
+                outboxService.enqueue(OutboxEventType.HOLD_RELEASED, orderCode, BookingOutboxPayload.builder()
+                        .showtimeId(seatHoldShowtimeId)
+                        .userId(seatHoldUserId)
+                        .build());
             }
+        }
+    }
 
-            if (seatHoldKey != null && redisService.exists(seatHoldKey)) {
-                redisService.delete(seatHoldKey);
-                log.info("[REDIS CLEANUP] Deleted seatHoldKey={}", seatHoldKey);
-            } else if (seatHoldKey != null) {
-                log.info("[REDIS CLEANUP] seatHoldKey={} not found (already expired or removed)", seatHoldKey);
+
+    /**
+     * Load the checkout tickets in one query; all of them must exist, belong to the showtime, still be on sale,
+     * not belong to another live order and be held in Redis by the paying user.
+     */
+    private List<Ticket> loadTickets(CheckoutRequest checkoutRequest) {
+        List<Ticket> tickets = ticketRepository.findAllById(checkoutRequest.getTicketIds());
+        if (tickets.size() != new HashSet<>(checkoutRequest.getTicketIds()).size()) {
+            throw new AppException(ErrorCode.TICKET_NOT_FOUND);
+        }
+        Map<Long, Long> holdOwners = seatHoldService.getHeldTicketOwners(checkoutRequest.getShowtimeId());
+        for (Ticket t : tickets) {
+            if (!Objects.equals(t.getShowTime().getId(), checkoutRequest.getShowtimeId()) || !BOOKABLE.contains(t.getStatus())) {
+                log.warn("Ticket {} is not on sale for showtime {} (status={})",
+                        t.getId(), checkoutRequest.getShowtimeId(), t.getStatus());
+                throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
+            }
+            // vé đang nằm trong đơn PENDING/COMPLETED khác: không được gán lại sang đơn này
+            if (t.getOrder() != null && t.getOrder().getOrderStatus() != OrderStatus.CANCELED) {
+                log.warn("Ticket {} already belongs to order {} ({})",
+                        t.getId(), t.getOrder().getCode(), t.getOrder().getOrderStatus());
+                throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
+            }
+            if (!Objects.equals(holdOwners.get(t.getId()), checkoutRequest.getUserId())) {
+                log.warn("Ticket {} is not held by user {} (holder={})",
+                        t.getId(), checkoutRequest.getUserId(), holdOwners.get(t.getId()));
+                throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
             }
         }
+        return tickets;
     }
 
+    // danh sách vé của lần checkout, lưu trên payment để IPN đối chiếu
+    private static String joinTicketIds(List<Ticket> tickets) {
+        return tickets.stream().map(t -> String.valueOf(t.getId())).collect(Collectors.joining(","));
+    }
 
-    private  String hmacSHA512(String key, String data) {
-        try {
-            Mac hmac512 = Mac.getInstance("HmacSHA512");
-            SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-            hmac512.init(secretKey);
-            byte[] bytes = hmac512.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hash = new StringBuilder();
-            for (byte b : bytes) {
-                hash.append(String.format("%02x", b));
-            }
-            return hash.toString();
-        } catch (Exception e) {
-            return "";
+    /**
+     * Build the order's concession lines with one query for all concessions; persisted by cascade with the order.
+     */
+    private List<OrderConcession> buildOrderConcessions(Order order, List<CheckoutRequest.ConcessionOrderRequest> lines) {
+        if (lines == null || lines.isEmpty()) return new ArrayList<>();
+
+        Map<Long, Concession> concessions = concessionRepository
+                .findAllById(lines.stream().map(CheckoutRequest.ConcessionOrderRequest::getConcessionId).toList())
+                .stream()
+                .collect(Collectors.toMap(Concession::getId, Function.identity()));
+
+        List<OrderConcession> orderConcessions = new ArrayList<>(lines.size());
+        for (CheckoutRequest.ConcessionOrderRequest cor : lines) {
+            Concession c = concessions.get(cor.getConcessionId());
+            if (c == null) throw new AppException(ErrorCode.CONCESSION_NOT_FOUND);
+            orderConcessions.add(OrderConcession.builder()
+                    .order(order)
+                    .concession(c)
+                    .orderConcessionId(new OrderConcessionId(null, c.getId())) // orderId lấy từ order khi persist (@MapsId)
+                    .quantity(cor.getQuantity())
+                    .unitPrice(c.getPrice())
+                    .priceSnapshot(c.getPrice() * cor.getQuantity())
+                    .build());
         }
+        return orderConcessions;
     }
 
     private String getIpAddress(HttpServletRequest req) {
@@ -521,43 +480,6 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
         return ip.trim();
     }
 
-    /**
-     * Build sorted query string (hashData) from VNPay params.
-     */
-    private String buildHashData(Map<String, String> params) {
-        Map<String, String> fields = new HashMap<>(params);
-        fields.remove("vnp_SecureHash");
-        fields.remove("vnp_SecureHashType");
-
-        List<String> fieldNames = new ArrayList<>(fields.keySet());
-        Collections.sort(fieldNames);
-
-        StringJoiner hashData = new StringJoiner("&");
-        for (String fieldName : fieldNames) {
-            String fieldValue = fields.get(fieldName);
-            if (fieldValue != null && !fieldValue.isEmpty()) {
-                hashData.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
-            }
-        }
-        return hashData.toString();
-    }
-
-    /**
-     * Validate VNPay checksum.
-     * @return true if checksum is valid, false otherwise.
-     */
-    private boolean isValidChecksum(Map<String, String> params) {
-        String hashData = buildHashData(params);
-        String localHash = hmacSHA512(vnpayProperties.getHashSecret(), hashData);
-        String receivedHash = params.get("vnp_SecureHash");
-        boolean isValid = localHash.equalsIgnoreCase(receivedHash);
-
-        if (!isValid) {
-            log.warn("Checksum mismatch — expected={}, received={}", localHash, receivedHash);
-        }
-        return isValid;
-    }
-
     @Transactional
     @Override
     public Long createCashPayment(CheckoutRequest checkoutRequest) {
@@ -567,53 +489,27 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
         log.info(" Bắt đầu thanh toán CASH ");
 
+        PaymentMethod method = paymentMethodRepository
+                .findByPaymentCodeIgnoreCase(checkoutRequest.getPaymentCode())
+                .orElseThrow(() -> new AppException(ErrorCode.PAYMENT_METHOD_NOT_FOUND));
+
         // 1️⃣ Tạo Order (status COMPLETED)
         Order order = Order.builder()
                 .totalPrice(checkoutRequest.getTotalPrice())
                 .discount(checkoutRequest.getDiscount())
                 .orderStatus(OrderStatus.COMPLETED)
+                .code(orderCodeGenerator.next())
                 .user(user)
                 .build();
 
-
-        // 2️⃣ Lấy danh sách Ticket và gán hai chiều + BOOKED
-        List<Ticket> tickets = new ArrayList<>(checkoutRequest.getTicketIds().size());
-        for (Long id : checkoutRequest.getTicketIds()) {
-            Ticket t = ticketRepository.findById(id)
-                    .orElseThrow(() -> new AppException(ErrorCode.TICKET_NOT_FOUND));
-            t.setOrder(order);
-            t.setStatus(TicketStatus.BOOKED);
-            t.setPriceSnapshot(t.getTicketPrice().getPrice()); // snapshot giá vé tại thời điểm thanh toán
-            tickets.add(t);
-        }
+        // 2️⃣ Lấy danh sách Ticket (1 query)
+        List<Ticket> tickets = loadTickets(checkoutRequest);
         order.setTickets(tickets);
-        ticketRepository.saveAll(tickets);
-        orderRepository.save(order);
-
-
-        // 3️⃣ Tạo OrderConcession + trừ stock
-        List<OrderConcession> orderConcessions = checkoutRequest.getConcessions().stream()
-                .map(cor -> {
-                    Concession c = concessionRepository.findById(cor.getConcessionId())
-                            .orElseThrow(() -> new AppException(ErrorCode.CONCESSION_NOT_FOUND));
-                    return OrderConcession.builder()
-                            .order(order)
-                            .concession(c)
-                            .orderConcessionId(new OrderConcessionId(order.getId(), c.getId()))
-                            .quantity(cor.getQuantity())
-                            .unitPrice(c.getPrice())
-                            .priceSnapshot(c.getPrice() * cor.getQuantity())
-                            .build();
-                })
-                .collect(Collectors.toList());
-        orderConcessionRepository.saveAll(orderConcessions);
 
+        // 3️⃣ Tạo OrderConcession (1 query)
+        order.setOrderConcession(buildOrderConcessions(order, checkoutRequest.getConcessions()));
 
         // 4️⃣ Tạo Payment (status COMPLETED)
-        PaymentMethod method = paymentMethodRepository
-                .findByPaymentCodeIgnoreCase(checkoutRequest.getPaymentCode())
-                .orElseThrow(() -> new AppException(ErrorCode.PAYMENT_METHOD_NOT_FOUND));
-
         String transactionNo = "CASH-" + String.format("%08d", System.currentTimeMillis() % 100_000_000);
 
         Payment payment = Payment.builder()
@@ -621,34 +517,44 @@ public class PaymentServiceImplImpl implements PaymentServiceImpl {
                 .method(method)
                 .amount(checkoutRequest.getAmount())
                 .txnRef(order.getCode())
+                .ticketIds(joinTicketIds(tickets))
                 .transactionNo(transactionNo)
                 .paymentStatus(PaymentStatus.COMPLETED)
                 .build();
 
         order.setPayment(payment);
 
-        // 5️⃣ Lưu toàn bộ
+        // 5️⃣ Lưu toàn bộ (cascade payment + orderConcession)
         orderRepository.save(order);
 
-        // 6️⃣ Broadcast booked seats via WebSocket
+        // BOOKED + gán order + snapshot giá vé, chỉ khi vé vẫn còn trống (1 câu UPDATE)
         List<Long> ticketIds = tickets.stream().map(Ticket::getId).toList();
-        bookingService.broadcastBooked(checkoutRequest.getShowtimeId(), ticketIds);
-
-        // --- 7. Xóa key Redis (OrderSession + SeatHold) ---
-        try {
-            String orderSessionKey = "orderSession:showtime:" + checkoutRequest.getShowtimeId()
-                    + ":userId:" + checkoutRequest.getUserId();
-
-            String seatHoldKey = "seatHold:showtime:" + checkoutRequest.getShowtimeId()
-                    + ":user:" + checkoutRequest.getUserId();
+        int booked = ticketRepository.bookForOrder(ticketIds, order, BOOKABLE, LocalDateTime.now());
+        if (booked != ticketIds.size()) {
+            log.warn("Cash checkout conflict: {}/{} tickets still bookable", booked, ticketIds.size());
+            throw new AppException(ErrorCode.TICKET_STATE_CONFLICT);
+        }
 
-            redisService.delete(orderSessionKey);
-            redisService.delete(seatHoldKey);
-            log.info("Xóa key Redis: {}, {}", orderSessionKey, seatHoldKey);
+        // 6️⃣ Đánh dấu ghế đã bán + broadcast, email xác nhận, xoá OrderSession + SeatHold: gửi sau commit qua outbox
+        outboxService.enqueue(OutboxEventType.SEATS_BOOKED, order.getCode(), BookingOutboxPayload.builder()
+                .showtimeId(checkoutRequest.getShowtimeId())
+                .ticketIds(ticketIds)
+                .build());
+        outboxService.enqueue(OutboxEventType.BOOKING_CONFIRMED, order.getCode(), BookingOutboxPayload.builder()
+                .orderCode(order.getCode())
+                .userId(user.getId())
+                .ticketIds(ticketIds)
+                .totalPrice(order.getTotalPrice())
+                .email(user.getAccount() != null ? user.getAccount().getEmail() : null)
+                .build());
+        outboxService.enqueue(OutboxEventType.SALES_CHANGED, order.getCode(), BookingOutboxPayload.builder()
+                .orderCode(order.getCode())
+                .build());
+        outboxService.enqueue(OutboxEventType.HOLD_RELEASED, order.getCode(), BookingOutboxPayload.builder()
+                .showtimeId(checkoutRequest.getShowtimeId())
+                .userId(checkoutRequest.getUserId())
+                .build());
 
-        } catch (Exception e) {
-            log.warn("Không thể xóa key Redis: {}", e.getMessage());
-        }
         log.info(" Thanh toán CASH hoàn tất cho đơn hàng {}", order.getCode());
         return order.getId();
     }
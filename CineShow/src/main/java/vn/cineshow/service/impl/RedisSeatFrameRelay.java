@@ -0,0 +1,78 @@
+package vn.cineshow.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SeatFrameRelay;
+
+/**
+ * Multi-node fan-out over Redis pub/sub.
+ * <p>
+ * The publishing node serializes the seats once and runs scripts/seat_frame_publish.lua, which
+ * takes the next cluster-wide sequence number and publishes "showtimeId|seq|sharedFields|seatsJson" on
+ * {@link #CHANNEL} atomically. Every node, including the publisher, listens on the channel
+ * (see RedisConfig) and hands the frame to its own WebSocket clients.
+ */
+@Slf4j(topic = "SEAT-BROADCAST")
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "booking.websocket.fanout", havingValue = "redis")
+public class RedisSeatFrameRelay implements SeatFrameRelay, MessageListener {
+
+    public static final String CHANNEL = "seatBroadcast:frames";
+
+    private static final RedisScript<Long> PUBLISH_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_frame_publish.lua"), Long.class);
+
+    // sequence restarts only after a showtime has been silent for a day
+    private static final long SEQUENCE_TTL = 24 * 60 * 60;
+
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final SeatFrameSender seatFrameSender;
+
+    @Override
+    public void relay(Long showtimeId, List<SeatTicketDTO> seats) {
+        String seatsJson;
+        try {
+            seatsJson = objectMapper.writeValueAsString(seats);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize seat frame of showtime " + showtimeId, e);
+        }
+
+        redisService.executeScript(PUBLISH_SCRIPT,
+                List.of(String.format("seatBroadcast:showtime:%d:seq", showtimeId)),
+                List.of(CHANNEL, String.valueOf(showtimeId), seatsJson, String.valueOf(SEQUENCE_TTL),
+                        SeatFrameSender.sharedFields(seats)));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf('|');
+        int second = body.indexOf('|', first + 1);
+        int third = second < 0 ? -1 : body.indexOf('|', second + 1);
+        if (first < 0 || second < 0 || third < 0) {
+            log.warn("Ignoring malformed seat frame on {}: {}", CHANNEL, body);
+            return;
+        }
+
+        Long showtimeId = Long.valueOf(body.substring(0, first));
+        long seq = Long.parseLong(body.substring(first + 1, second));
+        seatFrameSender.send(showtimeId, seq, body.substring(second + 1, third), body.substring(third + 1));
+    }
+}
@@ -2,10 +2,17 @@ package vn.cineshow.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import vn.cineshow.service.RedisService;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -15,6 +22,7 @@ import java.util.concurrent.TimeUnit;
 public class RedisServiceImpl implements RedisService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
 
     /**
      * Save any value to Redis with a specific TTL (time-to-live).
@@ -161,4 +169,179 @@ public class RedisServiceImpl implements RedisService {
         }
     }
 
+    /**
+     * Read every field of a string hash in a single round trip (HGETALL).
+     *
+     * @param key Redis hash key
+     * @return field -> value map, empty if the hash does not exist
+     */
+    @Override
+    public Map<String, String> hashGetAll(String key) {
+        if (key == null) return Map.of();
+        Map<String, String> entries = stringRedisTemplate.<String, String>opsForHash().entries(key);
+        return entries != null ? entries : Map.of();
+    }
+
+    /**
+     * Write several fields of a string hash and reset the TTL of the whole hash.
+     * <p>
+     * Note:
+     * - Redis cannot expire single hash fields, callers that need per-field expiry
+     *   must encode it in the value and prune stale fields themselves.
+     *
+     * @param key        Redis hash key
+     * @param entries    Fields to write
+     * @param ttlSeconds Expiration time of the hash in seconds
+     */
+    @Override
+    public void hashPutAll(String key, Map<String, String> entries, long ttlSeconds) {
+        if (key == null || entries == null || entries.isEmpty()) return;
+        stringRedisTemplate.opsForHash().putAll(key, entries);
+        stringRedisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+        log.debug("Put {} fields into hash key={} with TTL={}s", entries.size(), key, ttlSeconds);
+    }
+
+    /**
+     * Remove fields from a string hash (HDEL).
+     *
+     * @param key    Redis hash key
+     * @param fields Fields to remove
+     */
+    @Override
+    public void hashDelete(String key, Collection<String> fields) {
+        if (key == null || fields == null || fields.isEmpty()) return;
+        stringRedisTemplate.opsForHash().delete(key, fields.toArray());
+        log.debug("Deleted {} fields from hash key={}", fields.size(), key);
+    }
+
+    /**
+     * Read all members of a string set (SMEMBERS).
+     *
+     * @param key Redis set key
+     * @return Members, empty if the set does not exist
+     */
+    @Override
+    public Set<String> setMembers(String key) {
+        if (key == null) return Set.of();
+        Set<String> members = stringRedisTemplate.opsForSet().members(key);
+        return members != null ? members : Set.of();
+    }
+
+    /**
+     * Add members to a string set and reset the TTL of the whole set.
+     *
+     * @param key        Redis set key
+     * @param members    Members to add
+     * @param ttlSeconds Expiration time of the set in seconds
+     * @return Number of members that were not in the set yet
+     */
+    @Override
+    public long setAdd(String key, Collection<String> members, long ttlSeconds) {
+        if (key == null || members == null || members.isEmpty()) return 0L;
+        Long added = stringRedisTemplate.opsForSet().add(key, members.toArray(new String[0]));
+        stringRedisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+        log.debug("Added {} members to set key={} with TTL={}s", added, key, ttlSeconds);
+        return added != null ? added : 0L;
+    }
+
+    /**
+     * Remove members from a string set (SREM).
+     *
+     * @param key     Redis set key
+     * @param members Members to remove
+     */
+    @Override
+    public void setRemove(String key, Collection<String> members) {
+        if (key == null || members == null || members.isEmpty()) return;
+        stringRedisTemplate.opsForSet().remove(key, members.toArray());
+    }
+
+    /**
+     * Read several string hashes in one pipelined round trip (HGETALL per key).
+     *
+     * @param keys Redis hash keys
+     * @return One map per key in the same order, empty for missing hashes
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, String>> hashGetAll(List<String> keys) {
+        if (keys == null || keys.isEmpty()) return List.of();
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.hashCommands().hGetAll(key.getBytes(StandardCharsets.UTF_8)));
+            return null;
+        });
+        return results.stream()
+                .map(r -> r != null ? (Map<String, String>) r : Map.<String, String>of())
+                .toList();
+    }
+
+    /**
+     * Run a Lua script server-side in a single round trip.
+     * <p>
+     * Behavior:
+     * - Sent as EVALSHA, Spring falls back to EVAL once if Redis has not cached the script yet.
+     * - Keys, arguments and results are plain strings (numbers come back as Long).
+     *
+     * @param script Script with its expected result type
+     * @param keys   Keys touched by the script (KEYS[])
+     * @param args   Arguments (ARGV[])
+     * @return Script result
+     */
+    @Override
+    public <T> T executeScript(RedisScript<T> script, List<String> keys, List<String> args) {
+        return stringRedisTemplate.execute(script, keys, args.toArray());
+    }
+
+    /**
+     * Increment a plain string counter (INCR) and reset its TTL.
+     *
+     * @param key        Redis key
+     * @param ttlSeconds Expiration time of the counter in seconds
+     * @return Counter value after the increment
+     */
+    @Override
+    public long increment(String key, long ttlSeconds) {
+        Long value = stringRedisTemplate.opsForValue().increment(key);
+        stringRedisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Read a counter written by {@link #increment(String, long)}.
+     *
+     * @param key Redis key
+     * @return Counter value, or 0 if the key does not exist
+     */
+    @Override
+    public long getCounter(String key) {
+        if (key == null) return 0L;
+        String value = stringRedisTemplate.opsForValue().get(key);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Store a plain string only if the key does not exist yet (SET NX PX).
+     *
+     * @param key       Redis key
+     * @param value     Value to store
+     * @param ttlMillis Expiration time in milliseconds
+     * @return true if the value was stored
+     */
+    @Override
+    public boolean setIfAbsent(String key, String value, long ttlMillis) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(key, value, ttlMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Publish a plain string message on a pub/sub channel.
+     *
+     * @param channel Channel name
+     * @param message Message body
+     */
+    @Override
+    public void publish(String channel, String message) {
+        stringRedisTemplate.convertAndSend(channel, message);
+    }
+
 }
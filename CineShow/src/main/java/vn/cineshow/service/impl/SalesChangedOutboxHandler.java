@@ -0,0 +1,39 @@
+package vn.cineshow.service.impl;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.service.OutboxEventHandler;
+import vn.cineshow.service.SalesRollupService;
+
+/**
+ * Applies completed / reversed orders to the daily sales rollups, the whole batch in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesChangedOutboxHandler implements OutboxEventHandler {
+
+    private final SalesRollupService salesRollupService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.SALES_CHANGED;
+    }
+
+    @Override
+    public void handle(List<BookingOutboxPayload> payloads) {
+        List<String> orderCodes = payloads.stream()
+                .map(BookingOutboxPayload::getOrderCode)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (!orderCodes.isEmpty()) {
+            salesRollupService.refresh(orderCodes);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package vn.cineshow.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.enums.OrderStatus;
+import vn.cineshow.exception.AppException;
+import vn.cineshow.exception.ErrorCode;
+import vn.cineshow.model.DailyConcessionRollup;
+import vn.cineshow.model.DailySalesRollup;
+import vn.cineshow.model.SalesRollupOrder;
+import vn.cineshow.repository.ArchivedTicketRepository;
+import vn.cineshow.repository.DailyConcessionRollupRepository;
+import vn.cineshow.repository.DailySalesRollupRepository;
+import vn.cineshow.repository.OrderConcessionRepository;
+import vn.cineshow.repository.OrderRepository;
+import vn.cineshow.repository.SalesRollupOrderRepository;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.SalesRollupService;
+import vn.cineshow.service.SchedulerLockService;
+
+/**
+ * Keeps the daily rollups incrementally: the outbox hands over the codes of orders that completed
+ * (or were canceled after completing) and each batch becomes one read of the rollup rows of the days
+ * involved plus one write per touched row. {@link SalesRollupOrder} records what every order added,
+ * so a repeated event changes nothing and a reversal subtracts exactly what was added.
+ * <p>
+ * The rebuild recomputes whole days from the source tables (tickets of archived showtimes included);
+ * the last {@code booking.sales-rollup.repair-days} days are rebuilt every night to absorb anything
+ * a dead outbox event missed.
+ */
+@Slf4j(topic = "SALES-ROLLUP")
+@Service
+@RequiredArgsConstructor
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    // đơn không có vé (không xảy ra khi đặt vé bình thường) được gom vào phim / loại phòng 0
+    private static final Long NONE = 0L;
+    private static final int ID_CHUNK = 1000;
+
+    private final OrderRepository orderRepository;
+    private final TicketRepository ticketRepository;
+    private final ArchivedTicketRepository archivedTicketRepository;
+    private final OrderConcessionRepository orderConcessionRepository;
+    private final SalesRollupOrderRepository salesRollupOrderRepository;
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+    private final DailyConcessionRollupRepository dailyConcessionRollupRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.sales-rollup.repair-days:2}")
+    int repairDays;
+
+    @Override
+    @Transactional
+    public void refresh(Collection<String> orderCodes) {
+        List<Object[]> orders = orderRepository.findSalesStateByCodes(orderCodes);
+        if (orders.isEmpty()) return;
+
+        Map<Long, SalesRollupOrder> ledger = salesRollupOrderRepository
+                .findByOrderIdIn(orders.stream().map(o -> (Long) o[0]).toList()).stream()
+                .collect(Collectors.toMap(SalesRollupOrder::getOrderId, Function.identity()));
+
+        List<Object[]> toAdd = new ArrayList<>();
+        List<SalesRollupOrder> toRemove = new ArrayList<>();
+        for (Object[] o : orders) {
+            boolean completed = o[3] == OrderStatus.COMPLETED;
+            SalesRollupOrder entry = ledger.get((Long) o[0]);
+            boolean counted = entry != null && entry.isCounted();
+            if (completed && !counted) {
+                toAdd.add(o);
+            } else if (!completed && counted) {
+                toRemove.add(entry);
+            }
+        }
+        if (toAdd.isEmpty() && toRemove.isEmpty()) return;
+
+        Delta delta = new Delta();
+        List<SalesRollupOrder> changed = new ArrayList<>(toAdd.size() + toRemove.size());
+
+        // vé của đơn vừa hoàn tất luôn còn ở bảng tickets
+        Map<Long, Object[]> ticketSums = toAdd.isEmpty() ? Map.of()
+                : byOrderId(ticketRepository.sumByOrderIds(ids(toAdd)));
+        for (Object[] o : toAdd) {
+            SalesRollupOrder entry = ledgerEntry((Long) o[0], (LocalDateTime) o[1], (Double) o[2], ticketSums);
+            delta.addOrder(entry, 1);
+            changed.add(entry);
+        }
+        for (SalesRollupOrder entry : toRemove) {
+            // vé đã được trả về khi huỷ: trừ đúng phần đã cộng, lưu trong ledger
+            entry.setCounted(false);
+            delta.addOrder(entry, -1);
+            changed.add(entry);
+        }
+
+        Map<Long, LocalDate> saleDates = new HashMap<>();
+        Map<Long, Integer> signs = new HashMap<>();
+        changed.forEach(e -> {
+            saleDates.put(e.getOrderId(), e.getSaleDate());
+            signs.put(e.getOrderId(), e.isCounted() ? 1 : -1);
+        });
+        for (Object[] line : orderConcessionRepository.findLinesByOrderIds(saleDates.keySet())) {
+            Long orderId = (Long) line[0];
+            delta.addConcession(saleDates.get(orderId), (Long) line[1], (Integer) line[2], (Double) line[3],
+                    signs.get(orderId));
+        }
+
+        salesRollupOrderRepository.saveAll(changed);
+        delta.apply();
+        log.debug("Rollups refreshed: +{} / -{} orders", toAdd.size(), toRemove.size());
+    }
+
+    @Override
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new AppException(ErrorCode.INVALID_PARAMETER);
+        }
+        long started = System.currentTimeMillis();
+        int orders = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate d = day;
+            Integer counted = transactionTemplate.execute(status -> rebuildDay(d));
+            orders += counted != null ? counted : 0;
+        }
+        log.info("Rollups rebuilt for {} .. {}: {} orders in {} ms", from, to, orders,
+                System.currentTimeMillis() - started);
+        return orders;
+    }
+
+    @Scheduled(cron = "${booking.sales-rollup.repair-cron:0 45 3 * * *}", zone = "Asia/Ho_Chi_Minh")
+    public void repairRecentDays() {
+        LocalDate today = LocalDate.now();
+        schedulerLockService.runExclusively("salesRollupRepair",
+                () -> rebuild(today.minusDays(repairDays), today.minusDays(1)));
+    }
+
+    private int rebuildDay(LocalDate day) {
+        // xoá trước rồi mới đọc: các lần refresh đang chạy trên ngày này phải commit xong trước
+        dailySalesRollupRepository.deleteBySaleDate(day);
+        dailyConcessionRollupRepository.deleteBySaleDate(day);
+        salesRollupOrderRepository.deleteBySaleDate(day);
+
+        List<Object[]> orders = orderRepository.findSalesStateCreatedBetween(OrderStatus.COMPLETED,
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        if (orders.isEmpty()) return 0;
+
+        Delta delta = new Delta();
+        List<SalesRollupOrder> entries = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i += ID_CHUNK) {
+            List<Object[]> chunk = orders.subList(i, Math.min(i + ID_CHUNK, orders.size()));
+            List<Long> orderIds = ids(chunk);
+
+            Map<Long, Object[]> ticketSums = byOrderId(ticketRepository.sumByOrderIds(orderIds));
+            ticketSums.putAll(byOrderId(archivedTicketRepository.sumByOrderIds(orderIds)));
+            for (Object[] o : chunk) {
+                SalesRollupOrder entry = ledgerEntry((Long) o[0], (LocalDateTime) o[1], (Double) o[2], ticketSums);
+                delta.addOrder(entry, 1);
+                entries.add(entry);
+            }
+            for (Object[] line : orderConcessionRepository.findLinesByOrderIds(orderIds)) {
+                delta.addConcession(day, (Long) line[1], (Integer) line[2], (Double) line[3], 1);
+            }
+        }
+
+        salesRollupOrderRepository.saveAll(entries);
+        delta.apply();
+        return entries.size();
+    }
+
+    private SalesRollupOrder ledgerEntry(Long orderId, LocalDateTime createdAt, Double totalPrice,
+                                         Map<Long, Object[]> ticketSums) {
+        Object[] t = ticketSums.get(orderId);
+        return SalesRollupOrder.builder()
+                .orderId(orderId)
+                .saleDate(createdAt.toLocalDate())
+                .movieId(t != null ? (Long) t[1] : NONE)
+                .roomTypeId(t != null ? (Long) t[2] : NONE)
+                .tickets(t != null ? ((Number) t[3]).longValue() : 0)
+                .ticketRevenue(t != null ? ((Number) t[4]).doubleValue() : 0)
+                .revenue(totalPrice != null ? totalPrice : 0)
+                .counted(true)
+                .build();
+    }
+
+    private static List<Long> ids(List<Object[]> orders) {
+        return orders.stream().map(o -> (Long) o[0]).toList();
+    }
+
+    // một đơn chỉ thuộc một suất chiếu nên có đúng một dòng tổng vé
+    private static Map<Long, Object[]> byOrderId(List<Object[]> ticketSums) {
+        Map<Long, Object[]> map = new HashMap<>();
+        ticketSums.forEach(row -> map.put((Long) row[0], row));
+        return map;
+    }
+
+    private record SalesKey(LocalDate day, Long movieId, Long roomTypeId) {
+    }
+
+    private record ConcessionKey(LocalDate day, Long concessionId) {
+    }
+
+    /**
+     * Changes of one batch, merged per rollup row before touching the tables.
+     */
+    private class Delta {
+        final Map<SalesKey, double[]> sales = new HashMap<>();            // orders, revenue, tickets, ticketRevenue
+        final Map<ConcessionKey, double[]> concessions = new HashMap<>(); // quantity, revenue
+
+        void addOrder(SalesRollupOrder e, int sign) {
+            double[] v = sales.computeIfAbsent(new SalesKey(e.getSaleDate(), e.getMovieId(), e.getRoomTypeId()),
+                    k -> new double[4]);
+            v[0] += sign;
+            v[1] += sign * e.getRevenue();
+            v[2] += sign * e.getTickets();
+            v[3] += sign * e.getTicketRevenue();
+        }
+
+        void addConcession(LocalDate day, Long concessionId, Integer quantity, Double unitPrice, int sign) {
+            int q = quantity != null ? quantity : 0;
+            double[] v = concessions.computeIfAbsent(new ConcessionKey(day, concessionId), k -> new double[2]);
+            v[0] += sign * q;
+            v[1] += sign * q * (unitPrice != null ? unitPrice : 0);
+        }
+
+        void apply() {
+            Set<LocalDate> days = sales.keySet().stream().map(SalesKey::day).collect(Collectors.toSet());
+            if (!days.isEmpty()) {
+                Map<SalesKey, DailySalesRollup> rows = dailySalesRollupRepository.findBySaleDateIn(days).stream()
+                        .collect(Collectors.toMap(r -> new SalesKey(r.getSaleDate(), r.getMovieId(), r.getRoomTypeId()),
+                                Function.identity()));
+                List<DailySalesRollup> touched = new ArrayList<>(sales.size());
+                sales.forEach((key, v) -> {
+                    DailySalesRollup row = rows.computeIfAbsent(key, k -> DailySalesRollup.builder()
+                            .saleDate(k.day()).movieId(k.movieId()).roomTypeId(k.roomTypeId()).build());
+                    row.setOrdersCount(row.getOrdersCount() + (long) v[0]);
+                    row.setRevenue(row.getRevenue() + v[1]);
+                    row.setTicketsSold(row.getTicketsSold() + (long) v[2]);
+                    row.setTicketRevenue(row.getTicketRevenue() + v[3]);
+                    touched.add(row);
+                });
+                dailySalesRollupRepository.saveAll(touched);
+            }
+
+            days = concessions.keySet().stream().map(ConcessionKey::day).collect(Collectors.toSet());
+            if (!days.isEmpty()) {
+                Map<ConcessionKey, DailyConcessionRollup> rows = dailyConcessionRollupRepository.findBySaleDateIn(days)
+                        .stream()
+                        .collect(Collectors.toMap(r -> new ConcessionKey(r.getSaleDate(), r.getConcessionId()),
+                                Function.identity()));
+                List<DailyConcessionRollup> touched = new ArrayList<>(concessions.size());
+                concessions.forEach((key, v) -> {
+                    DailyConcessionRollup row = rows.computeIfAbsent(key, k -> DailyConcessionRollup.builder()
+                            .saleDate(k.day()).concessionId(k.concessionId()).build());
+                    row.setQuantity(row.getQuantity() + (long) v[0]);
+                    row.setRevenue(row.getRevenue() + v[1]);
+                    touched.add(row);
+                });
+                dailyConcessionRollupRepository.saveAll(touched);
+            }
+        }
+    }
+}
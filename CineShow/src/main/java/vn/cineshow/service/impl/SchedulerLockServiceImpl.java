@@ -0,0 +1,173 @@
+package vn.cineshow.service.impl;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SchedulerLockService;
+
+/**
+ * Redis leases for scheduled jobs: {@code SET NX PX} with a per-acquisition token, renewed by a heartbeat
+ * every third of {@code booking.scheduler.lease-ms} and released only by its owner (Lua compare-and-delete).
+ * If a node dies its heartbeat stops and the lease expires, so another node can take the job over.
+ * <p>
+ * Losing a lease mid-run (e.g. a long GC pause) is only logged: every coordinated job is also safe to run
+ * twice, the lease is there to avoid the duplicated work and lock contention, not for correctness.
+ */
+@Slf4j(topic = "SCHEDULER-LOCK")
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+
+    private static final String KEY_PREFIX = "schedulerLock:";
+    private static final long DONE_TTL_MS = 2L * 24 * 3600 * 1000;
+
+    private static final RedisScript<Long> RENEW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease_renew.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lease_release.lua"), Long.class);
+
+    private final RedisService redisService;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "scheduler-lease-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+    private final String node = nodeName();
+
+    @Value("${booking.scheduler.lease-ms:60000}")
+    long leaseMs;
+
+    @Value("${booking.scheduler.partition-wait-ms:600000}")
+    long partitionWaitMs;
+
+    @Override
+    public boolean runExclusively(String job, Runnable task) {
+        return runWithLease(KEY_PREFIX + job, task);
+    }
+
+    @Override
+    public int runPartitioned(String job, String runKey, int partitions, IntConsumer task) {
+        List<Integer> pending = new ArrayList<>(IntStream.range(0, partitions).boxed().toList());
+        // nodes start from different parts instead of all contending for part 0
+        Collections.shuffle(pending);
+
+        long deadline = System.currentTimeMillis() + partitionWaitMs;
+        int ran = 0;
+        while (true) {
+            for (var it = pending.iterator(); it.hasNext(); ) {
+                int part = it.next();
+                String key = KEY_PREFIX + job + ":" + part;
+                String doneKey = key + ":done:" + runKey;
+                if (isDone(doneKey)) {
+                    it.remove();
+                    continue;
+                }
+                try {
+                    if (runWithLease(key, () -> {
+                        task.accept(part);
+                        redisService.setIfAbsent(doneKey, node, DONE_TTL_MS);
+                    })) {
+                        ran++;
+                        it.remove();
+                    }
+                } catch (Exception e) {
+                    // not marked done: the next run picks it up again
+                    log.error("Job {} ({}) part {} failed: {}", job, runKey, part, e.getMessage(), e);
+                    it.remove();
+                }
+            }
+            if (pending.isEmpty()) break;
+            // the rest is held by other nodes: wait for them to finish, or take over once their lease expires
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Job {} ({}): parts {} still held by other nodes, leaving them", job, runKey, pending);
+                break;
+            }
+            try {
+                Thread.sleep(leaseMs / 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("Job {} ({}): ran {} of {} parts on {}", job, runKey, ran, partitions, node);
+        return ran;
+    }
+
+    private boolean isDone(String doneKey) {
+        try {
+            return redisService.exists(doneKey);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean runWithLease(String key, Runnable task) {
+        String token = node + ":" + UUID.randomUUID();
+        try {
+            if (!redisService.setIfAbsent(key, token, leaseMs)) {
+                log.debug("Lease {} held by another node, skipped", key);
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("Cannot take lease {} ({}), job skipped", key, e.getMessage());
+            return false;
+        }
+
+        long period = Math.max(leaseMs / 3, 1);
+        ScheduledFuture<?> beat = heartbeat.scheduleAtFixedRate(() -> renew(key, token), period, period, TimeUnit.MILLISECONDS);
+        try {
+            task.run();
+            return true;
+        } finally {
+            beat.cancel(false);
+            try {
+                redisService.executeScript(RELEASE_SCRIPT, List.of(key), List.of(token));
+            } catch (Exception e) {
+                log.warn("Cannot release lease {}, it expires in {} ms: {}", key, leaseMs, e.getMessage());
+            }
+        }
+    }
+
+    private void renew(String key, String token) {
+        try {
+            Long renewed = redisService.executeScript(RENEW_SCRIPT, List.of(key), List.of(token, String.valueOf(leaseMs)));
+            if (renewed == null || renewed == 0) {
+                log.warn("Lease {} was lost while the job is still running", key);
+            }
+        } catch (Exception e) {
+            log.warn("Cannot renew lease {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+}
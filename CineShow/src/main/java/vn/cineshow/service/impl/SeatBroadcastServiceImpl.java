@@ -0,0 +1,102 @@
+package vn.cineshow.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+import vn.cineshow.service.SeatBroadcastService;
+import vn.cineshow.service.SeatFrameRelay;
+
+/**
+ * Coalesces seat changes per showtime over a short window and sends one delta frame per window.
+ * <p>
+ * Within a window only the latest status of each seat is kept (a HELD followed by RELEASED
+ * becomes a single RELEASED); FAILED entries are per-user feedback and are never coalesced away.
+ * Numbering, serialization and delivery of the frame are left to the configured {@link SeatFrameRelay}.
+ */
+@Slf4j(topic = "SEAT-BROADCAST")
+@Service
+@RequiredArgsConstructor
+public class SeatBroadcastServiceImpl implements SeatBroadcastService {
+
+    private static final String FAILED = "FAILED";
+
+    private final SeatFrameRelay seatFrameRelay;
+
+    private final Map<Long, PendingFrame> pendingFrames = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "seat-broadcast");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${booking.broadcast.window-ms:40}")
+    long windowMs;
+
+    @Override
+    public void publish(Long showtimeId, List<SeatTicketDTO> changes) {
+        if (changes == null || changes.isEmpty()) return;
+
+        while (true) {
+            PendingFrame frame = pendingFrames.computeIfAbsent(showtimeId, id -> new PendingFrame());
+            synchronized (frame) {
+                if (frame.removed) continue; // flushed and dropped meanwhile, take the new one
+                for (SeatTicketDTO change : changes) {
+                    String key = FAILED.equals(change.getStatus())
+                            ? change.getTicketId() + ":" + FAILED + ":" + change.getUserId()
+                            : String.valueOf(change.getTicketId());
+                    frame.seats.remove(key); // keep arrival order of the latest change
+                    frame.seats.put(key, change);
+                }
+                if (!frame.scheduled) {
+                    frame.scheduled = true;
+                    flusher.schedule(() -> flush(showtimeId, frame), windowMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    private void flush(Long showtimeId, PendingFrame frame) {
+        List<SeatTicketDTO> seats;
+        synchronized (frame) {
+            seats = new ArrayList<>(frame.seats.values());
+            frame.seats.clear();
+            frame.scheduled = false;
+            // drop the entry, the next change opens a new frame; idle and ended showtimes leave no entry behind
+            frame.removed = true;
+            pendingFrames.remove(showtimeId, frame);
+        }
+        if (seats.isEmpty()) return;
+
+        try {
+            seatFrameRelay.relay(showtimeId, seats);
+            log.debug("Relayed {} seat changes of showtime {}", seats.size(), showtimeId);
+        } catch (Exception e) {
+            log.error("Cannot relay seat frame of showtime {}: {}", showtimeId, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+    }
+
+    private static class PendingFrame {
+        final Map<String, SeatTicketDTO> seats = new LinkedHashMap<>();
+        boolean scheduled;
+        boolean removed;
+    }
+}
@@ -0,0 +1,83 @@
+package vn.cineshow.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.booking.SeatReplayFrame;
+import vn.cineshow.service.SeatEventBuffer;
+
+/**
+ * Ring buffer of the last {@code booking.broadcast.replay-size} frames per showtime.
+ * <p>
+ * Frames are recorded as they are delivered to this node, so with Redis fan-out every node holds
+ * the same history. A hole in the sequence (missed pub/sub message, counter reset) clears the
+ * buffer, so a replay is either complete or not offered at all. Buffers are dropped nightly.
+ */
+@Slf4j(topic = "SEAT-BROADCAST")
+@Service
+public class SeatEventBufferImpl implements SeatEventBuffer {
+
+    private final Map<Long, ArrayDeque<SeatReplayFrame>> buffers = new ConcurrentHashMap<>();
+
+    @Value("${booking.broadcast.replay-size:256}")
+    int capacity;
+
+    @Override
+    public void record(Long showtimeId, long seq, String seatsJson) {
+        ArrayDeque<SeatReplayFrame> buffer = buffers.computeIfAbsent(showtimeId, id -> new ArrayDeque<>(capacity));
+        synchronized (buffer) {
+            if (!buffer.isEmpty() && buffer.peekLast().getSeq() + 1 != seq) {
+                log.warn("Seat frame seq jumped from {} to {} for showtime {}, resetting replay buffer",
+                        buffer.peekLast().getSeq(), seq, showtimeId);
+                buffer.clear();
+            }
+            if (buffer.size() == capacity) {
+                buffer.pollFirst();
+            }
+            buffer.addLast(new SeatReplayFrame(seq, seatsJson));
+        }
+    }
+
+    @Override
+    public Optional<List<SeatReplayFrame>> framesAfter(Long showtimeId, long afterSeq) {
+        ArrayDeque<SeatReplayFrame> buffer = buffers.get(showtimeId);
+        if (buffer == null) return Optional.empty();
+
+        synchronized (buffer) {
+            if (buffer.isEmpty()
+                    || afterSeq < buffer.peekFirst().getSeq() - 1
+                    || afterSeq > buffer.peekLast().getSeq()) {
+                return Optional.empty();
+            }
+            List<SeatReplayFrame> frames = new ArrayList<>();
+            for (SeatReplayFrame frame : buffer) {
+                if (frame.getSeq() > afterSeq) frames.add(frame);
+            }
+            return Optional.of(frames);
+        }
+    }
+
+    @Override
+    public long latestSeq(Long showtimeId) {
+        ArrayDeque<SeatReplayFrame> buffer = buffers.get(showtimeId);
+        if (buffer == null) return 0;
+        synchronized (buffer) {
+            return buffer.isEmpty() ? 0 : buffer.peekLast().getSeq();
+        }
+    }
+
+    @Scheduled(cron = "0 30 4 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void clearAll() {
+        log.info("Dropping {} seat replay buffers", buffers.size());
+        buffers.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package vn.cineshow.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import lombok.RequiredArgsConstructor;
+import vn.cineshow.dto.response.booking.SeatTicketDTO;
+import vn.cineshow.service.SeatEventBuffer;
+
+/**
+ * Sends a seat frame to the clients connected to this node.
+ * <p>
+ * Frame contract of /topic/seat/{showtimeId}:
+ * <pre>
+ * {"showtimeId":1,"seq":42,"status":"HELD","userId":7,"seats":[{"ticketId":..,"status":"HELD","userId":7,..}]}
+ * </pre>
+ * <ul>
+ *     <li>{@code seq} grows by one per frame of the showtime; a gap means frames were missed and can be
+ *     fetched from /bookings/show-times/{showtimeId}/seats/events.</li>
+ *     <li>{@code seats} holds the latest change of every seat in the frame, each with its own status and,
+ *     for HELD/RELEASED/FAILED, the user behind it. Clients should read these.</li>
+ *     <li>{@code status} and {@code userId} at the top level keep clients of the earlier one-change-per-message
+ *     format working. They are only present when every seat of the frame shares them, which is always
+ *     the case for a frame carrying a single hold, release or booking.</li>
+ * </ul>
+ * The seats array arrives already serialized, the envelope is concatenated around it and the same
+ * bytes go to every subscriber. Every frame is also kept in the {@link SeatEventBuffer} for clients
+ * that reconnect.
+ */
+@Component
+@RequiredArgsConstructor
+public class SeatFrameSender {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SeatEventBuffer seatEventBuffer;
+
+    /**
+     * Top-level {@code "status"} and {@code "userId"} members shared by every seat of a frame, each
+     * followed by a comma, or an empty string. Statuses are ticket status names and need no escaping.
+     */
+    public static String sharedFields(List<SeatTicketDTO> seats) {
+        if (seats.isEmpty()) return "";
+        SeatTicketDTO first = seats.get(0);
+        if (first.getStatus() == null
+                || !seats.stream().allMatch(s -> first.getStatus().equals(s.getStatus()))) {
+            return "";
+        }
+
+        String fields = "\"status\":\"" + first.getStatus() + "\",";
+        if (first.getUserId() != null
+                && seats.stream().allMatch(s -> first.getUserId().equals(s.getUserId()))) {
+            fields += "\"userId\":" + first.getUserId() + ",";
+        }
+        return fields;
+    }
+
+    public void send(Long showtimeId, long seq, String sharedFields, String seatsJson) {
+        seatEventBuffer.record(showtimeId, seq, seatsJson);
+
+        byte[] payload = ("{\"showtimeId\":" + showtimeId + ",\"seq\":" + seq + "," + sharedFields
+                + "\"seats\":" + seatsJson + "}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send("/topic/seat/" + showtimeId,
+                MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
@@ -2,35 +2,87 @@ package vn.cineshow.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import vn.cineshow.dto.request.booking.SeatSelectRequest;
+import vn.cineshow.dto.response.booking.SeatClaimResult;
 import vn.cineshow.dto.response.booking.SeatHold;
+import vn.cineshow.dto.response.booking.SeatLayoutDTO;
 import vn.cineshow.dto.response.booking.SeatTicketDTO;
 import vn.cineshow.enums.TicketStatus;
 import vn.cineshow.repository.TicketRepository;
 import vn.cineshow.service.RedisService;
 import vn.cineshow.service.SeatHoldService;
+import vn.cineshow.service.SeatLayoutService;
 
+/**
+ * Seat holds live in Redis as three structures per showtime:
+ * <ul>
+ *     <li>{@code seatHold:showtime:{id}:index} - hash ticketId -> "userId:expiresAtMillis"</li>
+ *     <li>{@code seatHold:showtime:{id}:user:{userId}:tickets} - set of the user's tickets, expires by TTL</li>
+ *     <li>{@code seatHold:showtime:{id}:booked} - set of BOOKED/BLOCKED tickets, seeded from the DB on demand</li>
+ * </ul>
+ * Every change also bumps {@code seatHold:showtime:{id}:version}, the seat map version of the showtime.
+ * Claim, release and extend run as Lua scripts (scripts/seat_*.lua) so each is one atomic round trip.
+ * Hash fields cannot expire on their own, so every index entry carries its expiry and stale entries
+ * are ignored by the scripts and pruned by readers; the index key itself outlives every entry it contains.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@SuppressWarnings("rawtypes")
 public class SeatHoldServiceImpl implements SeatHoldService {
+
+    private static final RedisScript<List> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_claim.lua"), List.class);
+    private static final RedisScript<List> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_release.lua"), List.class);
+    private static final RedisScript<Long> EXTEND_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_extend.lua"), Long.class);
+    private static final RedisScript<List> COUNT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_hold_count.lua"), List.class);
+
+    // booked set is only a cache of the DB, re-seeded once it expires
+    private static final long BOOKED_SET_TTL = 24 * 60 * 60;
+    private static final String BOOKED_SET_SEEDED = "_";
+
     private final RedisService redisService;
     private final TicketRepository ticketRepository;
+    private final SeatLayoutService seatLayoutService;
 
     @Value("${booking.ttl.default}")
     long HOLD_DURATION;
 
-    private String buildId(SeatSelectRequest req) {
-        return String.format("seatHold:showtime:%d:user:%d", req.getShowtimeId(), req.getUserId());
+    @Value("${booking.ttl.payment:${booking.ttl.default}}")
+    long PAYMENT_DURATION;
+
+    private String buildId(Long showtimeId, Long userId) {
+        return String.format("seatHold:showtime:%d:user:%d:tickets", showtimeId, userId);
+    }
+
+    private String buildIndexKey(Long showtimeId) {
+        return String.format("seatHold:showtime:%d:index", showtimeId);
+    }
+
+    private String buildBookedKey(Long showtimeId) {
+        return String.format("seatHold:showtime:%d:booked", showtimeId);
+    }
+
+    private String buildVersionKey(Long showtimeId) {
+        return String.format("seatHold:showtime:%d:version", showtimeId);
     }
 
     /**
@@ -40,83 +92,16 @@ public class SeatHoldServiceImpl implements SeatHoldService {
      */
     @Override
     public SeatHold holdSeats(SeatSelectRequest req) {
-        String key = buildId(req);
-
-        // validate + save redis
-        String pattern = String.format("seatHold:showtime:%d:*", req.getShowtimeId());
-        Set<String> allkeys = redisService.findKeys(pattern);
-
-        // tao danh sach ghe dang bi nguoi khac giu
-        Set<Long> heldSeatIds = new HashSet<>();
-        for (String keys : allkeys) {
-            if (keys.equals(key)) continue;
-            SeatHold hold = redisService.get(keys, SeatHold.class);
-            if (hold != null) {
-                hold.getSeats().forEach(seat -> heldSeatIds.add(seat.getTicketId()));
-            }
-        }
+        SeatClaimResult claim = claimSeats(req.getShowtimeId(), req.getUserId(), req.getTicketIds());
 
-        // loc cac ghe con trong
-        List<Long> availableSeats = req.getTicketIds().stream()
-                .filter(id -> !heldSeatIds.contains(id))
-                .toList();
-
-        if (availableSeats.isEmpty()) {
+        if (!claim.isClaimed()) {
+            log.info("[SEAT_HOLD] User {} could not claim {} (conflicts: {})",
+                    req.getUserId(), req.getTicketIds(), claim.getConflictTicketIds());
             return null;
         }
 
-        // lay hold hien tai cua user trong redis
-        SeatHold existingHold = redisService.get(key, SeatHold.class);
-        final Set<Long> alreadyHeldTicketIds;
-
-        if (existingHold != null && existingHold.getSeats() != null) {
-            alreadyHeldTicketIds = existingHold.getSeats().stream()
-                    .map(SeatTicketDTO::getTicketId)
-                    .collect(java.util.stream.Collectors.toSet());
-        } else {
-            alreadyHeldTicketIds = new HashSet<>();
-        }
-
-        // Build list of NEW seats to add
-        List<SeatTicketDTO> newSeats = availableSeats.stream()
-                .filter(ticketId -> !alreadyHeldTicketIds.contains(ticketId)) // chi add ghe moi
-                .map(ticketId -> {
-                    var ticket = ticketRepository.findByIdWithSeat(ticketId).orElseThrow();
-                    return SeatTicketDTO.builder()
-                            .ticketId(ticketId)
-                            .rowIdx(Integer.parseInt(ticket.getSeat().getRow()) - 1)
-                            .columnIdx(Integer.parseInt(ticket.getSeat().getColumn()) - 1)
-                            .seatType(ticket.getSeat().getSeatType().getName())
-                            .status(TicketStatus.HELD.name())
-                            .build();
-                })
-                .toList();
-
-        // Merge old + new seats
-        List<SeatTicketDTO> allSeats = new ArrayList<>();
-        if (existingHold != null && existingHold.getSeats() != null) {
-            allSeats.addAll(existingHold.getSeats());
-        }
-        allSeats.addAll(newSeats);
-
-        SeatHold hold = SeatHold.builder()
-                .showtimeId(req.getShowtimeId())
-                .userId(req.getUserId())
-                .seats(allSeats)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusSeconds(HOLD_DURATION))
-                .build();
-
-        // save redis voi TTL
-        if (existingHold == null) {
-            redisService.save(key, hold, HOLD_DURATION);
-            log.info("[REDIS SAVE] User {} now holds {} seats in total", req.getUserId(), allSeats.size());
-        } else {
-            redisService.update(key, hold);
-            log.info("[REDIS UPDATE] User {} now holds {} seats in total", req.getUserId(), allSeats.size());
-        }
-
-        return hold;
+        log.info("[SEAT_HOLD] User {} now holds {} seats in total", req.getUserId(), claim.getHeldTicketIds().size());
+        return toSeatHold(req.getShowtimeId(), req.getUserId(), claim.getHeldTicketIds(), claim.getTtlSeconds());
     }
 
     /**
@@ -126,44 +111,32 @@ public class SeatHoldServiceImpl implements SeatHoldService {
      */
     @Override
     public SeatHold releaseSeats(SeatSelectRequest req) {
-        String key = buildId(req);
-
-        // Get existing hold from Redis
-        SeatHold existing = redisService.get(key, SeatHold.class);
-        if (existing == null) {
-            return null;
+        if (req.getTicketIds() == null || req.getTicketIds().isEmpty()) {
+            // an empty list would make the script release every seat of the user
+            return getCurrentHold(req.getShowtimeId(), req.getUserId());
         }
 
-        // Remove only the specified seats from the hold
-        Set<Long> ticketsToRelease = new HashSet<>(req.getTicketIds());
-        List<SeatTicketDTO> remainingSeats = existing.getSeats().stream()
-                .filter(seat -> !ticketsToRelease.contains(seat.getTicketId()))
-                .toList();
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(req.getUserId()));
+        req.getTicketIds().forEach(id -> args.add(String.valueOf(id)));
 
-        if (remainingSeats.isEmpty()) {
-            // No seats left, delete the entire key
-            redisService.delete(key);
+        List<?> result = redisService.executeScript(RELEASE_SCRIPT,
+                List.of(buildIndexKey(req.getShowtimeId()), buildId(req.getShowtimeId(), req.getUserId())), args);
+        bumpSeatMapVersion(req.getShowtimeId());
+
+        List<Long> remaining = toTicketIds(result, 1);
+        if (remaining.isEmpty()) {
             return null;
         }
-        // Update Redis with remaining seats
-        SeatHold updatedHold = SeatHold.builder()
-                .showtimeId(req.getShowtimeId())
-                .userId(req.getUserId())
-                .seats(remainingSeats)
-                .createdAt(existing.getCreatedAt())
-                .expiresAt(existing.getExpiresAt())
-                .build();
-
-        redisService.update(key, updatedHold);
 
-        log.info("[REDIS UPDATE] User {} released {} seats, {} remaining",
-                req.getUserId(), req.getTicketIds().size(), remainingSeats.size());
-        return updatedHold;
+        log.info("[SEAT_HOLD] User {} released {} seats, {} remaining",
+                req.getUserId(), req.getTicketIds().size(), remaining.size());
+        return toSeatHold(req.getShowtimeId(), req.getUserId(), remaining, ((Number) result.get(0)).longValue());
     }
 
     @Override
     public long getExpire(Long showtimeId, Long userId) {
-        String key = String.format("seatHold:showtime:%d:user:%d", showtimeId, userId);
+        String key = buildId(showtimeId, userId);
         Long ttl = redisService.getTTL(key);
 
         if (ttl == null || ttl <= 0) {
@@ -175,8 +148,204 @@ public class SeatHoldServiceImpl implements SeatHoldService {
 
     @Override
     public SeatHold getCurrentHold(Long showtimeId, Long userId) {
-        String key = String.format("seatHold:showtime:%d:user:%d", showtimeId, userId);
-        return redisService.get(key, SeatHold.class);
+        String key = buildId(showtimeId, userId);
+        Set<String> members = redisService.setMembers(key);
+        if (members.isEmpty()) {
+            return null;
+        }
+        return toSeatHold(showtimeId, userId, members.stream().map(Long::valueOf).toList(), getExpire(showtimeId, userId));
+    }
+
+    @Override
+    public SeatClaimResult claimSeats(Long showtimeId, Long userId, List<Long> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            return SeatClaimResult.builder().claimed(false).conflictTicketIds(List.of()).build();
+        }
+
+        // tickets of another showtime can never be claimed here
+        Map<Long, SeatLayoutDTO> layout = seatLayoutService.getLayout(showtimeId);
+        List<Long> foreignTicketIds = ticketIds.stream().filter(id -> !layout.containsKey(id)).toList();
+        if (!foreignTicketIds.isEmpty()) {
+            return SeatClaimResult.builder().claimed(false).conflictTicketIds(foreignTicketIds).build();
+        }
+
+        List<String> keys = List.of(buildIndexKey(showtimeId), buildId(showtimeId, userId), buildBookedKey(showtimeId));
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(HOLD_DURATION));
+        args.add(String.valueOf(indexTtl(HOLD_DURATION)));
+        ticketIds.forEach(id -> args.add(String.valueOf(id)));
+
+        List<?> result = redisService.executeScript(CLAIM_SCRIPT, keys, args);
+        if (((Number) result.get(0)).intValue() < 0) {
+            seedBookedSet(showtimeId);
+            result = redisService.executeScript(CLAIM_SCRIPT, keys, args);
+        }
+
+        int status = ((Number) result.get(0)).intValue();
+        if (status == 1) {
+            bumpSeatMapVersion(showtimeId);
+            return SeatClaimResult.builder()
+                    .claimed(true)
+                    .ttlSeconds(((Number) result.get(1)).longValue())
+                    .heldTicketIds(toTicketIds(result, 2))
+                    .conflictTicketIds(List.of())
+                    .build();
+        }
+        return SeatClaimResult.builder()
+                .claimed(false)
+                .conflictTicketIds(toTicketIds(result, 1))
+                .build();
+    }
+
+    @Override
+    public Map<Long, Long> getHeldTicketOwners(Long showtimeId) {
+        String indexKey = buildIndexKey(showtimeId);
+        Map<String, String> entries = redisService.hashGetAll(indexKey);
+        if (entries.isEmpty()) {
+            return Map.of();
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Long, Long> owners = new HashMap<>();
+        List<String> staleFields = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            int sep = value.indexOf(':');
+            long expiresAt = sep > 0 ? Long.parseLong(value.substring(sep + 1)) : 0L;
+            if (expiresAt <= now) {
+                staleFields.add(field);
+                return;
+            }
+            owners.put(Long.valueOf(field), Long.valueOf(value.substring(0, sep)));
+        });
+
+        // hold het han qua TTL -> don entry cu khoi index
+        if (!staleFields.isEmpty()) {
+            redisService.hashDelete(indexKey, staleFields);
+            log.debug("[SEAT_HOLD_INDEX] Pruned {} expired entries of showtime {}", staleFields.size(), showtimeId);
+        }
+        return owners;
+    }
+
+    /**
+     * Extend both the user's hold and its index entries, e.g. when checkout starts.
+     */
+    @Override
+    public void extendHold(Long showtimeId, Long userId, long ttlSeconds) {
+        Long extended = redisService.executeScript(EXTEND_SCRIPT,
+                List.of(buildIndexKey(showtimeId), buildId(showtimeId, userId)),
+                List.of(String.valueOf(userId), String.valueOf(System.currentTimeMillis()),
+                        String.valueOf(ttlSeconds), String.valueOf(indexTtl(ttlSeconds))));
+
+        if (extended == null || extended == 0) {
+            log.warn("[REDIS TTL][SEAT_HOLD] No hold found for user={}, showtime={}, cannot extend TTL", userId, showtimeId);
+            return;
+        }
+        log.info("[REDIS TTL][SEAT_HOLD] Extended {} seats of user={}, showtime={} to {} seconds",
+                extended, userId, showtimeId, ttlSeconds);
+    }
+
+    /**
+     * Drop the user's hold and its index entries (payment finished or abandoned).
+     */
+    @Override
+    public void clearHold(Long showtimeId, Long userId) {
+        redisService.executeScript(RELEASE_SCRIPT,
+                List.of(buildIndexKey(showtimeId), buildId(showtimeId, userId)),
+                List.of(String.valueOf(userId)));
+        bumpSeatMapVersion(showtimeId);
+        log.info("[REDIS CLEANUP] Cleared seat hold of user={}, showtime={}", userId, showtimeId);
+    }
+
+    @Override
+    public long markBooked(Long showtimeId, List<Long> ticketIds) {
+        if (ticketIds == null || ticketIds.isEmpty()) return 0L;
+        // without the seeded marker the next claim re-seeds the whole set from the DB
+        long added = redisService.setAdd(buildBookedKey(showtimeId), ticketIds.stream().map(String::valueOf).toList(), BOOKED_SET_TTL);
+        bumpSeatMapVersion(showtimeId);
+        return added;
+    }
+
+    @Override
+    public Map<Long, Long> countHeld(List<Long> showtimeIds) {
+        if (showtimeIds == null || showtimeIds.isEmpty()) return Map.of();
+        List<?> counts = redisService.executeScript(COUNT_SCRIPT,
+                showtimeIds.stream().map(this::buildIndexKey).toList(),
+                List.of(String.valueOf(System.currentTimeMillis())));
+        Map<Long, Long> held = new HashMap<>();
+        for (int i = 0; i < showtimeIds.size(); i++) {
+            held.put(showtimeIds.get(i), ((Number) counts.get(i)).longValue());
+        }
+        return held;
+    }
+
+    @Override
+    public Set<Long> findHeldTicketIds(List<Long> showtimeIds) {
+        if (showtimeIds == null || showtimeIds.isEmpty()) return Set.of();
+        long now = System.currentTimeMillis();
+        Set<Long> held = new HashSet<>();
+        for (Map<String, String> entries : redisService.hashGetAll(showtimeIds.stream().map(this::buildIndexKey).toList())) {
+            entries.forEach((field, value) -> {
+                int sep = value.indexOf(':');
+                if (sep > 0 && Long.parseLong(value.substring(sep + 1)) > now) {
+                    held.add(Long.valueOf(field));
+                }
+            });
+        }
+        return held;
+    }
+
+    @Override
+    public long getSeatMapVersion(Long showtimeId) {
+        return redisService.getCounter(buildVersionKey(showtimeId));
+    }
+
+    private void bumpSeatMapVersion(Long showtimeId) {
+        redisService.increment(buildVersionKey(showtimeId), BOOKED_SET_TTL);
+    }
+
+    private void seedBookedSet(Long showtimeId) {
+        List<String> members = new ArrayList<>();
+        members.add(BOOKED_SET_SEEDED);
+        ticketRepository.findIdsByShowTimeIdAndStatusIn(showtimeId, List.of(TicketStatus.BOOKED, TicketStatus.BLOCKED))
+                .forEach(id -> members.add(String.valueOf(id)));
+        redisService.setAdd(buildBookedKey(showtimeId), members, BOOKED_SET_TTL);
+        log.info("[SEAT_HOLD] Seeded booked set of showtime {} with {} tickets", showtimeId, members.size() - 1);
+    }
+
+    /**
+     * The index key TTL always covers the longest hold duration, so it can never
+     * expire before an entry that is still live.
+     */
+    private long indexTtl(long ttlSeconds) {
+        return Math.max(ttlSeconds, Math.max(HOLD_DURATION, PAYMENT_DURATION));
+    }
+
+    private List<Long> toTicketIds(List<?> scriptResult, int fromIndex) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = fromIndex; i < scriptResult.size(); i++) {
+            ids.add(Long.valueOf(String.valueOf(scriptResult.get(i))));
+        }
+        return ids;
+    }
+
+    private SeatHold toSeatHold(Long showtimeId, Long userId, List<Long> ticketIds, long ttlSeconds) {
+        Map<Long, SeatLayoutDTO> layout = seatLayoutService.getLayout(showtimeId);
+        List<SeatTicketDTO> seats = ticketIds.stream()
+                .map(layout::get)
+                .filter(Objects::nonNull)
+                .map(seat -> seat.toSeatTicket(TicketStatus.HELD.name()))
+                .sorted(Comparator.comparing(SeatTicketDTO::getTicketId))
+                .toList();
+
+        return SeatHold.builder()
+                .showtimeId(showtimeId)
+                .userId(userId)
+                .seats(seats)
+                .expiresAt(LocalDateTime.now().plusSeconds(ttlSeconds))
+                .ttl(ttlSeconds)
+                .build();
     }
 
 }
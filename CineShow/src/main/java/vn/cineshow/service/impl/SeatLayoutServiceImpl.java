@@ -0,0 +1,69 @@
+package vn.cineshow.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.booking.SeatLayoutDTO;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.SeatLayoutService;
+
+/**
+ * In-process cache of ticketId -> row/column/seat type per showtime.
+ * <p>
+ * Tickets and their seats never move once a showtime is created, so the layout is loaded
+ * once and reused by the hold and broadcast paths without touching the database.
+ * Entries are evicted when the showtime is deleted or edited, and the whole cache is
+ * dropped nightly so layouts of past showtimes do not pile up.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatLayoutServiceImpl implements SeatLayoutService {
+
+    private final TicketRepository ticketRepository;
+
+    private final Map<Long, Map<Long, SeatLayoutDTO>> layouts = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<Long, SeatLayoutDTO> getLayout(Long showtimeId) {
+        // unknown showtimes load nothing and are not cached
+        Map<Long, SeatLayoutDTO> layout = layouts.computeIfAbsent(showtimeId, this::load);
+        return layout != null ? layout : Map.of();
+    }
+
+    @Override
+    public void evict(Long showtimeId) {
+        if (layouts.remove(showtimeId) != null) {
+            log.info("[SEAT_LAYOUT] Evicted layout of showtime {}", showtimeId);
+        }
+    }
+
+    @Scheduled(cron = "0 30 4 * * *", zone = "Asia/Ho_Chi_Minh")
+    public void evictAll() {
+        log.info("[SEAT_LAYOUT] Dropping {} cached layouts", layouts.size());
+        layouts.clear();
+    }
+
+    private Map<Long, SeatLayoutDTO> load(Long showtimeId) {
+        Map<Long, SeatLayoutDTO> layout = new HashMap<>();
+        for (Object[] row : ticketRepository.findSeatLayoutByShowTimeId(showtimeId)) {
+            Long ticketId = (Long) row[0];
+            layout.put(ticketId, new SeatLayoutDTO(
+                    ticketId,
+                    Integer.parseInt((String) row[1]) - 1,
+                    Integer.parseInt((String) row[2]) - 1,
+                    (String) row[3]));
+        }
+        if (layout.isEmpty()) {
+            return null;
+        }
+        log.info("[SEAT_LAYOUT] Loaded {} seats of showtime {}", layout.size(), showtimeId);
+        return Map.copyOf(layout);
+    }
+}
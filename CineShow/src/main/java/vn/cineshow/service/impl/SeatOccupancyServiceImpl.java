@@ -0,0 +1,157 @@
+package vn.cineshow.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.booking.SeatOccupancyDTO;
+import vn.cineshow.enums.TicketStatus;
+import vn.cineshow.repository.ShowTimeRepository;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.RedisService;
+import vn.cineshow.service.SchedulerLockService;
+import vn.cineshow.service.SeatHoldService;
+import vn.cineshow.service.SeatOccupancyService;
+
+/**
+ * Ticket counts per status live in {@code seatOccupancy:showtime:{id}} (hash status -> count, plus TOTAL),
+ * seeded from one GROUP BY query on first read and moved on every booking by scripts/seat_occupancy_book.lua.
+ * Held seats are not counted here but from the unexpired entries of the seat hold index.
+ * <p>
+ * Every seeded showtime is listed in {@code seatOccupancy:tracked}; a periodic job, run by one node
+ * at a time, recounts them against the DB (fixing drift from paths that do not report, e.g. redelivered
+ * payments) and forgets showtimes that have ended.
+ */
+@Slf4j(topic = "SEAT-OCCUPANCY")
+@Service
+@RequiredArgsConstructor
+public class SeatOccupancyServiceImpl implements SeatOccupancyService {
+
+    private static final RedisScript<Long> BOOK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/seat_occupancy_book.lua"), Long.class);
+
+    private static final String TRACKED_KEY = "seatOccupancy:tracked";
+    private static final String TOTAL = "TOTAL";
+    private static final long COUNTER_TTL = 24 * 60 * 60;
+    private static final int RECONCILE_CHUNK = 500;
+
+    private final RedisService redisService;
+    private final TicketRepository ticketRepository;
+    private final ShowTimeRepository showTimeRepository;
+    private final SeatHoldService seatHoldService;
+    private final SchedulerLockService schedulerLockService;
+
+    private String buildKey(Long showtimeId) {
+        return String.format("seatOccupancy:showtime:%d", showtimeId);
+    }
+
+    @Override
+    public Map<Long, SeatOccupancyDTO> getOccupancies(List<Long> showtimeIds) {
+        if (showtimeIds == null || showtimeIds.isEmpty()) return Map.of();
+        List<Long> ids = showtimeIds.stream().distinct().toList();
+
+        List<Map<String, String>> cached = redisService.hashGetAll(ids.stream().map(this::buildKey).toList());
+        Map<Long, Map<String, String>> counters = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (cached.get(i).isEmpty()) missing.add(ids.get(i));
+            else counters.put(ids.get(i), cached.get(i));
+        }
+        if (!missing.isEmpty()) {
+            counters.putAll(seed(missing));
+        }
+
+        Map<Long, Long> held = seatHoldService.countHeld(ids);
+        Map<Long, SeatOccupancyDTO> result = new HashMap<>();
+        for (Long id : ids) {
+            Map<String, String> c = counters.get(id);
+            result.put(id, SeatOccupancyDTO.builder()
+                    .total(count(c, TOTAL))
+                    .available(count(c, TicketStatus.AVAILABLE.name()))
+                    .held(held.getOrDefault(id, 0L))
+                    .booked(count(c, TicketStatus.BOOKED.name()))
+                    .blocked(count(c, TicketStatus.BLOCKED.name()))
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public void onBooked(Long showtimeId, long count) {
+        if (count <= 0) return;
+        redisService.executeScript(BOOK_SCRIPT, List.of(buildKey(showtimeId)), List.of(String.valueOf(count)));
+    }
+
+    @Override
+    public void evict(Collection<Long> showtimeIds) {
+        if (showtimeIds == null || showtimeIds.isEmpty()) return;
+        showtimeIds.forEach(id -> redisService.delete(buildKey(id)));
+        redisService.setRemove(TRACKED_KEY, showtimeIds.stream().map(String::valueOf).toList());
+    }
+
+    @Scheduled(fixedDelayString = "${booking.occupancy.reconcile-ms:300000}", initialDelay = 60000)
+    public void reconcile() {
+        schedulerLockService.runExclusively("seatOccupancyReconcile", this::reconcileAll);
+    }
+
+    private void reconcileAll() {
+        List<Long> tracked = redisService.setMembers(TRACKED_KEY).stream().map(Long::valueOf).toList();
+        if (tracked.isEmpty()) return;
+
+        int recounted = 0;
+        int forgotten = 0;
+        for (int from = 0; from < tracked.size(); from += RECONCILE_CHUNK) {
+            List<Long> chunk = tracked.subList(from, Math.min(from + RECONCILE_CHUNK, tracked.size()));
+
+            List<Long> finished = showTimeRepository.findIdsEndedOrDeleted(chunk, LocalDateTime.now());
+            evict(finished);
+            forgotten += finished.size();
+
+            List<Long> live = chunk.stream().filter(id -> !finished.contains(id)).toList();
+            if (live.isEmpty()) continue;
+            seed(live);
+            recounted += live.size();
+        }
+        log.info("Reconciled {} showtime counters, forgot {} finished showtimes", recounted, forgotten);
+    }
+
+    private Map<Long, Map<String, String>> seed(List<Long> showtimeIds) {
+        Map<Long, Map<String, String>> counters = new HashMap<>();
+        Map<Long, Long> totals = new HashMap<>();
+        for (Long id : showtimeIds) {
+            Map<String, String> c = new HashMap<>();
+            for (TicketStatus status : TicketStatus.values()) c.put(status.name(), "0");
+            counters.put(id, c);
+            totals.put(id, 0L);
+        }
+        for (Object[] row : ticketRepository.countByShowTimeIdsGroupByStatus(showtimeIds)) {
+            Long id = (Long) row[0];
+            long count = ((Number) row[2]).longValue();
+            counters.get(id).put(((TicketStatus) row[1]).name(), String.valueOf(count));
+            totals.merge(id, count, Long::sum);
+        }
+
+        counters.forEach((id, c) -> {
+            c.put(TOTAL, String.valueOf(totals.get(id)));
+            redisService.hashPutAll(buildKey(id), c, COUNTER_TTL);
+        });
+        redisService.setAdd(TRACKED_KEY, showtimeIds.stream().map(String::valueOf).toList(), COUNTER_TTL);
+        log.debug("Seeded seat counters of {} showtimes", showtimeIds.size());
+        return counters;
+    }
+
+    private long count(Map<String, String> counters, String field) {
+        String value = counters != null ? counters.get(field) : null;
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+}
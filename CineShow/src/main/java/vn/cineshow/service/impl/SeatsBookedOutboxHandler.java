@@ -0,0 +1,54 @@
+package vn.cineshow.service.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.outbox.BookingOutboxPayload;
+import vn.cineshow.enums.OutboxEventType;
+import vn.cineshow.service.BookingService;
+import vn.cineshow.service.OutboxEventHandler;
+import vn.cineshow.service.SeatHoldService;
+import vn.cineshow.service.SeatOccupancyService;
+
+/**
+ * Marks paid seats as booked in Redis and broadcasts them; orders of the same showtime
+ * relayed together share one Redis write and one WebSocket frame.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatsBookedOutboxHandler implements OutboxEventHandler {
+
+    private final SeatHoldService seatHoldService;
+    private final SeatOccupancyService seatOccupancyService;
+    private final BookingService bookingService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.SEATS_BOOKED;
+    }
+
+    @Override
+    public void handle(List<BookingOutboxPayload> payloads) {
+        Map<Long, Set<Long>> byShowtime = new LinkedHashMap<>();
+        for (BookingOutboxPayload p : payloads) {
+            byShowtime.computeIfAbsent(p.getShowtimeId(), k -> new LinkedHashSet<>()).addAll(p.getTicketIds());
+        }
+
+        byShowtime.forEach((showtimeId, ids) -> {
+            List<Long> ticketIds = new ArrayList<>(ids);
+            // markBooked only counts newly added seats, so a redelivered event does not skew the counters
+            seatOccupancyService.onBooked(showtimeId, seatHoldService.markBooked(showtimeId, ticketIds));
+            bookingService.broadcastBooked(showtimeId, ticketIds);
+        });
+        log.info("[OUTBOX] Booked {} orders over {} showtimes", payloads.size(), byShowtime.size());
+    }
+}
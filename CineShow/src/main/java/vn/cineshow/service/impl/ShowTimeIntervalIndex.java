@@ -0,0 +1,50 @@
+package vn.cineshow.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory schedule of one room, used to validate a bulk schedule without a query per row.
+ * <p>
+ * Intervals are kept in a tree ordered by start time. Any interval overlapping [start, end) must
+ * start before {@code end} and no earlier than {@code start - longest}, so a lookup only walks that
+ * slice of the tree: O(log n + k), and still correct if existing data already contains overlaps.
+ */
+final class ShowTimeIntervalIndex {
+
+    /**
+     * An existing showtime ({@code showTimeId}) or a row accepted earlier in the batch ({@code row}).
+     */
+    record Slot(LocalDateTime start, LocalDateTime end, Long showTimeId, Integer row) {
+    }
+
+    private final NavigableMap<LocalDateTime, List<Slot>> byStart = new TreeMap<>();
+    private Duration longest = Duration.ZERO;
+
+    void add(Slot slot) {
+        byStart.computeIfAbsent(slot.start(), s -> new ArrayList<>(1)).add(slot);
+        Duration length = Duration.between(slot.start(), slot.end());
+        if (length.compareTo(longest) > 0) {
+            longest = length;
+        }
+    }
+
+    /**
+     * First slot overlapping [start, end), or null if the range is free.
+     */
+    Slot findOverlap(LocalDateTime start, LocalDateTime end) {
+        // same rule as ShowTimeRepository.existsOverlapInRoom: slot.start < end AND slot.end > start
+        for (List<Slot> slots : byStart.subMap(start.minus(longest), true, end, false).values()) {
+            for (Slot slot : slots) {
+                if (slot.end().isAfter(start)) {
+                    return slot;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -10,9 +10,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import vn.cineshow.dto.request.showtime.BulkCreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.CreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.UpdateShowTimeRequest;
 import vn.cineshow.dto.response.IdNameDTO;
+import vn.cineshow.dto.response.showtime.BulkCreateShowTimeResponse;
+import vn.cineshow.dto.response.showtime.ShowTimeBulkRowResult;
 import vn.cineshow.dto.response.showtime.ShowTimeListDTO;
 import vn.cineshow.dto.response.showtime.ShowTimeResponse;
 import vn.cineshow.enums.MovieStatus;
@@ -23,6 +26,8 @@ import vn.cineshow.exception.AppException;
 import vn.cineshow.exception.ErrorCode;
 import vn.cineshow.model.*;
 import vn.cineshow.repository.*;
+import vn.cineshow.service.SeatLayoutService;
+import vn.cineshow.service.SeatOccupancyService;
 import vn.cineshow.service.ShowTimeService;
 import vn.cineshow.service.TicketPriceService;
 
@@ -31,7 +36,11 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -54,7 +63,10 @@ public class ShowTimeServiceImpl implements ShowTimeService {
     private final RoomTypeRepository roomTypeRepo;
     private final TicketPriceService ticketPriceService;
     private final TicketRepository ticketRepository;
+    private final ArchivedTicketRepository archivedTicketRepository;
     private final SeatRepository seatRepository;
+    private final SeatLayoutService seatLayoutService;
+    private final SeatOccupancyService seatOccupancyService;
 
     private static LocalDateTime parseFlexible(String s, boolean endOfDayIfDateOnly) {
         if (s == null || s.isBlank()) return null;
@@ -181,6 +193,136 @@ public class ShowTimeServiceImpl implements ShowTimeService {
                 .build();
     }
 
+    /**
+     * Create a whole schedule in one transaction.
+     * <p>
+     * Movies, rooms and subtitles are loaded once, existing showtimes of the rooms over the
+     * batch's date range come from one query into a per-room {@link ShowTimeIntervalIndex},
+     * and each accepted row is added to that index so later rows are checked against it too.
+     * Rejected rows do not stop the batch; every row gets its own result.
+     */
+    @Override
+    @Transactional
+    public BulkCreateShowTimeResponse createShowTimes(BulkCreateShowTimeRequest req) {
+        List<CreateShowTimeRequest> rows = req.getShowtimes();
+        log.info("🎬 [BULK CREATE SHOWTIME] Start bulk create: {} rows", rows.size());
+
+        // 1) Load entities once
+        Map<Long, Movie> movies = movieRepo.findAllById(rows.stream().map(CreateShowTimeRequest::getMovieId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Movie::getId, m -> m));
+        Map<Long, Room> rooms = roomRepo.findAllById(rows.stream().map(CreateShowTimeRequest::getRoomId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Room::getId, r -> r));
+        Map<Long, SubTitle> subtitles = subTitleRepo.findAllById(rows.stream().map(CreateShowTimeRequest::getSubtitleId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(SubTitle::getId, st -> st));
+
+        // 2) Existing schedule of the rooms over the whole range, one query
+        Map<Long, ShowTimeIntervalIndex> schedules = new HashMap<>();
+        if (!rooms.isEmpty()) {
+            LocalDateTime from = rows.stream().map(CreateShowTimeRequest::getStartTime).min(LocalDateTime::compareTo).orElseThrow();
+            LocalDateTime to = rows.stream().map(CreateShowTimeRequest::getEndTime).max(LocalDateTime::compareTo).orElseThrow();
+            for (Object[] r : showTimeRepository.findIntervalsInRooms(rooms.keySet(), from, to)) {
+                schedules.computeIfAbsent((Long) r[1], id -> new ShowTimeIntervalIndex())
+                        .add(new ShowTimeIntervalIndex.Slot((LocalDateTime) r[2], (LocalDateTime) r[3], (Long) r[0], null));
+            }
+        }
+
+        // 3) Validate row by row
+        Map<Long, List<Seat>> seatsByRoom = new HashMap<>();
+        Map<String, Map<Long, TicketPrice>> priceMatrices = new HashMap<>();
+        List<ShowTimeBulkRowResult> results = new ArrayList<>(rows.size());
+        Map<Integer, ShowTime> accepted = new LinkedHashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            CreateShowTimeRequest row = rows.get(i);
+            Movie movie = movies.get(row.getMovieId());
+            Room room = rooms.get(row.getRoomId());
+            SubTitle subtitle = subtitles.get(row.getSubtitleId());
+
+            ErrorCode error = null;
+            if (movie == null) error = ErrorCode.MOVIE_NOT_FOUND;
+            else if (room == null) error = ErrorCode.ROOM_NOT_FOUND;
+            else if (subtitle == null) error = ErrorCode.SUBTITLE_NOT_FOUND;
+            else if (room.getStatus() == RoomStatus.INACTIVE || room.getStatus() == RoomStatus.MAINTENANCE) error = ErrorCode.ROOM_INACTIVE;
+            else if (!row.getEndTime().isAfter(row.getStartTime().plusMinutes(movie.getDuration()))) error = ErrorCode.INVALID_ENDTIME;
+
+            if (error == null) {
+                List<Seat> seats = seatsByRoom.computeIfAbsent(room.getId(), seatRepository::findByRoom_Id);
+                Map<Long, TicketPrice> prices = priceMatrices.computeIfAbsent(
+                        room.getRoomType().getId() + ":" + row.getStartTime().toLocalDate(),
+                        key -> ticketPriceService.findTicketPricesBySeatType(room.getRoomType().getId(), row.getStartTime().toLocalDate()));
+                if (seats.stream().anyMatch(seat -> !prices.containsKey(seat.getSeatType().getId()))) {
+                    error = ErrorCode.TICKET_PRICE_NOT_FOUND;
+                }
+            }
+
+            if (error != null) {
+                results.add(ShowTimeBulkRowResult.builder()
+                        .row(i).created(false).errorCode(error.getCode()).message(error.getMessage())
+                        .build());
+                continue;
+            }
+
+            ShowTimeIntervalIndex schedule = schedules.computeIfAbsent(room.getId(), id -> new ShowTimeIntervalIndex());
+            ShowTimeIntervalIndex.Slot conflict = schedule.findOverlap(row.getStartTime(), row.getEndTime());
+            if (conflict != null) {
+                results.add(ShowTimeBulkRowResult.builder()
+                        .row(i).created(false)
+                        .errorCode(ErrorCode.SHOWTIME_CONFLICT.getCode())
+                        .message(ErrorCode.SHOWTIME_CONFLICT.getMessage())
+                        .conflictShowTimeId(conflict.showTimeId())
+                        .conflictRow(conflict.row())
+                        .build());
+                continue;
+            }
+            schedule.add(new ShowTimeIntervalIndex.Slot(row.getStartTime(), row.getEndTime(), null, i));
+
+            ShowTime st = new ShowTime();
+            st.setMovie(movie);
+            st.setRoom(room);
+            st.setSubtitle(subtitle);
+            st.setStartTime(row.getStartTime());
+            st.setEndTime(row.getEndTime());
+            accepted.put(i, st);
+            results.add(ShowTimeBulkRowResult.builder().row(i).created(true).build());
+        }
+
+        if (accepted.isEmpty()) {
+            log.warn("❌ [BULK CREATE SHOWTIME] No row accepted out of {}", rows.size());
+            return BulkCreateShowTimeResponse.builder().requested(rows.size()).created(0).rows(results).build();
+        }
+
+        // 4) Business rule: phim UPCOMING co suat chieu -> PLAYING
+        accepted.values().stream()
+                .map(ShowTime::getMovie)
+                .filter(movie -> movie.getStatus() == MovieStatus.UPCOMING)
+                .distinct()
+                .forEach(movie -> {
+                    movie.setStatus(MovieStatus.PLAYING);
+                    log.info("🎞️ Movie {} status updated to PLAYING", movie.getName());
+                });
+
+        // 5) Persist showtimes, then every ticket of the batch in JDBC batches
+        showTimeRepository.saveAll(accepted.values());
+
+        List<Ticket> tickets = new ArrayList<>();
+        for (ShowTime st : accepted.values()) {
+            tickets.addAll(buildTickets(st,
+                    seatsByRoom.get(st.getRoom().getId()),
+                    priceMatrices.get(st.getRoom().getRoomType().getId() + ":" + st.getStartTime().toLocalDate())));
+        }
+        int insertedTickets = ticketRepository.insertAll(tickets);
+
+        accepted.forEach((i, st) -> results.get(i).setShowTimeId(st.getId()));
+        log.info("🎉 [BULK CREATE SHOWTIME] Created {} of {} showtimes with {} tickets",
+                accepted.size(), rows.size(), insertedTickets);
+
+        return BulkCreateShowTimeResponse.builder()
+                .requested(rows.size())
+                .created(accepted.size())
+                .rows(results)
+                .build();
+    }
+
     @Override
     public ShowTimeListDTO getShowTimeById(Long id) {
         if (id == null || id <= 0) {
@@ -257,6 +399,8 @@ public class ShowTimeServiceImpl implements ShowTimeService {
         st.setEndTime(end);
 
         ShowTime saved = showTimeRepository.save(st);
+        seatLayoutService.evict(saved.getId());
+        seatOccupancyService.evict(List.of(saved.getId()));
 
         return ShowTimeResponse.builder()
                 .id(saved.getId())
@@ -282,6 +426,10 @@ public class ShowTimeServiceImpl implements ShowTimeService {
         
         // Kiểm tra xem có vé đã được đặt (BOOKED) không
         Long bookedTickets = ticketRepository.countByShowTime_IdAndStatus(id, TicketStatus.BOOKED);
+        if (bookedTickets == null || bookedTickets == 0) {
+            // suất chiếu cũ: vé đã chuyển sang tickets_archive
+            bookedTickets = archivedTicketRepository.countByShowTime_IdAndStatus(id, TicketStatus.BOOKED);
+        }
         
         if (bookedTickets != null && bookedTickets > 0) {
             throw new ResponseStatusException(
@@ -292,6 +440,8 @@ public class ShowTimeServiceImpl implements ShowTimeService {
         
         st.setIsDeleted(true);
         showTimeRepository.save(st);
+        seatLayoutService.evict(id);
+        seatOccupancyService.evict(List.of(id));
         log.info("✅ Soft deleted showtime id={}", id);
     }
 
@@ -351,9 +501,9 @@ public class ShowTimeServiceImpl implements ShowTimeService {
      * Initializes all seats for a specific showtime.
      * <p>
      * This method retrieves all seats belonging to the showtime's room,
-     * calculates the ticket price for each seat based on current pricing policy,
+     * resolves the day type and the seat type price matrix of the room type once,
      * determines the seat status (AVAILABLE or BLOCKED),
-     * and persists all generated SeatShowTime records into the database.
+     * and inserts all generated tickets in JDBC batches.
      * </p>
      *
      * @param showTime the showtime for which seat entries should be created
@@ -361,9 +511,24 @@ public class ShowTimeServiceImpl implements ShowTimeService {
     private void createSeatForShowTime(ShowTime showTime) {
         //add seat
         List<Seat> seats = seatRepository.findByRoom(showTime.getRoom());
+        Map<Long, TicketPrice> prices = ticketPriceService.findTicketPricesBySeatType(
+                showTime.getRoom().getRoomType().getId(), showTime.getStartTime().toLocalDate());
+
+        //save
+        int inserted = ticketRepository.insertAll(buildTickets(showTime, seats, prices));
+        log.info("Created {} tickets for showtime {}", inserted, showTime.getId());
+    }
 
+    /**
+     * One ticket per seat, priced from the seat type price matrix of the showtime's room type and day.
+     */
+    private List<Ticket> buildTickets(ShowTime showTime, List<Seat> seats, Map<Long, TicketPrice> prices) {
+        List<Ticket> tickets = new ArrayList<>(seats.size());
         for (Seat seat : seats) {
-            TicketPrice ticketPrice = ticketPriceService.findTicketPrice(seat.getId(), showTime.getId());
+            TicketPrice ticketPrice = prices.get(seat.getSeatType().getId());
+            if (ticketPrice == null) {
+                throw new AppException(ErrorCode.TICKET_PRICE_NOT_FOUND);
+            }
             Ticket ticket = Ticket.builder()
                     .seat(seat)
                     .ticketPrice(ticketPrice)
@@ -373,9 +538,9 @@ public class ShowTimeServiceImpl implements ShowTimeService {
             ticket.setStatus(
                     seat.getStatus() == SeatStatus.AVAILABLE ? TicketStatus.AVAILABLE : TicketStatus.BLOCKED
             );
-            //save
-            ticketRepository.save(ticket);
+            tickets.add(ticket);
         }
+        return tickets;
     }
 
 }
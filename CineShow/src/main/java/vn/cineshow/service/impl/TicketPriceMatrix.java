@@ -0,0 +1,68 @@
+package vn.cineshow.service.impl;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import vn.cineshow.enums.DayType;
+import vn.cineshow.model.TicketPrice;
+
+/**
+ * Immutable snapshot of the ticket_prices table: dayType -> roomTypeId -> seatTypeId -> price.
+ * <p>
+ * Built in one pass from prices fetched with their room and seat types, then only read.
+ * A price change builds a new matrix instead of touching this one, so readers never lock.
+ * The TicketPrice entities are detached and must be treated as read-only.
+ */
+final class TicketPriceMatrix {
+
+    private final Map<DayType, Map<Long, Map<Long, TicketPrice>>> prices;
+    private final long version;
+    private final int size;
+
+    TicketPriceMatrix(List<TicketPrice> ticketPrices, long version) {
+        Map<DayType, Map<Long, Map<Long, TicketPrice>>> building = new EnumMap<>(DayType.class);
+        for (TicketPrice tp : ticketPrices) {
+            building.computeIfAbsent(tp.getDayType(), d -> new HashMap<>())
+                    .computeIfAbsent(tp.getRoomType().getId(), r -> new HashMap<>())
+                    .put(tp.getSeatType().getId(), tp);
+        }
+
+        Map<DayType, Map<Long, Map<Long, TicketPrice>>> frozen = new EnumMap<>(DayType.class);
+        building.forEach((dayType, byRoomType) -> {
+            Map<Long, Map<Long, TicketPrice>> rooms = new HashMap<>();
+            byRoomType.forEach((roomTypeId, bySeatType) -> rooms.put(roomTypeId, Map.copyOf(bySeatType)));
+            frozen.put(dayType, Map.copyOf(rooms));
+        });
+
+        this.prices = frozen;
+        this.version = version;
+        this.size = ticketPrices.size();
+    }
+
+    /**
+     * @return seatTypeId -> price of the room type on that day type, empty if none is configured
+     */
+    Map<Long, TicketPrice> bySeatType(Long roomTypeId, DayType dayType) {
+        Map<Long, Map<Long, TicketPrice>> byRoomType = prices.get(dayType);
+        if (byRoomType == null) return Map.of();
+        return byRoomType.getOrDefault(roomTypeId, Map.of());
+    }
+
+    Optional<TicketPrice> find(Long roomTypeId, Long seatTypeId, DayType dayType) {
+        return Optional.ofNullable(bySeatType(roomTypeId, dayType).get(seatTypeId));
+    }
+
+    /**
+     * Value of the cluster-wide price version read before this matrix was loaded.
+     */
+    long version() {
+        return version;
+    }
+
+    int size() {
+        return size;
+    }
+}
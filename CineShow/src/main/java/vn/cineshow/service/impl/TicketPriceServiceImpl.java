@@ -1,8 +1,17 @@
 package vn.cineshow.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import vn.cineshow.dto.request.ticketPrice.TicketPriceRequest;
 import vn.cineshow.dto.response.ticketPrice.TicketPriceResponse;
 import vn.cineshow.enums.DayType;
@@ -10,26 +19,118 @@ import vn.cineshow.exception.AppException;
 import vn.cineshow.exception.ErrorCode;
 import vn.cineshow.model.*;
 import vn.cineshow.repository.*;
-import vn.cineshow.service.HolidayService;
+import vn.cineshow.service.HolidayCalendarService;
+import vn.cineshow.service.RedisService;
 import vn.cineshow.service.TicketPriceService;
+import vn.cineshow.service.TicketRepricingService;
 
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Prices are resolved from an in-memory {@link TicketPriceMatrix} instead of the database.
+ * <p>
+ * The matrix is loaded when the application is ready and replaced as a whole after a price change
+ * commits. Every change bumps {@link #VERSION_KEY} and is announced on {@link #CHANNEL} so the
+ * other nodes reload too; a periodic version check covers messages missed while a node was
+ * disconnected from Redis.
+ */
+@Slf4j(topic = "TICKET-PRICE")
 @Service
 @RequiredArgsConstructor
-public class TicketPriceServiceImpl implements TicketPriceService {
+public class TicketPriceServiceImpl implements TicketPriceService, MessageListener {
+
+    public static final String CHANNEL = "ticketPrice:changed";
+    private static final String VERSION_KEY = "ticketPrice:version";
+    private static final long VERSION_TTL = 30L * 24 * 60 * 60;
 
     private final TicketPriceRepository ticketPriceRepository;
     private final SeatTypeRepository seatTypeRepository;
     private final RoomTypeRepository roomTypeRepository;
-    private final SeatRepository seatRepository;
     private final ShowTimeRepository showTimeRepository;
-    private final HolidayService holidayService;
+    private final HolidayCalendarService holidayCalendarService;
+    private final RedisService redisService;
+    // looked up on use: the repricing service itself depends on this one
+    private final ObjectProvider<TicketRepricingService> ticketRepricingService;
+
+    private volatile TicketPriceMatrix matrix;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Build a fresh matrix from the database and swap it in.
+     * The version is read first, so a change committed during the load is picked up by the next check.
+     */
+    public synchronized void reload() {
+        long version = readVersion();
+        TicketPriceMatrix loaded = new TicketPriceMatrix(ticketPriceRepository.findAllWithRelations(), version);
+        matrix = loaded;
+        log.info("Loaded {} ticket prices (version {})", loaded.size(), version);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.price.refresh-ms:60000}", initialDelay = 60000)
+    public void refreshIfChanged() {
+        TicketPriceMatrix current = matrix;
+        if (current == null || current.version() != readVersion()) {
+            reload();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        long version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        TicketPriceMatrix current = matrix;
+        if (current == null || current.version() != version) {
+            reload();
+        }
+    }
+
+    private TicketPriceMatrix matrix() {
+        TicketPriceMatrix current = matrix;
+        if (current == null) {
+            reload();
+            current = matrix;
+        }
+        return current;
+    }
+
+    private long readVersion() {
+        try {
+            return redisService.getCounter(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("Cannot read ticket price version, keeping local state: {}", e.getMessage());
+            TicketPriceMatrix current = matrix;
+            return current != null ? current.version() : 0L;
+        }
+    }
+
+    private void publishChangeAfterCommit() {
+        Runnable publish = () -> {
+            long version = redisService.increment(VERSION_KEY, VERSION_TTL);
+            reload();
+            redisService.publish(CHANNEL, String.valueOf(version));
+            ticketRepricingService.getObject().requestReprice("ticket price changed");
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish.run();
+            }
+        });
+    }
 
     @Transactional
     @Override
@@ -48,7 +149,9 @@ public class TicketPriceServiceImpl implements TicketPriceService {
                         .build());
 
         price.setPrice(req.getPrice());
-        return ticketPriceRepository.save(price);
+        TicketPrice saved = ticketPriceRepository.save(price);
+        publishChangeAfterCommit();
+        return saved;
     }
 
     @Override
@@ -80,30 +183,15 @@ public class TicketPriceServiceImpl implements TicketPriceService {
     }
 
 
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Double calculatePrice(Long seatId, Long showTimeId) {
-        // 1. Lấy seatType
-        Seat seat = seatRepository.findById(seatId)
-                .orElseThrow(() -> new AppException(ErrorCode.SEAT_TYPE_NOT_FOUND));
-        Long seatTypeId = seat.getSeatType().getId();
-
-        // 2. Lấy roomType + showDate
-        ShowTime showTime = showTimeRepository.findById(showTimeId)
-                .orElseThrow(() -> new RuntimeException("ShowTime not found"));
-        Long roomTypeId = showTime.getRoom().getRoomType().getId();
-        LocalDate showDate = LocalDate.from(showTime.getStartTime());
-
-        // 3. Tính dayType
-        DayType dayType = getDayType(showDate);
-
-        // 4. Truy vấn giá
-        return ticketPriceRepository.findPrice(roomTypeId, seatTypeId, dayType)
-                .orElseThrow(() -> new AppException(ErrorCode.TICKET_PRICE_NOT_FOUND));
+        return findTicketPrice(seatId, showTimeId).getPrice();
     }
 
-    private DayType getDayType(LocalDate date) {
-        if (holidayService.isHoliday(date)) return DayType.HOLIDAY;
+    @Override
+    public DayType getDayType(LocalDate date) {
+        if (holidayCalendarService.isHoliday(date)) return DayType.HOLIDAY;
 
         DayOfWeek dow = date.getDayOfWeek();
         if (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY)
@@ -112,28 +200,37 @@ public class TicketPriceServiceImpl implements TicketPriceService {
         return DayType.NORMAL;
     }
 
-    @Transactional
+    /**
+     * Resolves the price keys of the seat and showtime with one projection query, then reads the matrix.
+     * Callers that already know the room type, seat type and show date should use the key-based overload.
+     */
+    @Transactional(readOnly = true)
     @Override
     public TicketPrice findTicketPrice(Long seatId, Long showTimeId) {
-        // 1. Lấy seatType
-        Seat seat = seatRepository.findById(seatId)
-                .orElseThrow(() -> new AppException(ErrorCode.SEAT_TYPE_NOT_FOUND));
-        Long seatTypeId = seat.getSeatType().getId();
-
-        // 2. Lấy roomType + showDate
-        ShowTime showTime = showTimeRepository.findById(showTimeId)
-                .orElseThrow(() -> new RuntimeException("ShowTime not found"));
-        Long roomTypeId = showTime.getRoom().getRoomType().getId();
-        LocalDate showDate = LocalDate.from(showTime.getStartTime());
+        // 1. seatType, roomType, giờ chiếu trong 1 câu query (không nạp entity)
+        List<Object[]> keys = showTimeRepository.findPriceKeys(seatId, showTimeId);
+        if (keys.isEmpty()) {
+            throw new AppException(ErrorCode.SHOW_TIME_NOT_FOUND);
+        }
+        Object[] row = keys.get(0);
+        Long seatTypeId = (Long) row[0];
+        Long roomTypeId = (Long) row[1];
+        LocalDate showDate = ((LocalDateTime) row[2]).toLocalDate();
 
-        // 3. Tính dayType
-        DayType dayType = getDayType(showDate);
+        return findTicketPrice(roomTypeId, seatTypeId, showDate);
+    }
 
-        // 4. Truy vấn giá
-        return ticketPriceRepository.findBySeatTypeIdAndRoomTypeIdAndDayType(seatTypeId, roomTypeId, dayType)
+    @Override
+    public TicketPrice findTicketPrice(Long roomTypeId, Long seatTypeId, LocalDate showDate) {
+        // tra bảng giá trong bộ nhớ theo dayType của ngày chiếu
+        return matrix().find(roomTypeId, seatTypeId, getDayType(showDate))
                 .orElseThrow(() -> new AppException(ErrorCode.TICKET_PRICE_NOT_FOUND));
     }
 
+    @Override
+    public Map<Long, TicketPrice> findTicketPricesBySeatType(Long roomTypeId, LocalDate showDate) {
+        return matrix().bySeatType(roomTypeId, getDayType(showDate));
+    }
 
-}
 
+}
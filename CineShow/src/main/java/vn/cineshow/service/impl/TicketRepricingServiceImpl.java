@@ -0,0 +1,158 @@
+package vn.cineshow.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.dto.response.ticketPrice.TicketRepricingStatus;
+import vn.cineshow.dto.response.ticketPrice.TicketRepricingStatus.State;
+import vn.cineshow.enums.DayType;
+import vn.cineshow.enums.TicketStatus;
+import vn.cineshow.model.TicketPrice;
+import vn.cineshow.repository.ShowTimeRepository;
+import vn.cineshow.repository.TicketRepository;
+import vn.cineshow.service.SeatHoldService;
+import vn.cineshow.service.TicketPriceService;
+import vn.cineshow.service.TicketRepricingService;
+
+/**
+ * Relinks AVAILABLE tickets of upcoming showtimes to the current price rows.
+ * <p>
+ * Upcoming showtimes are grouped by (room type, day type); each group is processed in chunks of
+ * {@link #SHOWTIME_CHUNK} showtimes with one UPDATE per seat type, each committed on its own.
+ * BOOKED and BLOCKED tickets are filtered by status, tickets held in Redis are excluded explicitly,
+ * so nobody sees the price of a seat change between selecting and paying for it.
+ * Runs on a single background thread; requests made while a run is queued are merged into it.
+ */
+@Slf4j(topic = "TICKET-REPRICING")
+@Service
+@RequiredArgsConstructor
+public class TicketRepricingServiceImpl implements TicketRepricingService {
+
+    private static final int SHOWTIME_CHUNK = 200;
+    // NOT IN () is not valid SQL; no ticket has this id
+    private static final List<Long> NO_TICKETS = List.of(-1L);
+
+    private final ShowTimeRepository showTimeRepository;
+    private final TicketRepository ticketRepository;
+    private final TicketPriceService ticketPriceService;
+    private final SeatHoldService seatHoldService;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ticket-repricing");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    private volatile TicketRepricingStatus status = TicketRepricingStatus.idle();
+
+    @Override
+    public TicketRepricingStatus requestReprice(String reason) {
+        if (queued.compareAndSet(false, true)) {
+            worker.submit(() -> {
+                // cleared before running so a change made during this run queues the next one
+                queued.set(false);
+                run(reason);
+            });
+            log.info("Queued ticket repricing: {}", reason);
+        }
+        return status;
+    }
+
+    @Override
+    public TicketRepricingStatus getStatus() {
+        return status;
+    }
+
+    private void run(String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        long started = System.currentTimeMillis();
+        status = TicketRepricingStatus.builder()
+                .state(State.RUNNING)
+                .reason(reason)
+                .startedAt(now)
+                .build();
+        try {
+            Map<String, PricingGroup> groups = new LinkedHashMap<>();
+            int total = 0;
+            for (Object[] row : showTimeRepository.findUpcomingPricingKeys(now)) {
+                Long roomTypeId = (Long) row[1];
+                LocalDate showDate = ((LocalDateTime) row[2]).toLocalDate();
+                DayType dayType = ticketPriceService.getDayType(showDate);
+                groups.computeIfAbsent(roomTypeId + ":" + dayType, k -> new PricingGroup(roomTypeId, showDate))
+                        .showTimeIds.add((Long) row[0]);
+                total++;
+            }
+
+            status = status.toBuilder().totalShowtimes(total).build();
+
+            int processed = 0;
+            long updated = 0;
+            for (PricingGroup group : groups.values()) {
+                Collection<TicketPrice> prices = ticketPriceService
+                        .findTicketPricesBySeatType(group.roomTypeId, group.showDate).values();
+
+                for (int from = 0; from < group.showTimeIds.size(); from += SHOWTIME_CHUNK) {
+                    List<Long> chunk = group.showTimeIds.subList(from, Math.min(from + SHOWTIME_CHUNK, group.showTimeIds.size()));
+                    Set<Long> held = seatHoldService.findHeldTicketIds(chunk);
+                    Collection<Long> excluded = held.isEmpty() ? NO_TICKETS : held;
+
+                    for (TicketPrice price : prices) {
+                        updated += ticketRepository.relinkTicketPrice(chunk, price.getSeatType().getId(), price,
+                                TicketStatus.AVAILABLE, excluded, LocalDateTime.now());
+                    }
+                    processed += chunk.size();
+                    status = status.toBuilder()
+                            .processedShowtimes(processed)
+                            .updatedTickets(updated)
+                            .build();
+                }
+            }
+
+            status = status.toBuilder()
+                    .state(State.DONE)
+                    .finishedAt(LocalDateTime.now())
+                    .build();
+            log.info("Repriced {} tickets across {} upcoming showtimes in {} ms ({})",
+                    updated, total, System.currentTimeMillis() - started, reason);
+        } catch (Exception e) {
+            status = status.toBuilder()
+                    .state(State.FAILED)
+                    .finishedAt(LocalDateTime.now())
+                    .error(e.getMessage())
+                    .build();
+            log.error("Ticket repricing failed after {} showtimes: {}", status.getProcessedShowtimes(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdown();
+    }
+
+    private static class PricingGroup {
+        final Long roomTypeId;
+        // any date of the group: all of them share the day type
+        final LocalDate showDate;
+        final List<Long> showTimeIds = new ArrayList<>();
+
+        PricingGroup(Long roomTypeId, LocalDate showDate) {
+            this.roomTypeId = roomTypeId;
+            this.showDate = showDate;
+        }
+    }
+}
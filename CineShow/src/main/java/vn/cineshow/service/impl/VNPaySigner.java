@@ -0,0 +1,94 @@
+package vn.cineshow.service.impl;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import vn.cineshow.config.VNPayProperties;
+
+/**
+ * HMAC-SHA512 checksum of VNPay parameters, shared by the payment flow and the local gateway stub.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VNPaySigner {
+
+    private final VNPayProperties vnpayProperties;
+
+    // Mac is not thread-safe; one instance per thread, keyed once and reset by doFinal
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * Hex HMAC-SHA512 of the data with the merchant hash secret; empty if hashing fails.
+     */
+    public String sign(String data) {
+        try {
+            return HexFormat.of().formatHex(macs.get().doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.error("Cannot compute VNPay checksum: {}", e.getMessage());
+            return "";
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac512 = Mac.getInstance("HmacSHA512");
+            hmac512.init(new SecretKeySpec(
+                    vnpayProperties.getHashSecret().getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            return hmac512;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA512 is not available", e);
+        }
+    }
+
+    /**
+     * Build sorted query string (hashData) from VNPay params.
+     */
+    public String buildHashData(Map<String, String> params) {
+        Map<String, String> fields = new HashMap<>(params);
+        fields.remove("vnp_SecureHash");
+        fields.remove("vnp_SecureHashType");
+
+        List<String> fieldNames = new ArrayList<>(fields.keySet());
+        Collections.sort(fieldNames);
+
+        StringJoiner hashData = new StringJoiner("&");
+        for (String fieldName : fieldNames) {
+            String fieldValue = fields.get(fieldName);
+            if (fieldValue != null && !fieldValue.isEmpty()) {
+                hashData.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.US_ASCII));
+            }
+        }
+        return hashData.toString();
+    }
+
+    /**
+     * Validate VNPay checksum.
+     * @return true if checksum is valid, false otherwise.
+     */
+    public boolean isValidChecksum(Map<String, String> params) {
+        String localHash = sign(buildHashData(params));
+        String receivedHash = params.get("vnp_SecureHash");
+        boolean isValid = localHash.equalsIgnoreCase(receivedHash);
+
+        if (!isValid) {
+            log.warn("Checksum mismatch — expected={}, received={}", localHash, receivedHash);
+        }
+        return isValid;
+    }
+}
@@ -0,0 +1,51 @@
+-- Migration: Batch-friendly ids (profile "batch-ids"), MySQL
+-- Date: 2026-10-18
+-- Description: Create the shared id generator row used by META-INF/orm-batch-ids.xml.
+--              AUTO_INCREMENT stays on the id columns (explicit ids are accepted), but while the
+--              profile is on, nothing may insert rows without an id or the two counters will collide.
+--              Run with the application stopped.
+
+CREATE TABLE IF NOT EXISTS id_generators (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val      BIGINT
+);
+
+-- Start above every existing id plus one allocation block (50)
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'cineshow', MAX(max_id) + 51
+FROM (
+    SELECT COALESCE(MAX(id), 0) AS max_id FROM accounts
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM account_provider
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM activity_logs
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM Concession
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM concession_type
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM countries
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM holidays
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM languages
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM movies
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM movie_genres
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM orders
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payments
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payment_methods
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM refresh_tokens
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM roles
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM rooms
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM room_types
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM seats
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM seat_types
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM showtimes
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM subtitles
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM tickets
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM ticket_prices
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM vouchers
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM voucher_items
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM theater_update_history
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payment_events
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM outbox_events
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM tickets_archive   -- ids moved out of tickets, never reissued
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM daily_sales_rollups
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM daily_concession_rollups
+) ids
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+-- Rollback: remove the profile; AUTO_INCREMENT continues after the highest id automatically.
@@ -0,0 +1,73 @@
+-- Migration: Batch-friendly ids (profile "batch-ids"), SQL Server
+-- Date: 2026-10-18
+-- Description: Create the shared id generator row used by META-INF/orm-batch-ids.xml.
+--              SQL Server rejects explicit values in IDENTITY columns, so the id column of every
+--              table listed below must be rebuilt without IDENTITY first (step 2). Run with the
+--              application stopped; a fresh database created by ddl-auto with the profile on needs only step 1.
+
+-- 1) Generator table, starting above every existing id plus one allocation block (50)
+IF OBJECT_ID('id_generators', 'U') IS NULL
+    CREATE TABLE id_generators (
+        sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+        next_val      BIGINT
+    );
+
+DELETE FROM id_generators WHERE sequence_name = 'cineshow';
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'cineshow', MAX(max_id) + 51
+FROM (
+    SELECT COALESCE(MAX(id), 0) AS max_id FROM accounts
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM account_provider
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM activity_logs
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM Concession
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM concession_type
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM countries
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM holidays
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM languages
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM movies
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM movie_genres
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM orders
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payments
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payment_methods
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM refresh_tokens
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM roles
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM rooms
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM room_types
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM seats
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM seat_types
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM showtimes
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM subtitles
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM tickets
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM ticket_prices
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM vouchers
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM voucher_items
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM theater_update_history
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM payment_events
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM outbox_events
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM tickets_archive   -- ids moved out of tickets, never reissued
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM daily_sales_rollups
+    UNION ALL SELECT COALESCE(MAX(id), 0) FROM daily_concession_rollups
+) ids;
+
+-- 2) Drop IDENTITY from an id column. IDENTITY cannot be altered in place; the table is switched
+--    into an identical copy without IDENTITY (metadata-only, no data copy). Repeat per table above.
+--    Example for tickets (script the real definition with SSMS "Script Table as > CREATE"):
+--
+-- BEGIN TRANSACTION;
+-- CREATE TABLE tickets_noident (
+--     id              BIGINT       NOT NULL,
+--     created_at      DATETIME2(6) NULL,
+--     updated_at      DATETIME2(6) NULL,
+--     price_snapshot  DECIMAL(10,2) NULL,
+--     status          VARCHAR(255) NULL,
+--     order_id        BIGINT       NULL,
+--     seat_id         BIGINT       NOT NULL,
+--     showtime_id     BIGINT       NOT NULL,
+--     ticket_price_id BIGINT       NOT NULL,
+--     CONSTRAINT PK_tickets_noident PRIMARY KEY (id)
+-- );
+-- -- drop foreign keys referencing tickets first, switch, then recreate them against the new table
+-- ALTER TABLE tickets SWITCH TO tickets_noident;
+-- DROP TABLE tickets;
+-- EXEC sp_rename 'tickets_noident', 'tickets';
+-- COMMIT;
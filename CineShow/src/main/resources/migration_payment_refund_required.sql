@@ -0,0 +1,11 @@
+-- Migration: REFUND_REQUIRED payment status
+-- Date: 2026-10-18
+-- Description: payments.payment_status is created by Hibernate as a MySQL ENUM and ddl-auto "update"
+--              does not add new values to it, so extend the column before deploying.
+--              payment_events.paid is added by ddl-auto (existing events get false).
+
+ALTER TABLE payments
+    MODIFY COLUMN payment_status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUND_REQUIRED') NULL;
+
+-- SQL Server: the column is a VARCHAR with a CHECK constraint listing the values. Drop that constraint
+-- (name from sp_helpconstraint 'payments') and recreate it with REFUND_REQUIRED added.
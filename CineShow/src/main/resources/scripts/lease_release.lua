@@ -0,0 +1,8 @@
+-- Release a scheduler lease, only if it is still held by the caller.
+-- KEYS[1] lease key
+-- ARGV[1] owner token
+-- Returns 1 when released, 0 when it had already expired or been taken over.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,8 @@
+-- Extend a scheduler lease, only if it is still held by the caller.
+-- KEYS[1] lease key
+-- ARGV[1] owner token, ARGV[2] lease (ms)
+-- Returns 1 when renewed, 0 when the lease expired or was taken over.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
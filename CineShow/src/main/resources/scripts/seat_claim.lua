@@ -0,0 +1,54 @@
+-- Atomically claim seats of one showtime for one user: all requested tickets or none.
+-- KEYS[1] seat hold index (hash ticketId -> "userId:expiresAtMillis")
+-- KEYS[2] user's held tickets (set)
+-- KEYS[3] booked/blocked tickets of the showtime (set, "_" marks it as seeded)
+-- ARGV[1] userId, ARGV[2] now (millis), ARGV[3] hold TTL (s), ARGV[4] index TTL (s), ARGV[5..] ticketIds
+-- Returns {-1} when KEYS[3] must be seeded first,
+--         {0, conflictingTicketIds...} when nothing was claimed,
+--         {1, ttl, heldTicketIds...} on success.
+if redis.call('SISMEMBER', KEYS[3], '_') == 0 then
+    return {-1}
+end
+
+local userId = ARGV[1]
+local now = tonumber(ARGV[2])
+local conflicts = {0}
+for i = 5, #ARGV do
+    local ticketId = ARGV[i]
+    if redis.call('SISMEMBER', KEYS[3], ticketId) == 1 then
+        conflicts[#conflicts + 1] = ticketId
+    else
+        local entry = redis.call('HGET', KEYS[1], ticketId)
+        if entry then
+            local sep = string.find(entry, ':', 1, true)
+            local owner = string.sub(entry, 1, sep - 1)
+            if owner ~= userId and tonumber(string.sub(entry, sep + 1)) > now then
+                conflicts[#conflicts + 1] = ticketId
+            end
+        end
+    end
+end
+if #conflicts > 1 then
+    return conflicts
+end
+
+-- an existing hold keeps its countdown, a new hold starts a full one
+local ttl = redis.call('TTL', KEYS[2])
+if ttl <= 0 then
+    ttl = tonumber(ARGV[3])
+end
+local entry = userId .. ':' .. (now + ttl * 1000)
+for i = 5, #ARGV do
+    redis.call('HSET', KEYS[1], ARGV[i], entry)
+    redis.call('SADD', KEYS[2], ARGV[i])
+end
+redis.call('EXPIRE', KEYS[2], ttl)
+if redis.call('TTL', KEYS[1]) < tonumber(ARGV[4]) then
+    redis.call('EXPIRE', KEYS[1], ARGV[4])
+end
+
+local result = {1, ttl}
+for _, ticketId in ipairs(redis.call('SMEMBERS', KEYS[2])) do
+    result[#result + 1] = ticketId
+end
+return result
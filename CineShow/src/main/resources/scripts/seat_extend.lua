@@ -0,0 +1,19 @@
+-- Extend a user's hold and its index entries to a new TTL (e.g. when checkout starts).
+-- KEYS[1] seat hold index (hash ticketId -> "userId:expiresAtMillis")
+-- KEYS[2] user's held tickets (set)
+-- ARGV[1] userId, ARGV[2] now (millis), ARGV[3] new hold TTL (s), ARGV[4] index TTL (s)
+-- Returns the number of seats extended (0 when the hold is already gone).
+local tickets = redis.call('SMEMBERS', KEYS[2])
+if #tickets == 0 then
+    return 0
+end
+
+local entry = ARGV[1] .. ':' .. (tonumber(ARGV[2]) + tonumber(ARGV[3]) * 1000)
+for _, ticketId in ipairs(tickets) do
+    redis.call('HSET', KEYS[1], ticketId, entry)
+end
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+if redis.call('TTL', KEYS[1]) < tonumber(ARGV[4]) then
+    redis.call('EXPIRE', KEYS[1], ARGV[4])
+end
+return #tickets
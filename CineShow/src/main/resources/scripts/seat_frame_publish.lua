@@ -0,0 +1,10 @@
+-- Assign the next cluster-wide sequence number of a showtime and publish its frame in one call,
+-- so frames from different nodes reach subscribers in sequence order.
+-- KEYS[1] sequence counter of the showtime
+-- ARGV[1] channel, ARGV[2] showtimeId, ARGV[3] seats JSON, ARGV[4] counter TTL (s),
+-- ARGV[5] top-level members shared by every seat (see SeatFrameSender.sharedFields), may be empty
+-- Returns the sequence number of the frame.
+local seq = redis.call('INCR', KEYS[1])
+redis.call('EXPIRE', KEYS[1], ARGV[4])
+redis.call('PUBLISH', ARGV[1], ARGV[2] .. '|' .. seq .. '|' .. ARGV[5] .. '|' .. ARGV[3])
+return seq
@@ -0,0 +1,21 @@
+-- Count unexpired holds of several showtimes and prune the expired index entries met on the way.
+-- KEYS[1..n] seat hold indexes (hash ticketId -> "userId:expiresAtMillis")
+-- ARGV[1] now, epoch millis
+-- Returns one count per key, in KEYS order
+local now = tonumber(ARGV[1])
+local counts = {}
+for i, key in ipairs(KEYS) do
+    local entries = redis.call('HGETALL', key)
+    local held = 0
+    for j = 1, #entries, 2 do
+        local entry = entries[j + 1]
+        local sep = string.find(entry, ':', 1, true)
+        if sep and tonumber(string.sub(entry, sep + 1)) > now then
+            held = held + 1
+        else
+            redis.call('HDEL', key, entries[j])
+        end
+    end
+    counts[i] = held
+end
+return counts
@@ -0,0 +1,11 @@
+-- Move tickets from AVAILABLE to BOOKED in a seeded occupancy hash.
+-- A missing hash is left alone: the next read seeds it from the DB.
+-- KEYS[1] occupancy hash of the showtime
+-- ARGV[1] number of tickets
+-- Returns 1 if the counters were updated, 0 otherwise.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], 'AVAILABLE', -tonumber(ARGV[1]))
+redis.call('HINCRBY', KEYS[1], 'BOOKED', tonumber(ARGV[1]))
+return 1
@@ -0,0 +1,29 @@
+-- Release seats held by one user and drop their index entries in the same call.
+-- KEYS[1] seat hold index (hash ticketId -> "userId:expiresAtMillis")
+-- KEYS[2] user's held tickets (set)
+-- ARGV[1] userId, ARGV[2..] ticketIds (none = release every seat of the user)
+-- Returns {ttl, remainingTicketIds...}
+local targets = {}
+if #ARGV > 1 then
+    for i = 2, #ARGV do
+        targets[#targets + 1] = ARGV[i]
+    end
+else
+    targets = redis.call('SMEMBERS', KEYS[2])
+end
+
+local ownerPrefix = ARGV[1] .. ':'
+for _, ticketId in ipairs(targets) do
+    if redis.call('SREM', KEYS[2], ticketId) == 1 then
+        local entry = redis.call('HGET', KEYS[1], ticketId)
+        if entry and string.sub(entry, 1, string.len(ownerPrefix)) == ownerPrefix then
+            redis.call('HDEL', KEYS[1], ticketId)
+        end
+    end
+end
+
+local result = {redis.call('TTL', KEYS[2])}
+for _, ticketId in ipairs(redis.call('SMEMBERS', KEYS[2])) do
+    result[#result + 1] = ticketId
+end
+return result
@@ -12,8 +12,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mockito.ArgumentCaptor;
 import vn.cineshow.dto.request.booking.ConcessionListRequest;
 import vn.cineshow.dto.request.booking.ConcessionOrderRequest;
+import vn.cineshow.dto.response.ResponseData;
 import vn.cineshow.dto.response.booking.BookingSeatsResponse;
 import vn.cineshow.dto.response.booking.SeatHold;
+import vn.cineshow.dto.response.booking.SeatMapSnapshot;
+import vn.cineshow.dto.response.booking.SeatReplayFrame;
+import vn.cineshow.dto.response.booking.SeatReplayResponse;
 import vn.cineshow.dto.response.booking.ShowTimeResponse;
 import vn.cineshow.service.BookingService;
 import vn.cineshow.service.JWTService;
@@ -32,6 +36,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -130,18 +135,55 @@ class BookingControllerTest {
                 .build();
 
         List<BookingSeatsResponse> seatsResponses = Arrays.asList(seatsResponse);
+        byte[] body = objectMapper.writeValueAsBytes(new ResponseData<>(200,
+                "Get showtime and room by movie and start time successfully", seatsResponses));
 
-        when(bookingService.getSeatsByShowTimeId(1L)).thenReturn(seatsResponses);
+        when(bookingService.getSeatMapSnapshot(1L)).thenReturn(new SeatMapSnapshot(3L, "\"abc\"", body, 0L));
 
         mockMvc.perform(get("/bookings/show-times/1/seats"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
                 .andExpect(jsonPath("$.status").value(200))
                 .andExpect(jsonPath("$.message").value("Get showtime and room by movie and start time successfully"))
                 .andExpect(jsonPath("$.data").isArray())
                 .andExpect(jsonPath("$.data[0].showTimeId").value(1L))
                 .andExpect(jsonPath("$.data[0].roomId").value(1L));
 
-        verify(bookingService).getSeatsByShowTimeId(1L);
+        verify(bookingService).getSeatMapSnapshot(1L);
+    }
+
+    @Test
+    @DisplayName("GET /bookings/show-times/{showTimeId}/seats should return 304 when ETag matches")
+    void getSeatsForBooking_shouldReturnNotModified() throws Exception {
+        when(bookingService.getSeatMapSnapshot(1L)).thenReturn(new SeatMapSnapshot(3L, "\"abc\"", new byte[0], 0L));
+
+        mockMvc.perform(get("/bookings/show-times/1/seats").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc\""));
+    }
+
+    @Test
+    @DisplayName("GET /bookings/show-times/{showTimeId}/seats/events should return buffered frames after seq")
+    void getSeatEventsAfter_shouldReturnFrames() throws Exception {
+        SeatReplayResponse replay = SeatReplayResponse.builder()
+                .showTimeId(1L)
+                .latestSeq(12L)
+                .snapshot(false)
+                .frames(List.of(new SeatReplayFrame(12L, "[{\"ticketId\":5,\"status\":\"HELD\"}]")))
+                .build();
+
+        when(bookingService.getSeatEventsAfter(1L, 11L)).thenReturn(replay);
+
+        mockMvc.perform(get("/bookings/show-times/1/seats/events").param("afterSeq", "11"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Get seat events successfully"))
+                .andExpect(jsonPath("$.data.latestSeq").value(12L))
+                .andExpect(jsonPath("$.data.snapshot").value(false))
+                .andExpect(jsonPath("$.data.frames[0].seq").value(12L))
+                .andExpect(jsonPath("$.data.frames[0].seats[0].ticketId").value(5L));
+
+        verify(bookingService).getSeatEventsAfter(1L, 11L);
     }
 
     @Test
@@ -0,0 +1,83 @@
+package vn.cineshow.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import vn.cineshow.dto.response.BDashbroad.BusinessDashboardResponse;
+import vn.cineshow.service.BusinessDashboardService;
+import vn.cineshow.service.JWTService;
+import vn.cineshow.service.SalesRollupService;
+import vn.cineshow.service.impl.AccountDetailsService;
+
+import java.time.LocalDate;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = BusinessDashbroadController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class BusinessDashbroadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BusinessDashboardService businessDashboardService;
+
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    @MockBean
+    private JWTService jwtService;
+
+    @MockBean
+    private AccountDetailsService accountDetailsService;
+
+    // ==================== GET /business/dashboard ====================
+    @Test
+    @DisplayName("GET /business/dashboard should return dashboard data successfully")
+    void getBusinessDashboard_shouldReturnDashboardSuccessfully() throws Exception {
+        BusinessDashboardResponse dashboard = BusinessDashboardResponse.builder()
+                .revenueThisMonth(1_500_000L)
+                .totalOrders(12L)
+                .build();
+
+        when(businessDashboardService.getBusinessDashboard()).thenReturn(dashboard);
+
+        mockMvc.perform(get("/business/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Lấy dữ liệu dashboard thành công"))
+                .andExpect(jsonPath("$.data.revenueThisMonth").value(1_500_000))
+                .andExpect(jsonPath("$.data.totalOrders").value(12));
+
+        verify(businessDashboardService, times(1)).getBusinessDashboard();
+    }
+
+    // ==================== POST /business/dashboard/rollups/rebuild ====================
+    @Test
+    @DisplayName("POST /business/dashboard/rollups/rebuild should return the number of orders recounted")
+    void rebuildRollups_shouldReturnRecountedOrders() throws Exception {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+
+        when(salesRollupService.rebuild(from, to)).thenReturn(120);
+
+        mockMvc.perform(post("/business/dashboard/rollups/rebuild")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Đã tính lại dữ liệu tổng hợp doanh thu từ 120 đơn hàng"))
+                .andExpect(jsonPath("$.data").value(120));
+
+        verify(salesRollupService, times(1)).rebuild(from, to);
+    }
+}
@@ -209,6 +209,24 @@ class HolidayControllerTest {
         verify(holidayService, times(1)).addHolidays(any(List.class));
     }
 
+    // ==================== GET /holidays/upcoming ====================
+    @Test
+    @DisplayName("GET /holidays/upcoming should return holiday dates")
+    void getUpcomingHolidays_shouldReturnDates() throws Exception {
+        when(holidayService.getUpcomingHolidays(30))
+                .thenReturn(List.of(LocalDate.of(2025, 9, 2), LocalDate.of(2025, 9, 3)));
+
+        mockMvc.perform(get("/holidays/upcoming").param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Get upcoming holidays successfully"))
+                .andExpect(jsonPath("$.data").isArray())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[0]").value("2025-09-02"));
+
+        verify(holidayService, times(1)).getUpcomingHolidays(30);
+    }
+
     // ==================== DELETE /holidays/{id} ====================
     @Test
     @DisplayName("DELETE /holidays/{id} should delete holiday successfully")
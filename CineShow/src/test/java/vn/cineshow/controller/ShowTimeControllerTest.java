@@ -13,9 +13,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import vn.cineshow.dto.request.showtime.BulkCreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.CreateShowTimeRequest;
 import vn.cineshow.dto.request.showtime.UpdateShowTimeRequest;
 import vn.cineshow.dto.response.IdNameDTO;
+import vn.cineshow.dto.response.showtime.BulkCreateShowTimeResponse;
+import vn.cineshow.dto.response.showtime.ShowTimeBulkRowResult;
 import vn.cineshow.dto.response.showtime.ShowTimeListDTO;
 import vn.cineshow.dto.response.showtime.ShowTimeResponse;
 import vn.cineshow.service.JWTService;
@@ -266,6 +269,51 @@ class ShowTimeControllerTest {
         verify(showTimeService, times(1)).createShowTime(any(CreateShowTimeRequest.class));
     }
 
+    // ==================== POST /api/showtimes/bulk ====================
+    @Test
+    @DisplayName("POST /api/showtimes/bulk should return per-row results")
+    void createBulk_shouldReturnRowResults() throws Exception {
+        CreateShowTimeRequest first = CreateShowTimeRequest.builder()
+                .movieId(1L)
+                .roomId(1L)
+                .subtitleId(1L)
+                .startTime(LocalDateTime.of(2025, 1, 1, 14, 0))
+                .endTime(LocalDateTime.of(2025, 1, 1, 16, 0))
+                .build();
+        CreateShowTimeRequest overlapping = CreateShowTimeRequest.builder()
+                .movieId(1L)
+                .roomId(1L)
+                .subtitleId(1L)
+                .startTime(LocalDateTime.of(2025, 1, 1, 15, 0))
+                .endTime(LocalDateTime.of(2025, 1, 1, 17, 0))
+                .build();
+        BulkCreateShowTimeRequest request = BulkCreateShowTimeRequest.builder()
+                .showtimes(List.of(first, overlapping))
+                .build();
+
+        BulkCreateShowTimeResponse response = BulkCreateShowTimeResponse.builder()
+                .requested(2)
+                .created(1)
+                .rows(List.of(
+                        ShowTimeBulkRowResult.builder().row(0).created(true).showTimeId(10L).build(),
+                        ShowTimeBulkRowResult.builder().row(1).created(false).errorCode(2036).conflictRow(0).build()))
+                .build();
+
+        when(showTimeService.createShowTimes(any(BulkCreateShowTimeRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/showtimes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Bulk create completed"))
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.rows[0].showTimeId").value(10L))
+                .andExpect(jsonPath("$.data.rows[1].conflictRow").value(0));
+
+        verify(showTimeService, times(1)).createShowTimes(any(BulkCreateShowTimeRequest.class));
+    }
+
     // ==================== GET /api/showtimes/showtimeBy/{id} ====================
     @Test
     @DisplayName("GET /api/showtimes/showtimeBy/{id} should return showtime successfully")
@@ -11,9 +11,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import vn.cineshow.dto.request.ticketPrice.TicketPriceRequest;
 import vn.cineshow.dto.response.ticketPrice.TicketPriceResponse;
+import vn.cineshow.dto.response.ticketPrice.TicketRepricingStatus;
 import vn.cineshow.model.TicketPrice;
 import vn.cineshow.service.JWTService;
 import vn.cineshow.service.TicketPriceService;
+import vn.cineshow.service.TicketRepricingService;
 import vn.cineshow.service.impl.AccountDetailsService;
 
 import java.util.Arrays;
@@ -39,6 +41,9 @@ class TicketPriceControllerTest {
     @MockBean
     private TicketPriceService ticketPriceService;
 
+    @MockBean
+    private TicketRepricingService ticketRepricingService;
+
     @MockBean
     private JWTService jwtService;
 
@@ -111,5 +116,41 @@ class TicketPriceControllerTest {
 
         verify(ticketPriceService, times(1)).calculatePrice(1L, 10L);
     }
-}
 
+    // ==================== /ticket-prices/reprice ====================
+    @Test
+    @DisplayName("POST /ticket-prices/reprice should queue a repricing run")
+    void reprice_shouldQueueRun() throws Exception {
+        when(ticketRepricingService.requestReprice("manual")).thenReturn(TicketRepricingStatus.idle());
+
+        mockMvc.perform(post("/ticket-prices/reprice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(200))
+                .andExpect(jsonPath("$.message").value("Ticket repricing started"))
+                .andExpect(jsonPath("$.data.state").value("IDLE"));
+
+        verify(ticketRepricingService, times(1)).requestReprice("manual");
+    }
+
+    @Test
+    @DisplayName("GET /ticket-prices/reprice should return repricing progress")
+    void getRepricingStatus_shouldReturnProgress() throws Exception {
+        TicketRepricingStatus running = TicketRepricingStatus.builder()
+                .state(TicketRepricingStatus.State.RUNNING)
+                .reason("holidays changed")
+                .totalShowtimes(400)
+                .processedShowtimes(200)
+                .updatedTickets(12000)
+                .build();
+        when(ticketRepricingService.getStatus()).thenReturn(running);
+
+        mockMvc.perform(get("/ticket-prices/reprice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Get ticket repricing status successfully"))
+                .andExpect(jsonPath("$.data.state").value("RUNNING"))
+                .andExpect(jsonPath("$.data.processedShowtimes").value(200))
+                .andExpect(jsonPath("$.data.updatedTickets").value(12000));
+
+        verify(ticketRepricingService, times(1)).getStatus();
+    }
+}
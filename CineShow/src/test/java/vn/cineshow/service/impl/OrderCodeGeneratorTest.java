@@ -0,0 +1,198 @@
+package vn.cineshow.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import vn.cineshow.service.RedisService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OrderCodeGeneratorTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private RedisService redisService;
+    private OrderCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        redisService = mock(RedisService.class);
+        generator = new OrderCodeGenerator(redisService);
+        generator.configuredNodeId = 37;
+        generator.init();
+    }
+
+    // 63-bit body of a code: millis since EPOCH (41) | node (10) | sequence (12)
+    private static long decode(String code) {
+        long id = 0;
+        for (char c : code.substring(3, 16).toCharArray()) {
+            id = (id << 5) | ALPHABET.indexOf(c);
+        }
+        return id;
+    }
+
+    private static long millisOf(String code) {
+        return (decode(code) >>> 22) + EPOCH;
+    }
+
+    private static long nodeOf(String code) {
+        return (decode(code) >>> 12) & 1023;
+    }
+
+    private static long sequenceOf(String code) {
+        return decode(code) & 4095;
+    }
+
+    // ==================== next() ====================
+    @Test
+    @DisplayName("next() should issue PHT + 13 body characters + check character")
+    void next_shouldHaveExpectedFormat() {
+        String code = generator.next();
+
+        assertThat(code).hasSize(17).startsWith("PHT");
+        assertThat(code.substring(3).chars().allMatch(c -> ALPHABET.indexOf(c) >= 0)).isTrue();
+        assertThat(OrderCodeGenerator.isWellFormed(code)).isTrue();
+    }
+
+    @Test
+    @DisplayName("next() should encode the current time, the node id and the sequence in the body")
+    void next_shouldEncodeTimeNodeAndSequence() {
+        long before = System.currentTimeMillis();
+        String code = generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(millisOf(code)).isBetween(before, after);
+        assertThat(nodeOf(code)).isEqualTo(37);
+    }
+
+    @Test
+    @DisplayName("next() should issue distinct, increasing codes")
+    void next_shouldIssueDistinctIncreasingCodes() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            codes.add(generator.next());
+        }
+
+        Set<String> distinct = new HashSet<>(codes);
+        assertThat(distinct).hasSize(codes.size());
+        for (int i = 1; i < codes.size(); i++) {
+            assertThat(decode(codes.get(i))).isGreaterThan(decode(codes.get(i - 1)));
+        }
+    }
+
+    @Test
+    @DisplayName("next() should keep issuing on the last millisecond when the clock steps back")
+    void next_whenClockStepsBack_shouldNotRepeat() {
+        long future = System.currentTimeMillis() + 60_000;
+        ReflectionTestUtils.setField(generator, "lastMillis", future);
+        ReflectionTestUtils.setField(generator, "sequence", 7L);
+
+        String code = generator.next();
+
+        assertThat(millisOf(code)).isEqualTo(future);
+        assertThat(sequenceOf(code)).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("next() should borrow the next millisecond when the sequence is exhausted")
+    void next_whenSequenceExhausted_shouldBorrowNextMillisecond() {
+        long future = System.currentTimeMillis() + 60_000;
+        ReflectionTestUtils.setField(generator, "lastMillis", future);
+        ReflectionTestUtils.setField(generator, "sequence", 4095L);
+
+        String code = generator.next();
+
+        assertThat(millisOf(code)).isEqualTo(future + 1);
+        assertThat(sequenceOf(code)).isZero();
+        assertThat(decode(generator.next())).isGreaterThan(decode(code));
+    }
+
+    // ==================== init() ====================
+    @Test
+    @DisplayName("init() should reject a configured node id above 1023")
+    void init_withNodeIdOutOfRange_shouldThrow() {
+        OrderCodeGenerator g = new OrderCodeGenerator(redisService);
+        g.configuredNodeId = 1024;
+
+        assertThatThrownBy(g::init).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("init() should take the node id from the Redis counter when none is configured")
+    void init_withoutNodeId_shouldUseRedisCounter() {
+        when(redisService.increment(anyString(), anyLong())).thenReturn(1024L + 5);
+        OrderCodeGenerator g = new OrderCodeGenerator(redisService);
+        g.configuredNodeId = -1;
+
+        g.init();
+
+        assertThat(nodeOf(g.next())).isEqualTo(5);
+        verify(redisService, times(1)).increment(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("init() should fall back to a random node id when Redis is unavailable")
+    void init_whenRedisFails_shouldUseRandomNodeId() {
+        when(redisService.increment(anyString(), anyLong())).thenThrow(new IllegalStateException("down"));
+        OrderCodeGenerator g = new OrderCodeGenerator(redisService);
+        g.configuredNodeId = -1;
+
+        g.init();
+
+        String code = g.next();
+        assertThat(nodeOf(code)).isBetween(0L, 1023L);
+        assertThat(OrderCodeGenerator.isWellFormed(code)).isTrue();
+    }
+
+    // ==================== isWellFormed() ====================
+    @Test
+    @DisplayName("isWellFormed() should match the Luhn mod 32 check character of known bodies")
+    void isWellFormed_shouldMatchKnownCheckCharacters() {
+        // '1' doubled = 2 -> check (32 - 2) = 30 -> 'Y'
+        assertThat(OrderCodeGenerator.isWellFormed("PHT0000000000001Y")).isTrue();
+        assertThat(OrderCodeGenerator.isWellFormed("PHT0000000000001Z")).isFalse();
+        // 'Z' doubled = 62 -> 1 + 30 = 31 -> check 1 -> '1'
+        assertThat(OrderCodeGenerator.isWellFormed("PHT000000000000Z1")).isTrue();
+        assertThat(OrderCodeGenerator.isWellFormed("PHT000000000000Z0")).isFalse();
+    }
+
+    @Test
+    @DisplayName("isWellFormed() should reject any single mistyped character")
+    void isWellFormed_shouldRejectSingleCharacterErrors() {
+        String code = generator.next();
+
+        for (int i = 3; i < code.length(); i++) {
+            for (char c : ALPHABET.toCharArray()) {
+                if (c == code.charAt(i)) continue;
+                String typo = code.substring(0, i) + c + code.substring(i + 1);
+                assertThat(OrderCodeGenerator.isWellFormed(typo)).as(typo).isFalse();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("isWellFormed() should accept legacy numeric codes and reject malformed input")
+    void isWellFormed_shouldHandleLegacyAndMalformedCodes() {
+        assertThat(OrderCodeGenerator.isWellFormed("PHT123456789")).isTrue();
+        assertThat(OrderCodeGenerator.isWellFormed("PHT12345678A")).isFalse();
+
+        assertThat(OrderCodeGenerator.isWellFormed(null)).isFalse();
+        assertThat(OrderCodeGenerator.isWellFormed("")).isFalse();
+        assertThat(OrderCodeGenerator.isWellFormed("ABC0000000000001Y")).isFalse();
+        assertThat(OrderCodeGenerator.isWellFormed("PHT0000000000001")).isFalse();
+        assertThat(OrderCodeGenerator.isWellFormed("PHT000000000000I1")).isFalse(); // I is not in the alphabet
+        assertThat(OrderCodeGenerator.isWellFormed("pht0000000000001Y")).isFalse();
+    }
+}